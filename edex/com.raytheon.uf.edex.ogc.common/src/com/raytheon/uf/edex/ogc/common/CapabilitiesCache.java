@@ -0,0 +1,169 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raytheon.uf.common.util.concurrent.KeyLock;
+import com.raytheon.uf.common.util.concurrent.KeyLocker;
+
+/**
+ * Cache of marshalled capabilities documents. Each document is kept until the
+ * version of the sources it was built from changes, then rebuilt by the next
+ * request for it. Only one thread builds a document at a time, other requests
+ * for the same document wait for it.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        versions supplied per service
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class CapabilitiesCache {
+
+    /**
+     * Builds a marshalled capabilities document
+     */
+    public static interface DocumentBuilder<E extends Exception> {
+
+        /**
+         * @return marshalled document
+         * @throws E
+         */
+        public byte[] build() throws E;
+    }
+
+    private static final long CACHE_BYTES = Long.getLong(
+            "ogc.capabilities.cache.mb", 64) * 1024 * 1024;
+
+    private static final Cache<String, Document> CACHE = Caffeine.newBuilder()
+            .maximumWeight(CACHE_BYTES)
+            .weigher((String k, Document v) -> v.bytes.length).build();
+
+    private static final KeyLocker<String> locker = new KeyLocker<>();
+
+    private CapabilitiesCache() {
+    }
+
+    /**
+     * Create a cache key for a capabilities document
+     *
+     * @param service
+     *            service name
+     * @param version
+     *            service version
+     * @param roles
+     *            roles of requesting user, may be null
+     * @param serviceInfo
+     *            service endpoint used to build the document
+     * @return
+     */
+    public static String getKey(String service, String version,
+            String[] roles, OgcServiceInfo<?> serviceInfo) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(service).append('|').append(version).append('|');
+        if (roles != null) {
+            String[] sorted = Arrays.copyOf(roles, roles.length);
+            Arrays.sort(sorted);
+            sb.append(String.join(",", sorted));
+        }
+        sb.append('|').append(serviceInfo.getOnlineResource());
+        for (OgcOperationInfo<?> op : serviceInfo.getOperations()) {
+            sb.append('|').append(op.getType()).append(' ')
+                    .append(op.getHttpGetRes()).append(' ')
+                    .append(op.getHttpPostRes());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get document from cache, building it if it is not cached or its sources
+     * have changed since it was built
+     *
+     * @param key
+     *            from {@link #getKey(String, String, String[], OgcServiceInfo)}
+     * @param version
+     *            supplies the current version of the sources the document is
+     *            built from, versions are compared with equals
+     * @param builder
+     * @return marshalled document, must not be modified
+     * @throws E
+     *             if document could not be built
+     */
+    public static <E extends Exception> byte[] get(String key,
+            Supplier<?> version, DocumentBuilder<E> builder) throws E {
+        Document rval = CACHE.getIfPresent(key);
+        if (rval != null && Objects.equals(rval.version, version.get())) {
+            return rval.bytes;
+        }
+        KeyLock<String> lock = null;
+        try {
+            lock = locker.getLock(key);
+            lock.lock();
+            /* read before sources are used so that changes are never missed */
+            Object current = version.get();
+            rval = CACHE.getIfPresent(key);
+            if (rval == null || !Objects.equals(rval.version, current)) {
+                rval = new Document(current, builder.build());
+                CACHE.put(key, rval);
+            }
+            return rval.bytes;
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Remove all documents from cache
+     */
+    public static void clear() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * Marshalled document and the source version it was built from
+     */
+    private static class Document {
+
+        public final Object version;
+
+        public final byte[] bytes;
+
+        public Document(Object version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+
+}
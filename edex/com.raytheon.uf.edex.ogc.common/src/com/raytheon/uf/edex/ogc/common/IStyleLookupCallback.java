@@ -23,6 +23,7 @@ import com.raytheon.uf.common.dataplugin.PluginDataObject;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Sep 30, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        Added getLayerNames
  * 
  * </pre>
  * 
@@ -47,4 +48,13 @@ public interface IStyleLookupCallback<R extends PluginDataObject> {
      */
     public List<R> getAllSamples() throws OgcException;
 
+    /**
+     * Return names of all layers advertised by source without querying for
+     * data records
+     * 
+     * @return
+     * @throws OgcException
+     */
+    public List<String> getLayerNames() throws OgcException;
+
 }
@@ -0,0 +1,383 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common.db;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.raytheon.uf.common.serialization.DynamicSerializationManager;
+import com.raytheon.uf.common.serialization.DynamicSerializationManager.SerializationType;
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.edex.ogc.common.OgcException;
+import com.raytheon.uf.edex.ogc.common.OgcException.Code;
+
+/**
+ * Layer store that keeps all layers in memory in front of a persistent store.
+ * The in memory layers are authoritative. Loading is lazy: layers for a class
+ * are loaded from the persistent store the first time the class is used, so
+ * that call waits for the load, and reads never go to the persistent store
+ * after that. Writes update memory immediately and are persisted in the
+ * background. Multiple writes to the same layer between background flushes
+ * are coalesced into a single write of the latest version. Writes, deletes and
+ * flushes for a class are serialized by a per class lock so a write can't land
+ * in memory that {@link #deleteAll(Class)} has already replaced.
+ * 
+ * Layers are copied going in and out of the store so callers can modify
+ * returned layers without affecting the store, the same as with a store that
+ * deserializes on every read.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        Lock class for single layer writes
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class CachingLayerStore implements ILayerStore {
+
+    protected static final long FLUSH_DELAY = Long.getLong(
+            "ogc.layer.store.flush.millis", 1000);
+
+    private static final IUFStatusHandler log = UFStatus
+            .getHandler(CachingLayerStore.class);
+
+    private final DynamicSerializationManager serializer = DynamicSerializationManager
+            .getManager(SerializationType.Thrift);
+
+    private final ILayerStore persistent;
+
+    /* layer id to layer for each loaded class */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, SimpleLayer<?>>> layers = new ConcurrentHashMap<>();
+
+    /*
+     * layers waiting to be persisted by class and id, null values are pending
+     * deletes. Guarded by itself.
+     */
+    private final Map<Class<?>, Map<String, SimpleLayer<?>>> pending = new HashMap<>();
+
+    /* held while loading, changing or persisting a class */
+    private final ConcurrentMap<Class<?>, ReentrantLock> classLocks = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, Optional<Constructor<?>>> copyConstructors = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * @param persistent
+     *            store that layers are loaded from and persisted to
+     */
+    public CachingLayerStore(ILayerStore persistent) {
+        this(persistent, FLUSH_DELAY);
+    }
+
+    /**
+     * @param persistent
+     *            store that layers are loaded from and persisted to
+     * @param flushDelay
+     *            milliseconds between background flushes
+     */
+    public CachingLayerStore(ILayerStore persistent, long flushDelay) {
+        this.persistent = persistent;
+        this.flusher = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "ogc-layer-store-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushDelay,
+                flushDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param c
+     * @return lock for loading or persisting class
+     */
+    private ReentrantLock getClassLock(Class<?> c) {
+        return classLocks.computeIfAbsent(c, k -> new ReentrantLock());
+    }
+
+    /**
+     * Get in memory layers for class, loading them from the persistent store
+     * if this is the first time the class is used
+     * 
+     * @param c
+     * @return
+     * @throws OgcException
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private ConcurrentMap<String, SimpleLayer<?>> getLayers(Class<?> c)
+            throws OgcException {
+        ConcurrentMap<String, SimpleLayer<?>> rval = layers.get(c);
+        if (rval != null) {
+            return rval;
+        }
+        ReentrantLock lock = getClassLock(c);
+        lock.lock();
+        try {
+            rval = layers.get(c);
+            if (rval == null) {
+                rval = new ConcurrentHashMap<>();
+                for (Object o : persistent.getAll((Class) c)) {
+                    SimpleLayer<?> l = (SimpleLayer<?>) o;
+                    rval.put(l.getIdentifier(), l);
+                }
+                layers.put(c, rval);
+            }
+            return rval;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <D extends SimpleDimension, L extends SimpleLayer<D>> L get(
+            String id, Class<L> c) throws OgcException {
+        SimpleLayer<?> rval = getLayers(c).get(id);
+        return rval == null ? null : (L) copy(rval);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <D extends SimpleDimension, L extends SimpleLayer<D>> List<L> getAll(
+            Class<L> c) throws OgcException {
+        ConcurrentMap<String, SimpleLayer<?>> map = getLayers(c);
+        List<L> rval = new ArrayList<>(map.size());
+        for (SimpleLayer<?> l : map.values()) {
+            rval.add((L) copy(l));
+        }
+        return rval;
+    }
+
+    @Override
+    public void createOrUpdate(SimpleLayer<? extends SimpleDimension> layer)
+            throws OgcException {
+        Class<?> c = layer.getClass();
+        SimpleLayer<?> copy = copy(layer);
+        ReentrantLock lock = getClassLock(c);
+        lock.lock();
+        try {
+            getLayers(c).put(copy.getIdentifier(), copy);
+            enqueue(c, copy.getIdentifier(), copy);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void createOrUpdate(
+            List<SimpleLayer<? extends SimpleDimension>> layers)
+            throws OgcException {
+        for (SimpleLayer<? extends SimpleDimension> l : layers) {
+            createOrUpdate(l);
+        }
+    }
+
+    @Override
+    public void delete(String id, Class<? extends SimpleLayer<?>> c)
+            throws OgcException {
+        ReentrantLock lock = getClassLock(c);
+        lock.lock();
+        try {
+            getLayers(c).remove(id);
+            enqueue(c, id, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAll(Class<? extends SimpleLayer<?>> c)
+            throws OgcException {
+        ReentrantLock lock = getClassLock(c);
+        lock.lock();
+        try {
+            synchronized (pending) {
+                pending.remove(c);
+            }
+            layers.put(c, new ConcurrentHashMap<String, SimpleLayer<?>>());
+            persistent.deleteAll(c);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedule layer to be persisted, replacing any earlier pending write for
+     * the same layer
+     * 
+     * @param c
+     * @param id
+     * @param layer
+     *            null if layer should be deleted
+     */
+    private void enqueue(Class<?> c, String id, SimpleLayer<?> layer) {
+        synchronized (pending) {
+            Map<String, SimpleLayer<?>> map = pending.get(c);
+            if (map == null) {
+                map = new HashMap<>();
+                pending.put(c, map);
+            }
+            map.put(id, layer);
+        }
+    }
+
+    /**
+     * Write all pending changes to the persistent store. Changes that fail are
+     * retried on the next flush unless they have been replaced by a newer
+     * change.
+     */
+    public void flush() {
+        List<Class<?>> classes;
+        synchronized (pending) {
+            classes = new ArrayList<>(pending.keySet());
+        }
+        for (Class<?> c : classes) {
+            ReentrantLock lock = getClassLock(c);
+            lock.lock();
+            try {
+                Map<String, SimpleLayer<?>> batch;
+                synchronized (pending) {
+                    batch = pending.remove(c);
+                }
+                if (batch != null) {
+                    persist(c, batch);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * must be called with class lock held
+     * 
+     * @param c
+     * @param batch
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void persist(Class<?> c, Map<String, SimpleLayer<?>> batch) {
+        List<SimpleLayer<? extends SimpleDimension>> updates = new ArrayList<>();
+        Map<String, SimpleLayer<?>> failed = new HashMap<>();
+        for (Entry<String, SimpleLayer<?>> e : batch.entrySet()) {
+            if (e.getValue() == null) {
+                try {
+                    persistent.delete(e.getKey(), (Class) c);
+                } catch (Exception ex) {
+                    log.error("Unable to delete layer " + e.getKey(), ex);
+                    failed.put(e.getKey(), null);
+                }
+            } else {
+                updates.add((SimpleLayer) e.getValue());
+            }
+        }
+        if (!updates.isEmpty()) {
+            try {
+                persistent.createOrUpdate(updates);
+            } catch (Exception ex) {
+                log.error("Unable to persist " + updates.size()
+                        + " layers of " + c, ex);
+                for (SimpleLayer<?> l : updates) {
+                    failed.put(l.getIdentifier(), l);
+                }
+            }
+        }
+        if (!failed.isEmpty()) {
+            synchronized (pending) {
+                Map<String, SimpleLayer<?>> map = pending.get(c);
+                if (map == null) {
+                    map = new HashMap<>();
+                    pending.put(c, map);
+                }
+                for (Entry<String, SimpleLayer<?>> e : failed.entrySet()) {
+                    if (!map.containsKey(e.getKey())) {
+                        map.put(e.getKey(), e.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop background flushes and persist any pending changes
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(FLUSH_DELAY * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Create independent copy of layer using the layer copy constructor if
+     * available, otherwise a serialization round trip
+     * 
+     * @param layer
+     * @return
+     * @throws OgcException
+     */
+    private SimpleLayer<?> copy(SimpleLayer<?> layer) throws OgcException {
+        Optional<Constructor<?>> constructor = copyConstructors.computeIfAbsent(
+                layer.getClass(), c -> {
+                    try {
+                        return Optional.of(c.getConstructor(c));
+                    } catch (NoSuchMethodException e) {
+                        log.debug("No copy constructor for " + c
+                                + ", copying by serialization");
+                        return Optional.empty();
+                    }
+                });
+        try {
+            if (constructor.isPresent()) {
+                return (SimpleLayer<?>) constructor.get().newInstance(layer);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            serializer.serialize(layer, out);
+            return (SimpleLayer<?>) serializer.deserialize(
+                    new ByteArrayInputStream(out.toByteArray()));
+        } catch (Exception e) {
+            throw new OgcException(Code.InternalServerError, e);
+        }
+    }
+
+}
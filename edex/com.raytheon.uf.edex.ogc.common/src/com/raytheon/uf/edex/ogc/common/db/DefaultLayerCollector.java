@@ -22,14 +22,25 @@ package com.raytheon.uf.edex.ogc.common.db;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
 import com.raytheon.uf.common.dataplugin.PluginDataObject;
 import com.raytheon.uf.common.status.IUFStatusHandler;
@@ -37,13 +48,16 @@ import com.raytheon.uf.common.status.UFStatus;
 import com.raytheon.uf.edex.database.DataAccessLayerException;
 import com.raytheon.uf.edex.database.dao.CoreDao;
 import com.raytheon.uf.edex.database.dao.DaoConfig;
-import com.raytheon.uf.edex.database.query.DatabaseQuery;
 import com.raytheon.uf.edex.ogc.common.OgcException;
 
 /**
  * Collects layer metadata from data records. Designed for use with records that
  * contain all data for a layer at a specific time and level.
  * 
+ * Layers are published as an immutable snapshot. Changes copy the affected
+ * layers into a new snapshot which replaces the old one, so readers get
+ * shared layers without locking or copying and must not modify them.
+ * 
  * <pre>
  * 
  * SOFTWARE HISTORY
@@ -51,6 +65,13 @@ import com.raytheon.uf.edex.ogc.common.OgcException;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * 2011            bclement     Initial creation
+ * Oct 17, 2026            agent        report purged layers to addon
+ * Oct 17, 2026            agent        rebuild layers from streamed records
+ *                                      without blocking readers
+ * Oct 17, 2026            agent        publish immutable layer snapshots,
+ *                                      readers no longer lock or copy
+ * Oct 17, 2026            agent        increment layer version on change
+ * Oct 17, 2026            agent        don't notify addon of initial load
  * 
  * </pre>
  * 
@@ -66,10 +87,21 @@ public abstract class DefaultLayerCollector<D extends SimpleDimension, L extends
     protected static final IUFStatusHandler log = UFStatus
             .getHandler(DefaultLayerCollector.class);
 
-    protected Map<String, L> layerMap;
+    protected static final int DB_BATCH_SIZE = Integer
+            .getInteger("ogc.collector.db.batch.size", 1000);
 
+    /* current snapshot, unmodifiable and replaced on every change */
+    protected volatile Map<String, L> layerMap;
+
+    /* serializes changes, readers use the snapshot without locking */
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /*
+     * records added while layers are being rebuilt from the database, null if
+     * no rebuild is running. Guarded by lock.
+     */
+    private List<PluginDataObject> addedDuringRebuild;
+
     public DefaultLayerCollector(Class<L> layerClass, Class<R> recordClass,
             ILayerStore store) {
         super(layerClass, recordClass, store);
@@ -81,14 +113,52 @@ public abstract class DefaultLayerCollector<D extends SimpleDimension, L extends
         }
     }
 
-    @SuppressWarnings("unchecked")
     public void addAll(Collection<? extends PluginDataObject> coll) {
         if (layerMap == null) {
             initMap();
         }
         Lock write = lock.writeLock();
         write.lock();
-        ICollectorAddon<D, L, R> addon = getAddon();
+        try {
+            ICollectorAddon<D, L, R> addon = getAddon();
+            Map<String, L> next = new HashMap<String, L>(layerMap);
+            collect(next, newOwnedSet(), coll, addon);
+            layerMap = Collections.unmodifiableMap(next);
+            layersChanged();
+            addon.onFinish();
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.addAll(coll);
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * @return set for tracking layers that are not part of a published
+     *         snapshot
+     */
+    protected Set<L> newOwnedSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<L, Boolean>());
+    }
+
+    /**
+     * Merge records into layers in map. Layers in the map that are not in
+     * owned may be published and are copied before they are modified.
+     * 
+     * @param map
+     *            layers by name
+     * @param owned
+     *            layers that can be modified in place, copied and new layers
+     *            are added
+     * @param coll
+     * @param addon
+     *            notified of each collected layer, may be null
+     */
+    @SuppressWarnings("unchecked")
+    protected void collect(Map<String, L> map, Set<L> owned,
+            Collection<? extends PluginDataObject> coll,
+            ICollectorAddon<D, L, R> addon) {
         for (PluginDataObject pdo : coll) {
             if (recordClass.equals(pdo.getClass())) {
                 R rec = (R) pdo;
@@ -100,19 +170,29 @@ public abstract class DefaultLayerCollector<D extends SimpleDimension, L extends
                 }
                 addToTimes(layer, rec);
                 addToDims(layer, rec);
-                L oldLayer = layerMap.get(name);
+                L oldLayer = map.get(name);
                 if (oldLayer == null) {
                     oldLayer = newLayer();
                     oldLayer.setName(name);
                     initializeLayer(oldLayer, rec);
-                    layerMap.put(name, oldLayer);
+                    map.put(name, oldLayer);
+                    owned.add(oldLayer);
+                } else if (!owned.contains(oldLayer)) {
+                    try {
+                        oldLayer = copy(oldLayer);
+                    } catch (OgcException e) {
+                        log.error("Unable to update layer " + name, e);
+                        continue;
+                    }
+                    map.put(name, oldLayer);
+                    owned.add(oldLayer);
                 }
                 oldLayer.update(layer);
-                addon.onCollect(layer, (R) pdo);
+                if (addon != null) {
+                    addon.onCollect(layer, rec);
+                }
             }
         }
-        addon.onFinish();
-        write.unlock();
     }
 
     protected void addToTimes(L layer, R rec) {
@@ -126,90 +206,198 @@ public abstract class DefaultLayerCollector<D extends SimpleDimension, L extends
 
     protected abstract boolean initializeLayer(L layer, R rec);
 
+    /**
+     * Rebuild layers from the records left in the database. Layers are built
+     * into a new map while the current layers continue to serve requests, the
+     * write lock is only held to swap in the new layers.
+     */
     public void purgeExpired() {
+        Lock write = lock.writeLock();
         try {
-            clearLayersInternal();
-            addFromDb();
-            getAddon().onPurgeExpired(new TreeSet<Date>());
+            write.lock();
+            try {
+                addedDuringRebuild = new ArrayList<PluginDataObject>();
+            } finally {
+                write.unlock();
+            }
+            Map<String, L> rebuilt = new HashMap<String, L>();
+            Set<L> owned = newOwnedSet();
+            scrollFromDb(batch -> collect(rebuilt, owned, batch, null));
+            Map<String, L> before;
+            write.lock();
+            try {
+                /* catch up on records ingested during the rebuild */
+                collect(rebuilt, owned, addedDuringRebuild, null);
+                before = snapshotLayers();
+                layerMap = Collections.unmodifiableMap(rebuilt);
+                layersChanged();
+            } finally {
+                write.unlock();
+            }
+            ICollectorAddon<D, L, R> addon = getAddon();
+            for (Entry<String, L> e : before.entrySet()) {
+                addon.onPurgeLayer(e.getValue(), rebuilt.get(e.getKey()));
+            }
+            addon.onPurgeExpired(new TreeSet<Date>());
         } catch (Exception e) {
             log.error("Problem purging layers", e);
+        } finally {
+            write.lock();
+            addedDuringRebuild = null;
+            write.unlock();
+        }
+    }
+
+    /**
+     * @return current layer snapshot, layers in snapshot are replaced (not
+     *         modified) by changes
+     */
+    protected Map<String, L> snapshotLayers() {
+        Map<String, L> rval = layerMap;
+        if (rval == null) {
+            return Collections.emptyMap();
         }
+        return rval;
     }
 
     protected void clearLayersInternal() throws DataAccessLayerException {
         Lock write = lock.writeLock();
         write.lock();
         if (layerMap != null) {
-            layerMap.clear();
+            layerMap = Collections.emptyMap();
+            layersChanged();
         }
         write.unlock();
     }
 
-    @SuppressWarnings("unchecked")
     protected void addFromDb() throws DataAccessLayerException {
-        DaoConfig conf = DaoConfig.forClass(recordClass);
-        CoreDao dao = new CoreDao(conf);
-        DatabaseQuery q = new DatabaseQuery(recordClass);
-        List<R> recs = (List<R>) dao.queryByCriteria(q);
-        addAll(recs);
+        scrollFromDb(batch -> addAll(batch));
+    }
+
+    /**
+     * Stream all records in the database to consumer in batches of
+     * {@link #DB_BATCH_SIZE} without loading every record at once
+     * 
+     * @param consumer
+     * @throws DataAccessLayerException
+     */
+    @SuppressWarnings("unchecked")
+    protected void scrollFromDb(Consumer<List<R>> consumer)
+            throws DataAccessLayerException {
+        scroll(sess -> sess.createCriteria(recordClass).setReadOnly(true)
+                .setFetchSize(DB_BATCH_SIZE).scroll(ScrollMode.FORWARD_ONLY),
+                row -> (R) row[0], consumer);
+    }
+
+    /**
+     * Stream query results to consumer in batches. The session is cleared
+     * after each batch so results do not accumulate in the session.
+     * 
+     * @param query
+     *            opens scrollable results in session
+     * @param rowMapper
+     *            creates record from result row, null if row should be
+     *            skipped
+     * @param consumer
+     * @throws DataAccessLayerException
+     */
+    protected void scroll(Function<Session, ScrollableResults> query,
+            Function<Object[], R> rowMapper, Consumer<List<R>> consumer)
+            throws DataAccessLayerException {
+        CoreDao dao = new CoreDao(DaoConfig.forClass(recordClass));
+        Session sess = null;
+        ScrollableResults results = null;
+        try {
+            sess = dao.getSessionFactory().openSession();
+            results = query.apply(sess);
+            List<R> batch = new ArrayList<R>(DB_BATCH_SIZE);
+            while (results.next()) {
+                R rec = rowMapper.apply(results.get());
+                if (rec != null) {
+                    batch.add(rec);
+                }
+                if (batch.size() >= DB_BATCH_SIZE) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<R>(DB_BATCH_SIZE);
+                    sess.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+            }
+        } catch (HibernateException e) {
+            throw new DataAccessLayerException(
+                    "Problem loading records for " + recordClass, e);
+        } finally {
+            if (results != null) {
+                results.close();
+            }
+            if (sess != null) {
+                sess.close();
+            }
+        }
     }
 
     public void purgeAll() {
         try {
+            Map<String, L> before = snapshotLayers();
             clearLayersInternal();
-            getAddon().onPurgeAll();
+            ICollectorAddon<D, L, R> addon = getAddon();
+            for (L layer : before.values()) {
+                addon.onPurgeLayer(layer, null);
+            }
+            addon.onPurgeAll();
         } catch (Exception e) {
             log.error("problem purging layers", e);
         }
     }
 
+    /**
+     * @return layers from the current snapshot, shared and must not be
+     *         modified
+     */
     @Override
     public List<L> getLayers() throws OgcException {
-        List<L> rval;
         if (layerMap == null) {
             initMap();
         }
-        Lock read = lock.readLock();
-        read.lock();
-        rval = new ArrayList<L>(layerMap.size());
-        for (String key : layerMap.keySet()) {
-            rval.add(copy(layerMap.get(key)));
-        }
-        read.unlock();
-        return rval;
+        return new ArrayList<L>(layerMap.values());
     }
 
     protected void initMap() {
         Lock write = lock.writeLock();
         write.lock();
-        if (layerMap == null) {
-            layerMap = new ConcurrentHashMap<String, L>();
-            try {
-                addFromDb();
-            } catch (DataAccessLayerException e) {
-                log.error("Problem loading layers from db", e);
-                // if we throw an internal server exception here, it would kill
-                // the ogc request, better to just not add those layers to
-                // response
+        try {
+            if (layerMap == null) {
+                Map<String, L> loaded = new HashMap<String, L>();
+                Set<L> owned = newOwnedSet();
+                try {
+                    // loading existing data is not a change
+                    scrollFromDb(batch -> collect(loaded, owned, batch, null));
+                } catch (DataAccessLayerException e) {
+                    log.error("Problem loading layers from db", e);
+                    // if we throw an internal server exception here, it would
+                    // kill the ogc request, better to just not add those
+                    // layers to response
+                }
+                layerMap = Collections.unmodifiableMap(loaded);
+                layersChanged();
             }
+        } finally {
+            write.unlock();
         }
-        write.unlock();
     }
 
+    /**
+     * @return layer from the current snapshot, shared and must not be
+     *         modified
+     */
     @Override
     public L getLayer(String name) throws OgcException {
         if (layerMap == null) {
             initMap();
         }
-        L rval;
-        Lock read = lock.readLock();
-        read.lock();
-        rval = layerMap.get(name);
-        if (rval != null) {
-            rval = copy(layerMap.get(name));
-        }
-        read.unlock();
-        return rval;
+        return layerMap.get(name);
     }
 
 }
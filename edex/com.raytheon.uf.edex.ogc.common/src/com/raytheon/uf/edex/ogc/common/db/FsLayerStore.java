@@ -13,6 +13,10 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -38,6 +42,8 @@ import com.raytheon.uf.edex.ogc.common.OgcException.Code;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Jun 4, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        close streams, replace layer files
+ *                                      atomically
  * 
  * </pre>
  * 
@@ -46,6 +52,12 @@ import com.raytheon.uf.edex.ogc.common.OgcException.Code;
  */
 public class FsLayerStore extends AbstractFsStore implements ILayerStore {
 
+    /*
+     * layers are written to a temporary file before being moved into place,
+     * encoded layer ids never start with this prefix
+     */
+    private static final String TMP_PREFIX = ".";
+
     private final DynamicSerializationManager serializer = DynamicSerializationManager
             .getManager(SerializationType.Thrift);
 
@@ -104,8 +116,8 @@ public class FsLayerStore extends AbstractFsStore implements ILayerStore {
     @SuppressWarnings("unchecked")
     private <D extends SimpleDimension, L extends SimpleLayer<D>> L deserialize(
             File f, Class<L> c) throws OgcException {
-        try {
-            return (L) serializer.deserialize(new FileInputStream(f));
+        try (InputStream in = new FileInputStream(f)) {
+            return (L) serializer.deserialize(in);
         } catch (Exception e) {
             throw new OgcException(Code.InternalServerError, e);
         }
@@ -218,7 +230,7 @@ public class FsLayerStore extends AbstractFsStore implements ILayerStore {
             File[] listFiles = classDir.listFiles(new FileFilter() {
                 @Override
                 public boolean accept(File f) {
-                    return f.isFile();
+                    return f.isFile() && !f.getName().startsWith(TMP_PREFIX);
                 }
             });
             List<L> rval = new ArrayList<L>(listFiles.length);
@@ -274,16 +286,25 @@ public class FsLayerStore extends AbstractFsStore implements ILayerStore {
     }
 
     /**
-     * Store layer
+     * Store layer. The layer is written to a temporary file in the same
+     * directory which then replaces the layer file so readers never see a
+     * partially written layer.
      * 
      * @param l
      * @param f
      * @throws OgcException
      */
     private void serialize(SimpleLayer<?> l, File f) throws OgcException {
+        File tmp = new File(f.getParentFile(), TMP_PREFIX + f.getName());
         try {
-            serializer.serialize(l, new FileOutputStream(f));
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                serializer.serialize(l, out);
+            }
+            Files.move(tmp.toPath(), f.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
         } catch (Exception e) {
+            tmp.delete();
             throw new OgcException(Code.InternalServerError, e);
         }
     }
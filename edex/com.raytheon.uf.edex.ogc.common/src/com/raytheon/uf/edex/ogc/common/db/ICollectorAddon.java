@@ -24,6 +24,7 @@ import com.raytheon.uf.common.dataplugin.persist.PersistableDataObject;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Jul 17, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        added onPurgeLayer()
  * 
  * </pre>
  * 
@@ -57,4 +58,18 @@ public interface ICollectorAddon<D extends SimpleDimension, L extends SimpleLaye
 	 * @param timesToKeep
 	 */
 	public void onPurgeExpired(Set<Date> timesToKeep);
+
+	/**
+	 * Called for each layer that could have lost data when the collector
+	 * purges, before {@link #onPurgeExpired(Set)} or {@link #onPurgeAll()}.
+	 * Both should be treated as read-only.
+	 * 
+	 * @param before
+	 *            layer before purge
+	 * @param after
+	 *            layer after purge, null if the layer was removed or if any
+	 *            of its data could have been removed
+	 */
+	public default void onPurgeLayer(final L before, final L after) {
+	}
 }
@@ -27,7 +27,8 @@ import com.raytheon.uf.edex.ogc.common.OgcException;
 
 /**
  * Interface for retrieving layer information that may be in storage or cached
- * in memory.
+ * in memory. Returned layers may be shared with other callers and must not be
+ * modified.
  * 
  * <pre>
  * 
@@ -37,6 +38,8 @@ import com.raytheon.uf.edex.ogc.common.OgcException;
  * ------------ ---------- ----------- --------------------------
  * Sep 11, 2012            bclement     Initial creation
  * Nov 19, 2015 5087       bclement     added getLatestTime()
+ * Oct 17, 2026            agent        returned layers are read-only
+ * Oct 17, 2026            agent        added getVersion()
  * 
  * </pre>
  * 
@@ -68,4 +71,10 @@ public interface ILayerCache<D extends SimpleDimension, L extends SimpleLayer<D>
      */
     public Date getLatestTime(String layerName) throws OgcException;
 
+    /**
+     * @return version of layers in cache, changes every time the layers
+     *         returned by the cache change. Should be read before the layers.
+     */
+    public long getVersion();
+
 }
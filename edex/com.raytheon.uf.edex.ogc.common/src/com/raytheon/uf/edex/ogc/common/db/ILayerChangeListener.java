@@ -0,0 +1,73 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common.db;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Interface for components that need to know when the data behind a layer
+ * changes, for example caches of rendered layer data. Listeners are found in
+ * the spring context by {@link LayerChangeNotifier}.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        Added latest reference time event
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public interface ILayerChangeListener {
+
+    /**
+     * Called after data for layer has been added, replaced or removed
+     * 
+     * @param layerName
+     *            name of layer without source key
+     * @param times
+     *            times of data that changed, null if data for any time could
+     *            have changed
+     */
+    public void layerChanged(String layerName, Collection<Date> times);
+
+    /**
+     * Called after data for the most recent reference time (model run) of a
+     * layer has been added. This is not called for the first reference time
+     * seen after startup since it cannot be known to be new.
+     * 
+     * @param layerName
+     *            name of layer without source key
+     * @param refTime
+     *            most recent reference time for layer
+     * @param times
+     *            layer times of the data that was added
+     */
+    public default void latestRunCollected(String layerName, Date refTime,
+            Collection<Date> times) {
+    }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common.db;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.raytheon.uf.common.dataplugin.persist.PersistableDataObject;
+
+/**
+ * Collector addon that tracks which layer times were changed by collection
+ * and purging and sends them to {@link LayerChangeNotifier} when the
+ * collector is finished. A new instance is used for each group of records.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        Track data added for latest run
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class LayerChangeAddon<D extends SimpleDimension, L extends SimpleLayer<D>, R extends PersistableDataObject>
+        implements ICollectorAddon<D, L, R> {
+
+    /* a null value means all times for the layer */
+    private final Map<String, Set<Date>> changes = new HashMap<String, Set<Date>>();
+
+    private final Map<String, Date> latestRefTimes = new HashMap<String, Date>();
+
+    private final Map<String, Set<Date>> latestRunTimes = new HashMap<String, Set<Date>>();
+
+    private final boolean exactTimes;
+
+    public LayerChangeAddon() {
+        this(true);
+    }
+
+    /**
+     * @param exactTimes
+     *            true if the times of collected layers are the times that
+     *            changed, false if any collection could change data for any
+     *            time (eg layers that only hold a time range)
+     */
+    public LayerChangeAddon(boolean exactTimes) {
+        this.exactTimes = exactTimes;
+    }
+
+    @Override
+    public void onCollect(L layer, R record) {
+        if (exactTimes) {
+            addChange(layer.getName(), layer.getTimes());
+        } else {
+            addChange(layer.getName(), null);
+        }
+    }
+
+    @Override
+    public void onPurgeLayer(L before, L after) {
+        if (after == null || !exactTimes) {
+            addChange(before.getName(), null);
+            return;
+        }
+        TreeSet<Date> removed = new TreeSet<Date>(before.getTimes());
+        removed.removeAll(after.getTimes());
+        if (!removed.isEmpty()) {
+            addChange(before.getName(), removed);
+        }
+    }
+
+    /**
+     * Record that data for layer changed
+     * 
+     * @param layerName
+     * @param times
+     *            null if data for any time could have changed
+     */
+    protected void addChange(String layerName, Collection<Date> times) {
+        if (changes.containsKey(layerName)) {
+            Set<Date> existing = changes.get(layerName);
+            if (existing == null) {
+                // already covers all times
+                return;
+            }
+            if (times == null) {
+                changes.put(layerName, null);
+            } else {
+                existing.addAll(times);
+            }
+        } else {
+            changes.put(layerName,
+                    times == null ? null : new TreeSet<Date>(times));
+        }
+    }
+
+    /**
+     * Record that data for the most recent reference time of layer was added
+     * 
+     * @param layerName
+     * @param refTime
+     * @param time
+     *            layer time of added data
+     */
+    protected void addLatestRun(String layerName, Date refTime, Date time) {
+        Date existing = latestRefTimes.get(layerName);
+        if (existing == null || existing.before(refTime)) {
+            latestRefTimes.put(layerName, refTime);
+            latestRunTimes.put(layerName, new TreeSet<Date>());
+        } else if (existing.after(refTime)) {
+            return;
+        }
+        latestRunTimes.get(layerName).add(time);
+    }
+
+    /**
+     * Send recorded changes to listeners
+     */
+    protected void flush() {
+        try {
+            LayerChangeNotifier.notifyListeners(changes);
+            LayerChangeNotifier.notifyLatestRun(latestRefTimes, latestRunTimes);
+        } finally {
+            changes.clear();
+            latestRefTimes.clear();
+            latestRunTimes.clear();
+        }
+    }
+
+    @Override
+    public void onFinish() {
+        flush();
+    }
+
+    @Override
+    public void onPurgeAll() {
+        flush();
+    }
+
+    @Override
+    public void onPurgeExpired(Set<Date> timesToKeep) {
+        flush();
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common.db;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.springframework.context.ApplicationContext;
+
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.edex.core.EDEXUtil;
+
+/**
+ * Sends layer change events to all {@link ILayerChangeListener} beans in the
+ * spring context
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        Added latest reference time event
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class LayerChangeNotifier {
+
+    protected static final IUFStatusHandler log = UFStatus
+            .getHandler(LayerChangeNotifier.class);
+
+    private static volatile ILayerChangeListener[] listeners = null;
+
+    private static final Object listenerMutex = new Object();
+
+    private LayerChangeNotifier() {
+    }
+
+    /**
+     * @return listeners found in spring context
+     */
+    private static ILayerChangeListener[] getListeners() {
+        if (listeners == null) {
+            synchronized (listenerMutex) {
+                if (listeners == null) {
+                    ApplicationContext ctx = EDEXUtil.getSpringContext();
+                    if (ctx == null) {
+                        // context not ready, try again next time
+                        return new ILayerChangeListener[0];
+                    }
+                    String[] beans = ctx
+                            .getBeanNamesForType(ILayerChangeListener.class);
+                    ILayerChangeListener[] found = new ILayerChangeListener[beans.length];
+                    for (int i = 0; i < beans.length; ++i) {
+                        found[i] = (ILayerChangeListener) ctx.getBean(beans[i]);
+                    }
+                    listeners = found;
+                }
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * Notify listeners of changes
+     * 
+     * @param changes
+     *            times of changed data by layer name, a null set of times
+     *            means data for any time could have changed
+     */
+    public static void notifyListeners(Map<String, Set<Date>> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (ILayerChangeListener listener : getListeners()) {
+            for (Entry<String, Set<Date>> e : changes.entrySet()) {
+                try {
+                    listener.layerChanged(e.getKey(), e.getValue());
+                } catch (Exception ex) {
+                    log.error("Problem notifying listener of change to layer "
+                            + e.getKey(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify listeners of data added for the latest reference time of layers
+     * 
+     * @param refTimes
+     *            latest reference time by layer name
+     * @param times
+     *            times of added data by layer name
+     */
+    public static void notifyLatestRun(Map<String, Date> refTimes,
+            Map<String, Set<Date>> times) {
+        if (refTimes.isEmpty()) {
+            return;
+        }
+        for (ILayerChangeListener listener : getListeners()) {
+            for (Entry<String, Date> e : refTimes.entrySet()) {
+                try {
+                    listener.latestRunCollected(e.getKey(), e.getValue(),
+                            times.get(e.getKey()));
+                } catch (Exception ex) {
+                    log.error("Problem notifying listener of new data for layer "
+                            + e.getKey(), ex);
+                }
+            }
+        }
+    }
+
+}
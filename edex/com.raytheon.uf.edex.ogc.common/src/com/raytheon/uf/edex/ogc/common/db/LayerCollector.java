@@ -24,6 +24,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.time.DateUtils;
 
@@ -45,6 +46,9 @@ import com.raytheon.uf.edex.ogc.common.OgcException.Code;
  * ------------ ---------- ----------- --------------------------
  * 2011                    bclement     Initial creation
  * Nov 19, 2015 5087       bclement     added getLatestTime()
+ * Oct 17, 2026            agent        default addon notifies layer change
+ *                                      listeners
+ * Oct 17, 2026            agent        added layer version
  * 
  * </pre>
  * 
@@ -65,27 +69,13 @@ public abstract class LayerCollector<D extends SimpleDimension, L extends Simple
 
     protected final ILayerStore store;
 
+    /* incremented after every change to layers from this collector */
+    private final AtomicLong version = new AtomicLong();
+
     protected CollectorAddonFactory<D, L, R> addonFactory = new CollectorAddonFactory<D, L, R>() {
         @Override
         public ICollectorAddon<D, L, R> create() {
-            return new ICollectorAddon<D, L, R>() {
-                @Override
-                public void onCollect(L layer, R record) {
-                }
-
-                @Override
-                public void onFinish() {
-                }
-
-                @Override
-                public void onPurgeAll() {
-                }
-
-                @Override
-                public void onPurgeExpired(Set<Date> timesToKeep) {
-                }
-
-            };
+            return new LayerChangeAddon<D, L, R>();
         }
     };
 
@@ -155,6 +145,19 @@ public abstract class LayerCollector<D extends SimpleDimension, L extends Simple
         }
     }
 
+    /**
+     * Mark layers from this collector as changed. Must be called after the
+     * changed layers are visible to readers.
+     */
+    protected void layersChanged() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
     /**
      * Take the Calendar back to the first instant of the current hour. This is
      * equivalent to calling roundToHour with cutoff of 59
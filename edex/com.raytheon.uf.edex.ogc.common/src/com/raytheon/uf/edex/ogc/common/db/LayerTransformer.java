@@ -65,6 +65,7 @@ import org.locationtech.jts.geom.Polygon;
  * ------------ ---------- ----------- --------------------------
  *  Jun 13, 2011            bclement     Initial creation
  *  Nov 19, 2015 5087       bclement     reformatted
+ *  Oct 17, 2026            agent        added getVersion()
  * 
  * </pre>
  * 
@@ -369,6 +370,13 @@ public class LayerTransformer<DIMENSION extends SimpleDimension, L extends Simpl
         return lcache.getLayers();
     }
 
+    /**
+     * @return version of layers, see {@link ILayerCache#getVersion()}
+     */
+    public long getVersion() {
+        return lcache.getVersion();
+    }
+
     public List<OgcLayer> getLayersAsOgc(TimeFormat tformat, StyleLookup lookup)
             throws OgcException {
         return transform(getLayers(), tformat, lookup);
@@ -52,6 +52,8 @@ import org.locationtech.jts.geom.Envelope;
  * Sep 11, 2012            bclement     Initial creation
  * Aug 18, 2013  #2097     dhladky      Updates for interfaces etc.
  * Nov 19, 2015 5087       bclement     made fields final
+ * Oct 17, 2026            agent        notify addon of purged layer
+ * Oct 17, 2026            agent        increment layer version on change
  * 
  * </pre>
  * 
@@ -77,6 +79,13 @@ public abstract class SingleLayerCollector<D extends SimpleDimension, L extends
             String layerName, ILayerStore store) {
         super(layerClass, recordClass, store);
         this.layerName = layerName;
+        // layer only holds a time range, any new record can change any time
+        this.addonFactory = new CollectorAddonFactory<D, L, R>() {
+            @Override
+            public ICollectorAddon<D, L, R> create() {
+                return new LayerChangeAddon<D, L, R>(false);
+            }
+        };
     }
 
     @SuppressWarnings("unchecked")
@@ -95,6 +104,7 @@ public abstract class SingleLayerCollector<D extends SimpleDimension, L extends
                     addon.onCollect(layer, (R) pdo);
                 }
             }
+            layersChanged();
             addon.onFinish();
             
         } finally {
@@ -193,7 +203,10 @@ public abstract class SingleLayerCollector<D extends SimpleDimension, L extends
             } catch (OgcException e) {
                 log.error("problem purging expired layer times", e);
             }
-            getAddon().onPurgeExpired(timesToKeep);
+            layersChanged();
+            ICollectorAddon<D, L, R> addon = getAddon();
+            addon.onPurgeLayer(layer, null);
+            addon.onPurgeExpired(timesToKeep);
         } finally {
             write.unlock();
         }
@@ -210,6 +223,10 @@ public abstract class SingleLayerCollector<D extends SimpleDimension, L extends
             } catch (Exception e) {
                 log.error("problem purging layers", e);
             }
+            layersChanged();
+            ICollectorAddon<D, L, R> addon = getAddon();
+            addon.onPurgeLayer(layer, null);
+            addon.onPurgeAll();
         } finally {
             write.unlock();
         }
@@ -41,6 +41,7 @@ import com.raytheon.uf.common.datastorage.records.IDataRecord;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Added gatherData
  * 
  * </pre>
  * 
@@ -123,6 +124,21 @@ public abstract class AbstractDataReprojector<T extends IDataRecord> {
      */
     protected abstract IDataRecord getDataPoints(IDataRecord record, Request req);
 
+    /**
+     * Create a new data record by copying values from record using an index
+     * map
+     * 
+     * @param record
+     * @param index
+     *            index into record data for each value of the result, negative
+     *            for fill
+     * @param sizes
+     *            sizes of result
+     * @return
+     */
+    protected abstract T gatherData(IDataRecord record, int[] index,
+            long[] sizes);
+
     /**
      * Construct a new geotools grid coverage object using data buffer
      * 
@@ -43,6 +43,7 @@ import com.raytheon.uf.common.datastorage.records.IDataRecord;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Added gatherData
  * 
  * </pre>
  * 
@@ -184,4 +185,16 @@ public class ByteDataReprojector extends
 		return new ByteDataRecord("", "", to, 1, new long[] { to.length });
 	}
 
+    @Override
+    protected ByteDataRecord gatherData(IDataRecord record, int[] index,
+            long[] sizes) {
+        byte[] from = ((ByteDataRecord) record).getByteData();
+        byte[] to = new byte[index.length];
+        for (int i = 0; i < to.length; ++i) {
+            int j = index[i];
+            to[i] = j < 0 ? fill : from[j];
+        }
+        return new ByteDataRecord("", "", to, sizes.length, sizes);
+    }
+
 }
@@ -48,6 +48,7 @@ import org.opengis.referencing.operation.TransformException;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.raytheon.uf.common.dataplugin.PluginException;
 import com.raytheon.uf.common.datastorage.IDataStore;
 import com.raytheon.uf.common.datastorage.Request;
@@ -81,6 +82,12 @@ import com.raytheon.uf.edex.ogc.common.reprojection.AbstractDataReprojector.Requ
  * Aug 30, 2016  5867     randerso  Updated for GeoTools 15.1
  * Mar 06, 2017  6165     nabowle   Update cache for Camel 2.18.2
  * Mar  2, 2021  8326     tgurney   Fix imports for Camel 3 + code cleanup
+ * Oct 17, 2026           agent     Reproject only the requested window for
+ *                                  small slab requests
+ * Oct 17, 2026           agent     Reproject through cached index maps
+ * Oct 17, 2026           agent     Keep reprojected grids off heap in a cache
+ *                                  bounded by size in bytes
+ * Oct 17, 2026           agent     Added getNativePoints
  *
  * </pre>
  *
@@ -88,8 +95,18 @@ import com.raytheon.uf.edex.ogc.common.reprojection.AbstractDataReprojector.Requ
  */
 public class DataReprojector {
 
-    private static final int CACHE_SIZE = Integer
-            .getInteger("ogc.reprojector.cache.size", 512);
+    private static final long CACHE_SIZE_MB = Long
+            .getLong("ogc.reprojector.cache.size.mb", 512);
+
+    private static final boolean WINDOWED = Boolean.parseBoolean(
+            System.getProperty("ogc.reprojector.windowed", "true"));
+
+    /*
+     * slab requests larger than this percent of the grid reproject the whole
+     * grid so that it can be cached for other requests
+     */
+    private static final int WINDOW_MAX_PERCENT = Integer
+            .getInteger("ogc.reprojector.window.max.percent", 25);
 
     protected IDataStore dataStore;
 
@@ -104,8 +121,14 @@ public class DataReprojector {
 
     protected static final KeyLocker<String> locker = new KeyLocker<>();
 
-    private static final Cache<String, IDataRecord> REFERENCE_CACHE = Caffeine
-            .newBuilder().maximumSize(CACHE_SIZE).softValues().build();
+    /*
+     * Grids are held in native memory so the cache does not add to heap
+     * pressure, the JVM max direct memory size must allow for the cache size
+     */
+    private static final Cache<String, OffHeapGrid> REFERENCE_CACHE = Caffeine
+            .newBuilder().maximumWeight(CACHE_SIZE_MB * 1024 * 1024)
+            .weigher((String key, OffHeapGrid grid) -> grid.getSizeInBytes())
+            .recordStats().build();
 
     public DataReprojector(IDataStore dataStore) {
         this.dataStore = dataStore;
@@ -160,6 +183,27 @@ public class DataReprojector {
         }
     }
 
+    /**
+     * Read cells from the native dataset in a single datastore request
+     *
+     * @param group
+     *            name of the datastore group that contains requested dataset
+     * @param points
+     *            cells in the native grid
+     * @return 1D record with value for each point
+     * @throws ReprojectionException
+     */
+    public IDataRecord getNativePoints(String group, Point[] points)
+            throws ReprojectionException {
+        try {
+            return getDataRecord(group, dataSet,
+                    Request.buildPointRequest(points));
+        } catch (FileNotFoundException | StorageException e) {
+            throw new ReprojectionException(
+                    "Problem retrieving data points from group " + group, e);
+        }
+    }
+
     /**
      * @param group
      *            name of the datastore group that contains requested dataset
@@ -185,11 +229,18 @@ public class DataReprojector {
                     geom.getCoordinateReferenceSystem())) {
                 dataRecord = getDataRecord(group, dataSet, req);
             } else {
-                IDataRecord fullRecord = REFERENCE_CACHE.getIfPresent(cacheKey);
-                if (fullRecord == null) {
-                    fullRecord = reprojectLocked(group, cacheKey, geom, crs);
+                OffHeapGrid cached = REFERENCE_CACHE.getIfPresent(cacheKey);
+                if (cached != null) {
+                    dataRecord = cached.getData(req);
+                } else {
+                    if (useWindow(geom, req)) {
+                        dataRecord = reprojectWindow(group, geom, crs, req);
+                    }
+                    if (dataRecord == null) {
+                        dataRecord = reprojectLocked(group, cacheKey, geom,
+                                crs, req);
+                    }
                 }
-                dataRecord = getDataPerReq(fullRecord, req);
             }
         } catch (StorageException | FileNotFoundException e) {
             throw new ReprojectionException(
@@ -207,27 +258,29 @@ public class DataReprojector {
      *            spatial bounds of requested dataset
      * @param crs
      *            desired crs of returned data
+     * @param req
+     *            request for reprojected data
      * @return
      * @throws Exception
      */
     protected IDataRecord reprojectLocked(String group, String cacheKey,
-            GridGeometry2D geom, CoordinateReferenceSystem crs)
+            GridGeometry2D geom, CoordinateReferenceSystem crs, Request req)
             throws ReprojectionException {
         KeyLock<String> lock = null;
-        IDataRecord dataRecord;
         try {
             // get reproject lock
             lock = locker.getLock(cacheKey);
             lock.lock();
-            dataRecord = REFERENCE_CACHE.getIfPresent(cacheKey);
+            OffHeapGrid cached = REFERENCE_CACHE.getIfPresent(cacheKey);
 
             // recheck that dataset still doesn't exist
-            if (dataRecord == null) {
-                // still not there, reproject
-                dataRecord = reproject(geom, group, crs);
-                REFERENCE_CACHE.put(cacheKey, dataRecord);
+            if (cached != null) {
+                return cached.getData(req);
             }
-            return dataRecord;
+            // still not there, reproject
+            IDataRecord dataRecord = reproject(geom, group, crs);
+            cache(cacheKey, dataRecord);
+            return getDataPerReq(dataRecord, req);
         } finally {
             if (lock != null) {
                 lock.unlock();
@@ -235,6 +288,55 @@ public class DataReprojector {
         }
     }
 
+    /**
+     * Copy reprojected record into the off heap cache. Records that can't be
+     * stored off heap are not cached.
+     *
+     * @param cacheKey
+     * @param dataRecord
+     */
+    protected void cache(String cacheKey, IDataRecord dataRecord) {
+        try {
+            OffHeapGrid grid = OffHeapGrid.copyOf(dataRecord);
+            if (grid != null) {
+                REFERENCE_CACHE.put(cacheKey, grid);
+            }
+        } catch (UnknownDataRecordType e) {
+            log.debug("Unable to cache reprojected record " + cacheKey, e);
+        } catch (OutOfMemoryError e) {
+            /* direct memory limit is lower than the cache size */
+            log.warn("Unable to allocate native memory for reprojected record "
+                    + cacheKey + ", " + getCacheSummary(), e);
+        }
+    }
+
+    /**
+     * @return statistics for the cache of reprojected grids
+     */
+    public static CacheStats getCacheStats() {
+        return REFERENCE_CACHE.stats();
+    }
+
+    /**
+     * @return number of bytes of native memory used by cached grids
+     */
+    public static long getCacheSizeInBytes() {
+        return REFERENCE_CACHE.policy().eviction()
+                .map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * @return size, hit rate and eviction count of reprojected grid cache
+     */
+    public static String getCacheSummary() {
+        CacheStats stats = REFERENCE_CACHE.stats();
+        return String.format(
+                "reprojection cache: %d grids, %d MB, hit rate %.2f, %d evictions",
+                REFERENCE_CACHE.estimatedSize(),
+                getCacheSizeInBytes() / (1024 * 1024), stats.hitRate(),
+                stats.evictionCount());
+    }
+
     /**
      * @param group
      * @param dataset
@@ -394,32 +496,21 @@ public class DataReprojector {
             CoordinateReferenceSystem targetCRS) throws ReprojectionException {
         try {
             IDataRecord original = getDataRecord(group, dataSet, Request.ALL);
-            ReferencedEnvelope env = new ReferencedEnvelope(geom.getEnvelope());
             AbstractDataReprojector<? extends IDataRecord> typeProjector = getTypeProjector(
                     original);
-            GridCoverage2D cov = typeProjector.getGridCoverage(original, env);
-            GridCoverage2D reprojected = DataReprojectorMapUtil
-                    .lenientReprojectCoverage(cov, targetCRS);
             IDataRecord reprojectedRecord;
-
-            if (typeProjector instanceof FloatDataReprojector) {
-                /*
-                 * TODO So far, the problem that this fixes has only appeared
-                 * with float data. If it happens with other data we can change
-                 * this.
-                 */
-                GridCoverage2D maskCov = typeProjector.getMaskCoverage(original,
-                        env);
-                Interpolation interp = Interpolation
-                        .getInstance(Interpolation.INTERP_NEAREST);
-                GridCoverage2D reprojectedMask = (GridCoverage2D) DataReprojectorMapUtil.LENIENT_OPERATIONS
-                        .resample(maskCov, targetCRS, null, interp);
-                reprojectedRecord = typeProjector.extractData(reprojected,
-                        reprojectedMask);
-            } else {
-                reprojectedRecord = typeProjector.extractData(reprojected);
+            try {
+                ReprojectionIndex index = ReprojectionIndex.get(geom,
+                        targetCRS);
+                reprojectedRecord = typeProjector.gatherData(original,
+                        index.getIndex(), new long[] { index.getWidth(),
+                                index.getHeight() });
+            } catch (FactoryException | TransformException e) {
+                log.debug("Unable to map grid for group " + group
+                        + ", resampling coverage", e);
+                reprojectedRecord = resample(typeProjector, original, geom,
+                        targetCRS);
             }
-
             reprojectedRecord.setGroup(group);
             reprojectedRecord.setName(buildDatasetName(targetCRS));
             return reprojectedRecord;
@@ -430,6 +521,137 @@ public class DataReprojector {
         }
     }
 
+    /**
+     * @param geom
+     *            native geometry of dataset
+     * @param req
+     *            request for reprojected data
+     * @return true if request should be fulfilled by reprojecting only the
+     *         requested window
+     */
+    protected boolean useWindow(GridGeometry2D geom, Request req) {
+        if (!WINDOWED || req.getType() != Request.Type.SLAB) {
+            return false;
+        }
+        GridEnvelope2D range = geom.getGridRange2D();
+        int[] min = req.getMinIndexForSlab();
+        int[] max = req.getMaxIndexForSlab();
+        long window = (long) (max[0] - min[0]) * (max[1] - min[1]);
+        long total = (long) range.width * range.height;
+        return window * 100 <= total * WINDOW_MAX_PERCENT;
+    }
+
+    /**
+     * Reproject the requested slab of the reprojected grid without
+     * reprojecting the rest of the grid. Only the native cells that are
+     * needed are read from the datastore.
+     *
+     * @param group
+     *            name of the datastore group that contains requested dataset
+     * @param geom
+     *            native geometry of dataset
+     * @param crs
+     *            desired crs of returned data
+     * @param req
+     *            slab request in reprojected grid
+     * @return null if the window could not be mapped to the native grid
+     * @throws ReprojectionException
+     * @throws FileNotFoundException
+     * @throws StorageException
+     */
+    protected IDataRecord reprojectWindow(String group, GridGeometry2D geom,
+            CoordinateReferenceSystem crs, Request req)
+            throws ReprojectionException, FileNotFoundException,
+            StorageException {
+        int[] min = req.getMinIndexForSlab();
+        int[] max = req.getMaxIndexForSlab();
+        int width = max[0] - min[0];
+        int height = max[1] - min[1];
+        GridEnvelope2D range = geom.getGridRange2D();
+        int nx = range.width;
+        int ny = range.height;
+        int[] index;
+        try {
+            index = ReprojectionIndex.get(geom, crs).getWindow(min[0], min[1],
+                    width, height);
+        } catch (FactoryException | TransformException e) {
+            log.debug("Unable to map window to native grid for group "
+                    + group + ", reprojecting entire grid", e);
+            return null;
+        }
+        // find native slab that covers window
+        int minX = nx;
+        int minY = ny;
+        int maxX = 0;
+        int maxY = 0;
+        for (int i : index) {
+            if (i >= 0) {
+                int x = i % nx;
+                int y = i / nx;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x + 1);
+                maxY = Math.max(maxY, y + 1);
+            }
+        }
+        if (minX >= maxX) {
+            // window is outside native grid, read a single cell for the type
+            minX = minY = 0;
+            maxX = maxY = 1;
+        }
+        IDataRecord slab = getDataRecord(group, dataSet, Request.buildSlab(
+                new int[] { minX, minY }, new int[] { maxX, maxY }));
+        int slabWidth = maxX - minX;
+        for (int k = 0; k < index.length; ++k) {
+            int i = index[k];
+            if (i >= 0) {
+                index[k] = (i / nx - minY) * slabWidth + (i % nx - minX);
+            }
+        }
+        try {
+            return getTypeProjector(slab).gatherData(slab, index,
+                    new long[] { width, height });
+        } catch (UnknownDataRecordType e) {
+            throw new ReprojectionException(
+                    "Problem finding type projector for " + slab, e);
+        }
+    }
+
+    /**
+     * Reproject record by resampling it as a GeoTools coverage
+     *
+     * @param typeProjector
+     * @param original
+     *            full native record
+     * @param geom
+     *            native geometry
+     * @param targetCRS
+     * @return
+     */
+    protected IDataRecord resample(
+            AbstractDataReprojector<? extends IDataRecord> typeProjector,
+            IDataRecord original, GridGeometry2D geom,
+            CoordinateReferenceSystem targetCRS) {
+        ReferencedEnvelope env = new ReferencedEnvelope(geom.getEnvelope());
+        GridCoverage2D cov = typeProjector.getGridCoverage(original, env);
+        GridCoverage2D reprojected = DataReprojectorMapUtil
+                .lenientReprojectCoverage(cov, targetCRS);
+        if (typeProjector instanceof FloatDataReprojector) {
+            /*
+             * TODO So far, the problem that this fixes has only appeared with
+             * float data. If it happens with other data we can change this.
+             */
+            GridCoverage2D maskCov = typeProjector.getMaskCoverage(original,
+                    env);
+            Interpolation interp = Interpolation
+                    .getInstance(Interpolation.INTERP_NEAREST);
+            GridCoverage2D reprojectedMask = (GridCoverage2D) DataReprojectorMapUtil.LENIENT_OPERATIONS
+                    .resample(maskCov, targetCRS, null, interp);
+            return typeProjector.extractData(reprojected, reprojectedMask);
+        }
+        return typeProjector.extractData(reprojected);
+    }
+
     /**
      * Get the native grid geometry for the given spatial object.
      *
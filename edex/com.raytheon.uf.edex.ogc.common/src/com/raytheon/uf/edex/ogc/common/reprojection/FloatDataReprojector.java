@@ -43,6 +43,7 @@ import com.raytheon.uf.common.datastorage.records.IDataRecord;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Added gatherData
  * 
  * </pre>
  * 
@@ -193,4 +194,16 @@ public class FloatDataReprojector extends
 		return new FloatDataRecord("", "", to, 1, new long[] { to.length });
 	}
 
+    @Override
+    protected FloatDataRecord gatherData(IDataRecord record, int[] index,
+            long[] sizes) {
+        float[] from = ((FloatDataRecord) record).getFloatData();
+        float[] to = new float[index.length];
+        for (int i = 0; i < to.length; ++i) {
+            int j = index[i];
+            to[i] = j < 0 ? fill : from[j];
+        }
+        return new FloatDataRecord("", "", to, sizes.length, sizes);
+    }
+
 }
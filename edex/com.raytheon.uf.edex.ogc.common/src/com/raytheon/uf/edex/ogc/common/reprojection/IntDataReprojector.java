@@ -44,6 +44,7 @@ import com.raytheon.uf.common.datastorage.records.IntegerDataRecord;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Added gatherData
  * 
  * </pre>
  * 
@@ -194,4 +195,16 @@ public class IntDataReprojector extends
 		return new IntegerDataRecord("", "", to, 1, new long[] { to.length });
 	}
 
+    @Override
+    protected IntegerDataRecord gatherData(IDataRecord record, int[] index,
+            long[] sizes) {
+        int[] from = ((IntegerDataRecord) record).getIntData();
+        int[] to = new int[index.length];
+        for (int i = 0; i < to.length; ++i) {
+            int j = index[i];
+            to[i] = j < 0 ? fill : from[j];
+        }
+        return new IntegerDataRecord("", "", to, sizes.length, sizes);
+    }
+
 }
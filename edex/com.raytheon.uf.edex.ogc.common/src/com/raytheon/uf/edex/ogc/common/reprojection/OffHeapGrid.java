@@ -0,0 +1,325 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common.reprojection;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import com.raytheon.uf.common.datastorage.Request;
+import com.raytheon.uf.common.datastorage.records.ByteDataRecord;
+import com.raytheon.uf.common.datastorage.records.FloatDataRecord;
+import com.raytheon.uf.common.datastorage.records.IDataRecord;
+import com.raytheon.uf.common.datastorage.records.IntegerDataRecord;
+import com.raytheon.uf.common.datastorage.records.ShortDataRecord;
+
+/**
+ * Copy of a 2D data record held in a direct buffer outside of the java heap.
+ * The buffer is written once when the grid is created and is read-only after
+ * that, requests are answered by copying the requested values into a new data
+ * record. The native memory is released when the grid is garbage collected, so
+ * readers that are still using an evicted grid are not affected.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class OffHeapGrid {
+
+    public static enum Type {
+        BYTE(Byte.BYTES), SHORT(Short.BYTES), INT(Integer.BYTES), FLOAT(
+                Float.BYTES);
+
+        private final int bytes;
+
+        private Type(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private final Type type;
+
+    private final String group;
+
+    private final String name;
+
+    private final long[] sizes;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * @param type
+     * @param group
+     * @param name
+     * @param sizes
+     * @param buffer
+     *            populated direct buffer
+     */
+    private OffHeapGrid(Type type, String group, String name, long[] sizes,
+            ByteBuffer buffer) {
+        this.type = type;
+        this.group = group;
+        this.name = name;
+        this.sizes = sizes;
+        this.buffer = buffer.asReadOnlyBuffer().order(buffer.order());
+    }
+
+    /**
+     * Copy data record into native memory
+     *
+     * @param record
+     *            2D byte, short, integer or float record
+     * @return null if record is too large for a single buffer
+     * @throws UnknownDataRecordType
+     *             if the record is not a supported type
+     */
+    public static OffHeapGrid copyOf(IDataRecord record)
+            throws UnknownDataRecordType {
+        Type type = getType(record);
+        long[] sizes = record.getSizes();
+        long count = sizes[0] * sizes[1];
+        long bytes = count * type.bytes;
+        if (bytes > Integer.MAX_VALUE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes)
+                .order(ByteOrder.nativeOrder());
+        switch (type) {
+        case BYTE:
+            buffer.put(((ByteDataRecord) record).getByteData(), 0,
+                    (int) count);
+            break;
+        case SHORT:
+            buffer.asShortBuffer().put(
+                    ((ShortDataRecord) record).getShortData(), 0, (int) count);
+            break;
+        case INT:
+            buffer.asIntBuffer().put(
+                    ((IntegerDataRecord) record).getIntData(), 0, (int) count);
+            break;
+        case FLOAT:
+        default:
+            buffer.asFloatBuffer().put(
+                    ((FloatDataRecord) record).getFloatData(), 0, (int) count);
+            break;
+        }
+        buffer.clear();
+        return new OffHeapGrid(type, record.getGroup(), record.getName(),
+                sizes.clone(), buffer);
+    }
+
+    /**
+     * @param record
+     * @return
+     * @throws UnknownDataRecordType
+     */
+    private static Type getType(IDataRecord record)
+            throws UnknownDataRecordType {
+        if (record.getSizes() == null || record.getSizes().length != 2) {
+            throw new UnknownDataRecordType(
+                    "Only 2D records can be stored off heap");
+        }
+        if (record instanceof ByteDataRecord) {
+            return Type.BYTE;
+        } else if (record instanceof ShortDataRecord) {
+            return Type.SHORT;
+        } else if (record instanceof IntegerDataRecord) {
+            return Type.INT;
+        } else if (record instanceof FloatDataRecord) {
+            return Type.FLOAT;
+        }
+        throw new UnknownDataRecordType(
+                "Unsupported data record type: " + record.getClass());
+    }
+
+    /**
+     * Copy requested values into a new data record
+     *
+     * @param req
+     *            all, slab or point request
+     * @return
+     * @throws ReprojectionException
+     */
+    public IDataRecord getData(Request req) throws ReprojectionException {
+        IDataRecord rval;
+        switch (req.getType()) {
+        case ALL:
+            rval = getSlab(new int[] { 0, 0 },
+                    new int[] { (int) sizes[0], (int) sizes[1] });
+            rval.setGroup(group);
+            rval.setName(name);
+            break;
+        case POINT:
+            rval = getPoints(req.getPoints());
+            break;
+        case SLAB:
+            rval = getSlab(req.getMinIndexForSlab(), req.getMaxIndexForSlab());
+            break;
+        case XLINE:
+        case YLINE:
+        default:
+            throw new ReprojectionException(
+                    "Data reprojector " + req.getType() + " not implemented");
+        }
+        return rval;
+    }
+
+    /**
+     * @param min
+     *            inclusive minimum index
+     * @param max
+     *            exclusive maximum index
+     * @return
+     */
+    private IDataRecord getSlab(int[] min, int[] max) {
+        int fromWidth = (int) sizes[0];
+        int toWidth = max[0] - min[0];
+        int toHeight = max[1] - min[1];
+        int count = toWidth * toHeight;
+        long[] toSizes = { toWidth, toHeight };
+        /* duplicate so that position is not shared between threads */
+        ByteBuffer view = getView();
+        switch (type) {
+        case BYTE: {
+            byte[] to = new byte[count];
+            for (int y = 0; y < toHeight; ++y) {
+                view.position((min[1] + y) * fromWidth + min[0]);
+                view.get(to, y * toWidth, toWidth);
+            }
+            return new ByteDataRecord("", "", to, 2, toSizes);
+        }
+        case SHORT: {
+            ShortBuffer from = view.asShortBuffer();
+            short[] to = new short[count];
+            for (int y = 0; y < toHeight; ++y) {
+                from.position((min[1] + y) * fromWidth + min[0]);
+                from.get(to, y * toWidth, toWidth);
+            }
+            return new ShortDataRecord("", "", to, 2, toSizes);
+        }
+        case INT: {
+            IntBuffer from = view.asIntBuffer();
+            int[] to = new int[count];
+            for (int y = 0; y < toHeight; ++y) {
+                from.position((min[1] + y) * fromWidth + min[0]);
+                from.get(to, y * toWidth, toWidth);
+            }
+            return new IntegerDataRecord("", "", to, 2, toSizes);
+        }
+        case FLOAT:
+        default: {
+            FloatBuffer from = view.asFloatBuffer();
+            float[] to = new float[count];
+            for (int y = 0; y < toHeight; ++y) {
+                from.position((min[1] + y) * fromWidth + min[0]);
+                from.get(to, y * toWidth, toWidth);
+            }
+            return new FloatDataRecord("", "", to, 2, toSizes);
+        }
+        }
+    }
+
+    /**
+     * @param points
+     *            grid points
+     * @return 1D record with value for each point
+     */
+    private IDataRecord getPoints(Point[] points) {
+        int fromWidth = (int) sizes[0];
+        long[] toSizes = { points.length };
+        ByteBuffer view = getView();
+        switch (type) {
+        case BYTE: {
+            byte[] to = new byte[points.length];
+            for (int i = 0; i < to.length; ++i) {
+                to[i] = view.get(points[i].y * fromWidth + points[i].x);
+            }
+            return new ByteDataRecord("", "", to, 1, toSizes);
+        }
+        case SHORT: {
+            short[] to = new short[points.length];
+            for (int i = 0; i < to.length; ++i) {
+                to[i] = view.getShort(
+                        (points[i].y * fromWidth + points[i].x) * Short.BYTES);
+            }
+            return new ShortDataRecord("", "", to, 1, toSizes);
+        }
+        case INT: {
+            int[] to = new int[points.length];
+            for (int i = 0; i < to.length; ++i) {
+                to[i] = view.getInt((points[i].y * fromWidth + points[i].x)
+                        * Integer.BYTES);
+            }
+            return new IntegerDataRecord("", "", to, 1, toSizes);
+        }
+        case FLOAT:
+        default: {
+            float[] to = new float[points.length];
+            for (int i = 0; i < to.length; ++i) {
+                to[i] = view.getFloat((points[i].y * fromWidth + points[i].x)
+                        * Float.BYTES);
+            }
+            return new FloatDataRecord("", "", to, 1, toSizes);
+        }
+        }
+    }
+
+    /**
+     * @return new read-only view of the data with its own position, in native
+     *         byte order
+     */
+    public ByteBuffer getView() {
+        return buffer.duplicate().order(buffer.order());
+    }
+
+    /**
+     * @return primitive type of data
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return sizes of data in x and y
+     */
+    public long[] getSizes() {
+        return sizes.clone();
+    }
+
+    /**
+     * @return number of bytes of native memory used by the data
+     */
+    public int getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+}
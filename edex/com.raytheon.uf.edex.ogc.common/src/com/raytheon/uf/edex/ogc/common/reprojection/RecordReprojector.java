@@ -19,11 +19,18 @@
  **/
 package com.raytheon.uf.edex.ogc.common.reprojection;
 
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.GridEnvelope2D;
 import org.geotools.coverage.grid.GridGeometry2D;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
 
 import com.raytheon.uf.common.dataplugin.PluginDataObject;
 import com.raytheon.uf.common.datastorage.IDataStore;
@@ -54,6 +61,7 @@ import org.locationtech.jts.geom.Envelope;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Feb 26, 2013 1638       mschenke    Code moved from PluginDao to clean up dependencies
+ * Oct 17, 2026            agent        Sample points from native grid
  * 
  * </pre>
  * 
@@ -105,6 +113,30 @@ public class RecordReprojector {
      */
     public double getDatastoreValue(CoordinateReferenceSystem crs, Coordinate coord,
             double defaultReturn) throws InterrogationException {
+        return getDatastoreValues(crs, new Coordinate[] { coord },
+                defaultReturn, false)[0];
+    }
+
+    /**
+     * Get values stored in datastore for spatial coordinates. Coordinates are
+     * transformed into the native grid and only the cells needed are read in a
+     * single datastore request, the grid is not reprojected.
+     * 
+     * @param crs
+     *            crs of coordinates
+     * @param coords
+     * @param defaultReturn
+     *            returned for coordinates outside of the grid
+     * @param bilinear
+     *            if true, values are interpolated from the four nearest cells
+     *            instead of taken from the cell that contains the coordinate.
+     *            Cell values are not checked for fill.
+     * @return value for each coordinate
+     * @throws InterrogationException
+     */
+    public double[] getDatastoreValues(CoordinateReferenceSystem crs,
+            Coordinate[] coords, double defaultReturn, boolean bilinear)
+            throws InterrogationException {
         GridGeometry2D geom;
         try {
             geom = getGridGeometry2D();
@@ -112,23 +144,84 @@ public class RecordReprojector {
             throw new InterrogationException(
                     "Problem getting grid geometry for record: " + record, e);
         }
-        // TODO a cache would probably be good here
-        double rval = defaultReturn;
+        double[] rval = new double[coords.length];
+        Arrays.fill(rval, defaultReturn);
         try {
-            DataReprojector reprojector = getDataReprojector();
-            IDataRecord data = reprojector.getProjectedPoints(
-                    record.getDataURI(), geom, crs, new Coordinate[] { coord });
-            Double res = extractSingle(data);
-            if (res != null) {
-                rval = res;
+            double[] gridCoords = ReprojectionIndex.toNativeGrid(geom, crs,
+                    coords);
+            GridEnvelope2D range = geom.getGridRange2D();
+            /* cells to read, shared by coordinates that fall in the same cell */
+            Map<Point, Integer> cells = new LinkedHashMap<>();
+            int[][] cellRefs = new int[coords.length][];
+            double[][] weights = new double[coords.length][];
+            for (int i = 0; i < coords.length; ++i) {
+                double px = gridCoords[i * 2];
+                double py = gridCoords[i * 2 + 1];
+                // NaN fails both comparisons
+                if (!(px >= 0 && px < range.width && py >= 0
+                        && py < range.height)) {
+                    continue;
+                }
+                if (bilinear) {
+                    /* interpolate between cell centers */
+                    double cx = px - 0.5;
+                    double cy = py - 0.5;
+                    int x = (int) Math.floor(cx);
+                    int y = (int) Math.floor(cy);
+                    double fx = cx - x;
+                    double fy = cy - y;
+                    int x0 = Math.max(x, 0);
+                    int y0 = Math.max(y, 0);
+                    int x1 = Math.min(x + 1, range.width - 1);
+                    int y1 = Math.min(y + 1, range.height - 1);
+                    cellRefs[i] = new int[] { getCellRef(cells, x0, y0),
+                            getCellRef(cells, x1, y0),
+                            getCellRef(cells, x0, y1),
+                            getCellRef(cells, x1, y1) };
+                    weights[i] = new double[] { (1 - fx) * (1 - fy),
+                            fx * (1 - fy), (1 - fx) * fy, fx * fy };
+                } else {
+                    cellRefs[i] = new int[] {
+                            getCellRef(cells, (int) px, (int) py) };
+                    weights[i] = new double[] { 1 };
+                }
+            }
+            if (cells.isEmpty()) {
+                return rval;
             }
-        } catch (ReprojectionException | UnknownDataRecordType e) {
+            IDataRecord data = getDataReprojector().getNativePoints(
+                    record.getDataURI(),
+                    cells.keySet().toArray(new Point[cells.size()]));
+            double[] values = extractAll(data);
+            for (int i = 0; i < coords.length; ++i) {
+                if (cellRefs[i] == null) {
+                    continue;
+                }
+                double value = 0;
+                for (int j = 0; j < cellRefs[i].length; ++j) {
+                    value += weights[i][j] * values[cellRefs[i][j]];
+                }
+                rval[i] = value;
+            }
+        } catch (FactoryException | TransformException | ReprojectionException
+                | UnknownDataRecordType e) {
             throw new InterrogationException(
-                    "Problem reprojecting data for record" + record, e);
+                    "Problem sampling data for record " + record, e);
         }
         return rval;
     }
 
+    /**
+     * @param cells
+     *            cells to read mapped to position in request
+     * @param x
+     * @param y
+     * @return position of cell in request
+     */
+    private static int getCellRef(Map<Point, Integer> cells, int x, int y) {
+        return cells.computeIfAbsent(new Point(x, y), p -> cells.size());
+    }
+
     /**
      * @param record
      * @param crs
@@ -219,25 +312,50 @@ public class RecordReprojector {
      */
     public static Double extractSingle(IDataRecord record)
             throws UnknownDataRecordType {
-        Double rval = null;
         if (record == null) {
-            return rval;
+            return null;
         }
+        return extractAll(record)[0];
+    }
+
+    /**
+     * @param record
+     * @return data array for record as doubles
+     * @throws UnknownDataRecordType
+     */
+    public static double[] extractAll(IDataRecord record)
+            throws UnknownDataRecordType {
+        double[] rval;
         if (record instanceof ByteDataRecord) {
             byte[] data = ((ByteDataRecord) record).getByteData();
-            rval = (double) data[0];
+            rval = new double[data.length];
+            for (int i = 0; i < data.length; ++i) {
+                rval[i] = data[i];
+            }
         } else if (record instanceof FloatDataRecord) {
             float[] data = ((FloatDataRecord) record).getFloatData();
-            rval = (double) data[0];
+            rval = new double[data.length];
+            for (int i = 0; i < data.length; ++i) {
+                rval[i] = data[i];
+            }
         } else if (record instanceof IntegerDataRecord) {
             int[] data = ((IntegerDataRecord) record).getIntData();
-            rval = (double) data[0];
+            rval = new double[data.length];
+            for (int i = 0; i < data.length; ++i) {
+                rval[i] = data[i];
+            }
         } else if (record instanceof ShortDataRecord) {
             short[] data = ((ShortDataRecord) record).getShortData();
-            rval = (double) data[0];
+            rval = new double[data.length];
+            for (int i = 0; i < data.length; ++i) {
+                rval[i] = data[i];
+            }
         } else if (record instanceof LongDataRecord) {
             long[] data = ((LongDataRecord) record).getLongData();
-            rval = (double) data[0];
+            rval = new double[data.length];
+            for (int i = 0; i < data.length; ++i) {
+                rval[i] = data[i];
+            }
         } else {
             throw new UnknownDataRecordType(
                     "Cannot extract from data record type: "
@@ -0,0 +1,336 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common.reprojection;
+
+import java.util.Objects;
+
+import org.geotools.coverage.grid.GridEnvelope2D;
+import org.geotools.coverage.grid.GridGeometry2D;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
+import org.locationtech.jts.geom.Coordinate;
+import org.opengis.metadata.spatial.PixelOrientation;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raytheon.uf.common.util.concurrent.KeyLock;
+import com.raytheon.uf.common.util.concurrent.KeyLocker;
+
+/**
+ * Nearest neighbor mapping from cells of a target grid to cells of a native
+ * grid. The center of each target cell is transformed into native grid space
+ * and the native cell that contains it is used, the same as a nearest
+ * neighbor resample of the whole grid.
+ *
+ * Full grid mappings only depend on the native grid and the target CRS so they
+ * are cached and shared by every record on the same grid. Reprojecting a
+ * record is then a copy of values through the index.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        Cache full grid mappings
+ * Oct 17, 2026            agent        Added toNativeGrid
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class ReprojectionIndex {
+
+    private static final long CACHE_BYTES = Long
+            .getLong("ogc.reprojector.index.cache.mb", 128) * 1024 * 1024;
+
+    private static final Cache<Key, ReprojectionIndex> CACHE = Caffeine
+            .newBuilder().maximumWeight(CACHE_BYTES)
+            .weigher((Key k, ReprojectionIndex v) -> v.index.length
+                    * Integer.BYTES)
+            .build();
+
+    private static final KeyLocker<Key> locker = new KeyLocker<>();
+
+    private final int width;
+
+    private final int height;
+
+    private final int[] index;
+
+    /**
+     * @param width
+     *            width of target grid
+     * @param height
+     *            height of target grid
+     * @param index
+     *            native index for each target cell
+     */
+    private ReprojectionIndex(int width, int height, int[] index) {
+        this.width = width;
+        this.height = height;
+        this.index = index;
+    }
+
+    /**
+     * Get the mapping of the grid that the native grid is reprojected to in
+     * crs. The target grid has the same dimensions as the native grid and
+     * covers the native envelope transformed to crs, see
+     * {@link DataReprojector#getRequest(GridGeometry2D, ReferencedEnvelope)}.
+     *
+     * @param geom
+     *            native grid geometry
+     * @param crs
+     *            target crs
+     * @return
+     * @throws FactoryException
+     * @throws TransformException
+     */
+    public static ReprojectionIndex get(GridGeometry2D geom,
+            CoordinateReferenceSystem crs)
+            throws FactoryException, TransformException {
+        Key key = new Key(geom, crs);
+        ReprojectionIndex rval = CACHE.getIfPresent(key);
+        if (rval != null) {
+            return rval;
+        }
+        KeyLock<Key> lock = null;
+        try {
+            lock = locker.getLock(key);
+            lock.lock();
+            rval = CACHE.getIfPresent(key);
+            if (rval == null) {
+                GridEnvelope2D range = geom.getGridRange2D();
+                int nx = range.width;
+                int ny = range.height;
+                ReferencedEnvelope nativeEnv = new ReferencedEnvelope(
+                        geom.getEnvelope2D());
+                GridGeometry2D nativeGeom = DataReprojector
+                        .getGridGeometry(nativeEnv, nx, ny);
+                GridGeometry2D targetGeom = DataReprojector.getGridGeometry(
+                        nativeEnv.transform(crs, true), nx, ny);
+                rval = new ReprojectionIndex(nx, ny,
+                        compute(nativeGeom, targetGeom, 0, 0, nx, ny));
+                CACHE.put(key, rval);
+            }
+            return rval;
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return native index for each cell of the target grid in row major
+     *         order, -1 for cells outside of the native grid. Must not be
+     *         modified.
+     */
+    public int[] getIndex() {
+        return index;
+    }
+
+    /**
+     * Copy the mapping for a window of the target grid
+     *
+     * @param x0
+     * @param y0
+     * @param width
+     * @param height
+     * @return native index for each cell of window in row major order, -1 for
+     *         cells outside of the native grid
+     */
+    public int[] getWindow(int x0, int y0, int width, int height) {
+        int[] rval = new int[width * height];
+        for (int y = 0; y < height; ++y) {
+            System.arraycopy(index, (y0 + y) * this.width + x0, rval,
+                    y * width, width);
+        }
+        return rval;
+    }
+
+    /**
+     * @return width of target grid
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return height of target grid
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Map a window of the target grid to the native grid
+     *
+     * @param nativeGeom
+     * @param targetGeom
+     * @param x0
+     *            first column of window in target grid
+     * @param y0
+     *            first row of window in target grid
+     * @param width
+     *            width of window
+     * @param height
+     *            height of window
+     * @return index into native grid data for each cell of window in row
+     *         major order, -1 for cells outside of the native grid
+     * @throws FactoryException
+     * @throws TransformException
+     */
+    public static int[] compute(GridGeometry2D nativeGeom,
+            GridGeometry2D targetGeom, int x0, int y0, int width, int height)
+            throws FactoryException, TransformException {
+        GridEnvelope2D nativeRange = nativeGeom.getGridRange2D();
+        int nx = nativeRange.width;
+        int ny = nativeRange.height;
+        int count = width * height;
+        double[] points = new double[count * 2];
+        for (int y = 0, k = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                points[k++] = x0 + x;
+                points[k++] = y0 + y;
+            }
+        }
+        points = transform(
+                targetGeom.getGridToCRS2D(PixelOrientation.CENTER), points);
+        points = transform(CRS.findMathTransform(
+                targetGeom.getCoordinateReferenceSystem(),
+                nativeGeom.getCoordinateReferenceSystem(), true), points);
+        points = transform(
+                nativeGeom.getCRSToGrid2D(PixelOrientation.UPPER_LEFT),
+                points);
+        int[] rval = new int[count];
+        for (int i = 0, k = 0; i < count; ++i, k += 2) {
+            double px = points[k];
+            double py = points[k + 1];
+            // NaN fails both comparisons
+            if (px >= 0 && px < nx && py >= 0 && py < ny) {
+                rval[i] = ((int) py) * nx + (int) px;
+            } else {
+                rval[i] = -1;
+            }
+        }
+        return rval;
+    }
+
+    /**
+     * Transform coordinates into native grid space
+     *
+     * @param nativeGeom
+     * @param crs
+     *            crs of coordinates
+     * @param coords
+     * @return packed x, y grid coordinates where the upper left corner of a
+     *         cell is the cell index, NaN for coordinates that could not be
+     *         transformed
+     * @throws FactoryException
+     * @throws TransformException
+     */
+    public static double[] toNativeGrid(GridGeometry2D nativeGeom,
+            CoordinateReferenceSystem crs, Coordinate[] coords)
+            throws FactoryException, TransformException {
+        double[] points = new double[coords.length * 2];
+        for (int i = 0, k = 0; i < coords.length; ++i) {
+            points[k++] = coords[i].x;
+            points[k++] = coords[i].y;
+        }
+        points = transform(CRS.findMathTransform(crs,
+                nativeGeom.getCoordinateReferenceSystem(), true), points);
+        return transform(
+                nativeGeom.getCRSToGrid2D(PixelOrientation.UPPER_LEFT),
+                points);
+    }
+
+    /**
+     * Transform packed 2D points. If the whole array can't be transformed,
+     * points are transformed one at a time and points that fail are set to
+     * NaN.
+     *
+     * @param transform
+     * @param points
+     * @return transformed points
+     */
+    private static double[] transform(MathTransform transform,
+            double[] points) {
+        if (transform.isIdentity()) {
+            return points;
+        }
+        double[] rval = new double[points.length];
+        try {
+            transform.transform(points, 0, rval, 0, points.length / 2);
+        } catch (TransformException e) {
+            for (int k = 0; k < points.length; k += 2) {
+                try {
+                    transform.transform(points, k, rval, k, 1);
+                } catch (TransformException ex) {
+                    rval[k] = Double.NaN;
+                    rval[k + 1] = Double.NaN;
+                }
+            }
+        }
+        return rval;
+    }
+
+    /**
+     * Cache key for a native grid and target crs
+     */
+    private static class Key {
+
+        private final GridGeometry2D geom;
+
+        private final CoordinateReferenceSystem crs;
+
+        private final int hash;
+
+        public Key(GridGeometry2D geom, CoordinateReferenceSystem crs) {
+            this.geom = geom;
+            this.crs = crs;
+            this.hash = Objects.hash(geom, crs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return geom.equals(other.geom) && crs.equals(other.crs);
+        }
+    }
+
+}
@@ -44,6 +44,7 @@ import com.raytheon.uf.common.datastorage.records.ShortDataRecord;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Added gatherData
  * 
  * </pre>
  * 
@@ -194,4 +195,16 @@ public class ShortDataReprojector extends
 		return new ShortDataRecord("", "", to, 1, new long[] { to.length });
 	}
 
+    @Override
+    protected ShortDataRecord gatherData(IDataRecord record, int[] index,
+            long[] sizes) {
+        short[] from = ((ShortDataRecord) record).getShortData();
+        short[] to = new short[index.length];
+        for (int i = 0; i < to.length; ++i) {
+            int j = index[i];
+            to[i] = j < 0 ? fill : from[j];
+        }
+        return new ShortDataRecord("", "", to, sizes.length, sizes);
+    }
+
 }
@@ -0,0 +1,199 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.ogc.common.spatial;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raytheon.uf.edex.ogc.common.OgcException;
+import com.raytheon.uf.edex.ogc.common.OgcException.Code;
+
+/**
+ * Bounded cache of coordinate reference systems. Each CRS is only decoded once,
+ * threads that need a CRS that is being decoded wait for that decode while
+ * lookups of other CRSes are not blocked. Failed and null lookups are not
+ * cached.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class CrsCache {
+
+    /**
+     * Creates a CRS for a cache key
+     */
+    public static interface CrsLoader {
+
+        /**
+         * @param key
+         * @return null if not found
+         * @throws FactoryException
+         * @throws OgcException
+         */
+        public CoordinateReferenceSystem load(String key)
+                throws FactoryException, OgcException;
+    }
+
+    private final ConcurrentMap<String, CompletableFuture<CoordinateReferenceSystem>> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param maxSize
+     *            maximum number of CRSes kept
+     */
+    public CrsCache(int maxSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize)
+                .<String, CompletableFuture<CoordinateReferenceSystem>> build()
+                .asMap();
+    }
+
+    /**
+     * @param key
+     * @return cached CRS, null if not cached or still being decoded
+     */
+    public CoordinateReferenceSystem getIfPresent(String key) {
+        CompletableFuture<CoordinateReferenceSystem> f = cache.get(key);
+        if (f != null && f.isDone() && !f.isCompletedExceptionally()) {
+            hits.incrementAndGet();
+            return f.join();
+        }
+        return null;
+    }
+
+    /**
+     * Get CRS from cache, decoding it with loader if it is not cached
+     * 
+     * @param key
+     * @param loader
+     * @return null if loader did not find CRS
+     * @throws FactoryException
+     * @throws OgcException
+     */
+    public CoordinateReferenceSystem get(String key, CrsLoader loader)
+            throws FactoryException, OgcException {
+        CompletableFuture<CoordinateReferenceSystem> f = cache.get(key);
+        if (f == null) {
+            CompletableFuture<CoordinateReferenceSystem> created = new CompletableFuture<>();
+            f = cache.putIfAbsent(key, created);
+            if (f == null) {
+                misses.incrementAndGet();
+                return load(key, loader, created);
+            }
+        }
+        hits.incrementAndGet();
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OgcException(Code.InternalServerError, e);
+        } catch (ExecutionException e) {
+            /* the loading thread has thrown the cause, retry in this thread */
+            return get(key, loader);
+        }
+    }
+
+    /**
+     * Load CRS and complete future. The future is removed from the cache if
+     * the CRS was not found so that it is looked up again by the next
+     * request.
+     * 
+     * @param key
+     * @param loader
+     * @param f
+     *            future in cache for key
+     * @return
+     * @throws FactoryException
+     * @throws OgcException
+     */
+    private CoordinateReferenceSystem load(String key, CrsLoader loader,
+            CompletableFuture<CoordinateReferenceSystem> f)
+            throws FactoryException, OgcException {
+        CoordinateReferenceSystem rval;
+        try {
+            rval = loader.load(key);
+        } catch (FactoryException | OgcException | RuntimeException e) {
+            failures.incrementAndGet();
+            cache.remove(key, f);
+            f.completeExceptionally(e);
+            throw e;
+        }
+        if (rval == null) {
+            cache.remove(key, f);
+        }
+        f.complete(rval);
+        return rval;
+    }
+
+    /**
+     * @return number of lookups that found the CRS cached or being decoded
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups that decoded the CRS
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of decodes that failed
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return number of cached CRSes
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + ", hits=" + getHitCount() + ", misses="
+                + getMissCount() + ", failures=" + getFailureCount();
+    }
+
+}
@@ -23,13 +23,13 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.text.ParsePosition;
+import java.util.Collection;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.CRS;
 import org.geotools.referencing.crs.DefaultCompoundCRS;
@@ -46,6 +46,8 @@ import org.opengis.referencing.cs.AxisDirection;
 import org.springframework.context.ApplicationContext;
 
 import com.raytheon.uf.common.geospatial.MapUtil;
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
 import com.raytheon.uf.edex.core.EDEXUtil;
 import com.raytheon.uf.edex.ogc.common.OgcException;
 import com.raytheon.uf.edex.ogc.common.OgcException.Code;
@@ -68,6 +70,8 @@ import tec.uom.se.format.SimpleUnitFormat;
  * Nov 19, 2015 5087       bclement     reformatted and added DefinedCrsAuthority lookup
  * Nov 23, 2015 5087       bclement     safety check if DefinedCrsAuthority isn't provided
  * May 8, 2019  7596       tgurney      Fixes for Units upgrade
+ * Oct 17, 2026            agent        concurrent compute once cache, WKT
+ *                                      cache and pre-warming
  * 
  * </pre>
  * 
@@ -75,7 +79,14 @@ import tec.uom.se.format.SimpleUnitFormat;
  */
 public class CrsLookup {
 
-    private static final int N_OBJECTS = 10;
+    private static final int N_OBJECTS = Integer.getInteger(
+            "ogc.crs.cache.size", 256);
+
+    private static final int N_WKT_OBJECTS = Integer.getInteger(
+            "ogc.crs.wkt.cache.size", 256);
+
+    private static final IUFStatusHandler log = UFStatus
+            .getHandler(CrsLookup.class);
 
     public static final String GOOGLE_CRS_WKT = "PROJCS[\"Google Mercator\","
             + "GEOGCS[\"WGS 84\","
@@ -97,7 +108,11 @@ public class CrsLookup {
             + "AXIS[\"Easting\", EAST]," + " AXIS[\"Northing\", NORTH],"
             + "AUTHORITY[\"EPSG\",\"900913\"]]";
 
-    protected static final LRUMap cache = new LRUMap(N_OBJECTS);
+    /* decoded CRS by normalized code */
+    protected static final CrsCache cache = new CrsCache(N_OBJECTS);
+
+    /* parsed CRS by WKT */
+    protected static final CrsCache wktCache = new CrsCache(N_WKT_OBJECTS);
 
     protected static CoordinateReferenceSystem googleCrs;
 
@@ -200,32 +215,75 @@ public class CrsLookup {
             return NativeCrsFactory.lookup(crs);
         }
         String normalized = normalize(crs);
-        CoordinateReferenceSystem rval;
-        synchronized (cache) {
-            rval = (CoordinateReferenceSystem) cache.get(normalized);
+        CoordinateReferenceSystem rval = cache.getIfPresent(normalized);
+        if (rval == null) {
+            /* don't cache from defined crs auth, it handles its own */
+            IDefinedCrsAuthority authority = getDefinedCrsAuthority();
+            if (authority != null) {
+                rval = authority.lookup(crs);
+            }
             if (rval == null) {
-                /* don't cache from defined crs auth, it handles its own */
-                IDefinedCrsAuthority authority = getDefinedCrsAuthority();
-                if (authority != null) {
-                    rval = authority.lookup(crs);
-                }
-                if (rval == null) {
-                    rval = decodeCrs(normalized);
-                    if (rval != null) {
-                        cache.put(normalized, rval);
-                    }
-                }
+                rval = cache.get(normalized, CrsLookup::decodeCrs);
             }
         }
         return rval;
     }
 
+    /**
+     * Parse coordinate reference system from well known text. Results are
+     * cached by WKT.
+     * 
+     * @param wkt
+     * @return
+     * @throws FactoryException
+     */
+    public static CoordinateReferenceSystem parseWKT(String wkt)
+            throws FactoryException {
+        try {
+            return wktCache.get(wkt, CRS::parseWKT);
+        } catch (OgcException e) {
+            /* not thrown by parser */
+            throw new FactoryException("Unable to parse WKT", e);
+        }
+    }
+
+    /**
+     * Decode each CRS so that it is cached before it is requested. CRSes that
+     * can't be decoded are logged and skipped.
+     * 
+     * @param crsList
+     *            CRS codes or URNs
+     */
+    public static void prewarm(Collection<String> crsList) {
+        for (String crs : crsList) {
+            try {
+                if (lookup(crs) == null) {
+                    log.warn("Unable to pre-warm unknown CRS: " + crs);
+                }
+            } catch (Exception e) {
+                log.warn("Unable to pre-warm CRS: " + crs, e);
+            }
+        }
+        log.info("Pre-warmed CRS cache: " + getCacheStats());
+    }
+
+    /**
+     * @return size, hit and miss counts of CRS caches
+     */
+    public static String getCacheStats() {
+        return "codes [" + cache + "], wkt [" + wktCache + "], native ["
+                + NativeCrsFactory.getCacheStats() + "]";
+    }
+
     /**
      * @return null if no authority is found
      */
     protected static IDefinedCrsAuthority getDefinedCrsAuthority() {
         IDefinedCrsAuthority rval = null;
         ApplicationContext context = EDEXUtil.getSpringContext();
+        if (context == null) {
+            return null;
+        }
         String[] authorityBeans = context
                 .getBeanNamesForType(IDefinedCrsAuthority.class);
         if (authorityBeans != null && authorityBeans.length > 0) {
@@ -9,12 +9,11 @@
  */
 package com.raytheon.uf.edex.ogc.common.spatial;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.commons.collections.map.LRUMap;
+import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.springframework.context.ApplicationContext;
 
@@ -26,7 +25,7 @@ import com.raytheon.uf.edex.ogc.common.OgcException;
 /**
  * Factory for retrieving geotools coordinate reference system objects from
  * native CRS URNs. Uses NativeCrsAuthority beans registered in spring to create
- * new CRS objects. Uses an internal LRU cache.
+ * new CRS objects. Uses an internal {@link CrsCache}.
  * 
  * <pre>
  * 
@@ -35,6 +34,7 @@ import com.raytheon.uf.edex.ogc.common.OgcException;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * May 6, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        concurrent compute once cache
  * 
  * </pre>
  * 
@@ -43,9 +43,8 @@ import com.raytheon.uf.edex.ogc.common.OgcException;
  */
 public class NativeCrsFactory {
 
-    @SuppressWarnings("unchecked")
-    private static final Map<String, CoordinateReferenceSystem> cache = Collections
-            .synchronizedMap(new LRUMap(5));
+    private static final CrsCache cache = new CrsCache(Integer.getInteger(
+            "ogc.native.crs.cache.size", 64));
 
     private static Map<String, NativeCrsAuthority> auths = null;
 
@@ -84,7 +83,7 @@ public class NativeCrsFactory {
      */
     public static CoordinateReferenceSystem lookup(String urn)
             throws OgcException {
-        CoordinateReferenceSystem rval = cache.get(urn);
+        CoordinateReferenceSystem rval = cache.getIfPresent(urn);
         if (rval != null) {
             return rval;
         }
@@ -93,15 +92,35 @@ public class NativeCrsFactory {
                     new Exception());
             return null;
         }
-        
+        try {
+            return cache.get(urn, NativeCrsFactory::lookupFromAuthorities);
+        } catch (FactoryException e) {
+            /* not thrown by authorities */
+            throw new OgcException(OgcException.Code.InternalServerError, e);
+        }
+    }
+
+    /**
+     * @param urn
+     * @return null if no authority has CRS
+     * @throws OgcException
+     */
+    private static CoordinateReferenceSystem lookupFromAuthorities(String urn)
+            throws OgcException {
         for (Entry<String, NativeCrsAuthority> e : auths.entrySet()) {
             NativeCrsAuthority auth = e.getValue();
-            rval = auth.lookup(urn);
+            CoordinateReferenceSystem rval = auth.lookup(urn);
             if (rval != null) {
-                cache.put(urn, rval);
                 return rval;
             }
         }
         return null;
     }
+
+    /**
+     * @return size, hit and miss counts of native CRS cache
+     */
+    public static String getCacheStats() {
+        return cache.toString();
+    }
 }
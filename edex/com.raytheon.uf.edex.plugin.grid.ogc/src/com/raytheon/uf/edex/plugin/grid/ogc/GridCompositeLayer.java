@@ -30,6 +30,8 @@ import com.raytheon.uf.edex.ogc.common.db.SimpleLayer;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Jun 27, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        don't modify dimensions when
+ *                                      aggregating
  * 
  * </pre>
  * 
@@ -81,7 +83,7 @@ public class GridCompositeLayer extends GridLayer {
             for (GridDimension dim : e.getValue()) {
                 GridDimension aggregate = byDim.get(dim.getName());
                 if (aggregate == null) {
-                    byDim.put(dim.getName(), dim);
+                    byDim.put(dim.getName(), new GridDimension(dim));
                     continue;
                 }
                 aggregate.getValues().addAll(dim.getValues());
@@ -0,0 +1,105 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.plugin.grid.ogc;
+
+import java.util.Date;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+
+import com.raytheon.uf.common.dataplugin.grid.GridRecord;
+import com.raytheon.uf.common.time.DataTime;
+import com.raytheon.uf.edex.ogc.common.db.LayerChangeAddon;
+
+/**
+ * Layer change addon that reports changes using the names of the parameter
+ * layers that are advertised to clients instead of the composite layer names
+ * used by the collector. Also reports data added for the most recent model
+ * run of each parameter layer.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        Report data for latest model run
+ * Oct 17, 2026            agent        Latest runs are primed by collector
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class GridLayerChangeAddon extends
+        LayerChangeAddon<GridDimension, GridCompositeLayer, GridRecord> {
+
+    private final ConcurrentMap<String, Date> latestRefTimes;
+
+    /**
+     * @param latestRefTimes
+     *            most recent reference time seen by parameter layer name,
+     *            shared by all addons of a collector. Primed by the collector
+     *            with the runs loaded from the database.
+     */
+    public GridLayerChangeAddon(ConcurrentMap<String, Date> latestRefTimes) {
+        this.latestRefTimes = latestRefTimes;
+    }
+
+    @Override
+    public void onCollect(GridCompositeLayer layer, GridRecord record) {
+        for (String param : layer.getParameters()) {
+            addChange(GridWmsLayerCache.createParamLayerName(layer.getName(),
+                    param), layer.getTimes(param));
+        }
+        String param = GridRecordFinder.dbToOgcParameter(record.getInfo()
+                .getParameter().getAbbreviation());
+        String name = GridWmsLayerCache.createParamLayerName(layer.getName(),
+                param);
+        DataTime dt = record.getDataTime();
+        Date refTime = dt.getRefTime();
+        Date latest = latestRefTimes.merge(name, refTime,
+                (a, b) -> a.after(b) ? a : b);
+        if (latest.after(refTime)) {
+            // older run
+            return;
+        }
+        addLatestRun(name, refTime, dt.getValidTime().getTime());
+    }
+
+    @Override
+    public void onPurgeLayer(GridCompositeLayer before,
+            GridCompositeLayer after) {
+        for (String param : before.getParameters()) {
+            String name = GridWmsLayerCache.createParamLayerName(
+                    before.getName(), param);
+            if (after == null) {
+                addChange(name, null);
+                continue;
+            }
+            TreeSet<Date> removed = before.getTimes(param);
+            removed.removeAll(after.getTimes(param));
+            if (!removed.isEmpty()) {
+                addChange(name, removed);
+            }
+        }
+    }
+
+}
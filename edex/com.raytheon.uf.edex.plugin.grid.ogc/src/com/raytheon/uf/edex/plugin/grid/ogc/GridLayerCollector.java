@@ -9,19 +9,30 @@
  */
 package com.raytheon.uf.edex.plugin.grid.ogc;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 import javax.measure.Unit;
 
 import org.geotools.geometry.jts.JTS;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.hibernate.ScrollMode;
 import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Polygon;
 import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.TransformException;
 
+import com.raytheon.uf.common.dataplugin.PluginDataObject;
 import com.raytheon.uf.common.dataplugin.grid.GridInfoRecord;
 import com.raytheon.uf.common.dataplugin.grid.GridRecord;
 import com.raytheon.uf.common.dataplugin.level.Level;
@@ -30,8 +41,11 @@ import com.raytheon.uf.common.geospatial.MapUtil;
 import com.raytheon.uf.common.gridcoverage.GridCoverage;
 import com.raytheon.uf.common.parameter.Parameter;
 import com.raytheon.uf.common.time.DataTime;
+import com.raytheon.uf.edex.database.DataAccessLayerException;
 import com.raytheon.uf.edex.ogc.common.OgcLayer;
+import com.raytheon.uf.edex.ogc.common.db.CollectorAddonFactory;
 import com.raytheon.uf.edex.ogc.common.db.DefaultLayerCollector;
+import com.raytheon.uf.edex.ogc.common.db.ICollectorAddon;
 import com.raytheon.uf.edex.ogc.common.db.ILayerStore;
 import com.raytheon.uf.edex.ogc.common.db.LayerTransformer;
 import com.raytheon.uf.edex.ogc.common.db.SimpleDimension;
@@ -50,6 +64,16 @@ import si.uom.SI;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Jun 27, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        report changes by parameter layer
+ * Oct 17, 2026            agent        track latest reference times
+ * Oct 17, 2026            agent        load layers from record metadata
+ *                                      instead of full records
+ * Oct 17, 2026            agent        maintain grid record index
+ * Oct 17, 2026            agent        cache spatial metadata by coverage
+ * Oct 17, 2026            agent        prime latest reference times when
+ *                                      layers are loaded
+ * Oct 17, 2026            agent        query distinct times when records
+ *                                      are not indexed
  * 
  * </pre>
  * 
@@ -59,8 +83,113 @@ import si.uom.SI;
 public class GridLayerCollector extends
         DefaultLayerCollector<GridDimension, GridCompositeLayer, GridRecord> {
 
+    /*
+     * layers only depend on the grid info and time of a record, times are
+     * queried without the rest of the record. The record index needs the id of
+     * every record so that query returns a row per record, otherwise one row is
+     * returned per distinct info and time.
+     */
+    private static final String TIMES_QUERY = "select r.id, r.info.id, r."
+            + GridRecordFinder.REF_TIME + ", r." + GridRecordFinder.FCST_TIME
+            + " from " + GridRecord.class.getName() + " r";
+
+    private static final String DISTINCT_TIMES_QUERY = "select distinct "
+            + "r.info.id, r." + GridRecordFinder.REF_TIME + ", r."
+            + GridRecordFinder.FCST_TIME + " from "
+            + GridRecord.class.getName() + " r";
+
+    private static final boolean INDEX_RECORDS = Boolean.parseBoolean(System
+            .getProperty("ogc.grid.record.index", "true"));
+
+    /* most recent reference time collected by parameter layer name */
+    private final ConcurrentMap<String, Date> latestRefTimes = new ConcurrentHashMap<String, Date>();
+
+    private final GridRecordIndex index = INDEX_RECORDS ? new GridRecordIndex()
+            : null;
+
+    /* derived spatial metadata by dataset and coverage */
+    private final ConcurrentMap<String, CoverageMetadata> coverages = new ConcurrentHashMap<String, CoverageMetadata>();
+
+    /* if levels can be converted to altitude by level unit string */
+    private final ConcurrentMap<String, Boolean> verticalUnits = new ConcurrentHashMap<String, Boolean>();
+
     public GridLayerCollector(ILayerStore store) {
         super(GridCompositeLayer.class, GridRecord.class, store);
+        this.addonFactory = new CollectorAddonFactory<GridDimension, GridCompositeLayer, GridRecord>() {
+            @Override
+            public ICollectorAddon<GridDimension, GridCompositeLayer, GridRecord> create() {
+                return new GridLayerChangeAddon(latestRefTimes);
+            }
+        };
+    }
+
+    /**
+     * @return index of collected records, null if disabled
+     */
+    public GridRecordIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    protected void collect(Map<String, GridCompositeLayer> map,
+            Set<GridCompositeLayer> owned,
+            Collection<? extends PluginDataObject> coll,
+            ICollectorAddon<GridDimension, GridCompositeLayer, GridRecord> addon) {
+        super.collect(map, owned, coll, addon);
+        for (PluginDataObject pdo : coll) {
+            if (pdo instanceof GridRecord) {
+                GridRecord rec = (GridRecord) pdo;
+                /* only index records that are part of a layer */
+                if (!map.containsKey(getLayerName(rec))) {
+                    continue;
+                }
+                if (addon == null) {
+                    primeLatestRefTime(rec);
+                }
+                if (index != null) {
+                    index.add(rec);
+                }
+            }
+        }
+    }
+
+    /**
+     * Track the reference time of a record that was loaded instead of added,
+     * so that only runs newer than the loaded runs are reported by the addon
+     * 
+     * @param rec
+     */
+    private void primeLatestRefTime(GridRecord rec) {
+        String param = getParameter(rec);
+        String name = GridWmsLayerCache.createParamLayerName(
+                getLayerName(rec), param);
+        latestRefTimes.merge(name, rec.getDataTime().getRefTime(),
+                (a, b) -> a.after(b) ? a : b);
+    }
+
+    @Override
+    public void purgeExpired() {
+        if (index == null) {
+            super.purgeExpired();
+            return;
+        }
+        /*
+         * rebuild adds every record left in the database again, entries of
+         * purged records are removed once it is done. Purged records found in
+         * the index before then are removed when their data can't be read.
+         */
+        long generation = index.nextGeneration();
+        super.purgeExpired();
+        index.removeOlderThan(generation);
+    }
+
+    @Override
+    public void purgeAll() {
+        super.purgeAll();
+        if (index != null) {
+            index.clear();
+        }
+        coverages.clear();
     }
 
     @Override
@@ -111,13 +240,7 @@ public class GridLayerCollector extends
         if (parameter.getAbbreviation().startsWith("static")) {
             return false;
         }
-        Unit<?> unit = level.getMasterLevel().getUnit();
-        if (unit == null) {
-            layer.setVertical(false);
-        }
-        try {
-            AltUtil.convert(SI.METRE, unit, 1);
-        } catch (Exception e) {
+        if (!isVertical(level.getMasterLevel())) {
             layer.setVertical(false);
         }
         GridCoverage cov = info.getLocation();
@@ -125,26 +248,12 @@ public class GridLayerCollector extends
             log.warn("Recieved record without coverage!");
             return false;
         }
-        layer.setCoverageName(cov.getName());
-        String crsWkt = cov.getCrsWKT();
-        if (crsWkt == null) {
-            crsWkt = cov.getCrs().toWKT();
-        }
-        layer.setCrsWkt(crsWkt);
-        layer.setNx(cov.getNx());
-        layer.setNy(cov.getNy());
-        layer.setTargetCrsCode("CRS:84");
-        try {
-            Envelope env = getProperBounds(layer, cov, info);
-            layer.setTargetMinx(env.getMinX());
-            layer.setTargetMiny(env.getMinY());
-            layer.setTargetMaxx(env.getMaxX());
-            layer.setTargetMaxy(env.getMaxY());
-            layer.setCrs84Bounds(JTS.toGeometry(env));
-        } catch (Exception e) {
-            log.error("Unable to get crs84 bounds", e);
+        CoverageMetadata meta = getCoverageMetadata(cov, info);
+        if (meta == null) {
             return false;
         }
+        meta.apply(layer);
+        layer.setTargetCrsCode("CRS:84");
         String levelUnit = level.getMasterLevel().getUnitString();
         MasterLevel master = level.getMasterLevel();
         TreeSet<GridDimension> dims = new TreeSet<GridDimension>();
@@ -158,6 +267,59 @@ public class GridLayerCollector extends
         return true;
     }
 
+    /**
+     * @param master
+     * @return true if levels of master level can be converted to altitude
+     */
+    private boolean isVertical(MasterLevel master) {
+        String unitString = master.getUnitString();
+        String key = unitString == null ? "" : unitString;
+        Boolean rval = verticalUnits.get(key);
+        if (rval == null) {
+            Unit<?> unit = master.getUnit();
+            rval = unit != null;
+            try {
+                AltUtil.convert(SI.METRE, unit, 1);
+            } catch (Exception e) {
+                rval = false;
+            }
+            verticalUnits.put(key, rval);
+        }
+        return rval;
+    }
+
+    /**
+     * Get spatial metadata for coverage, computing it the first time the
+     * coverage is seen for a dataset
+     * 
+     * @param cov
+     * @param info
+     * @return null if bounds could not be calculated
+     */
+    private CoverageMetadata getCoverageMetadata(GridCoverage cov,
+            GridInfoRecord info) {
+        String key = info.getDatasetId() + OgcLayer.keySeparator
+                + cov.getName() + OgcLayer.keySeparator + cov.getId();
+        CoverageMetadata rval = coverages.get(key);
+        if (rval == null) {
+            String crsWkt = cov.getCrsWKT();
+            if (crsWkt == null) {
+                crsWkt = cov.getCrs().toWKT();
+            }
+            /* collects native bounds */
+            GridCompositeLayer scratch = new GridCompositeLayer();
+            try {
+                Envelope env = getProperBounds(scratch, cov, info);
+                rval = new CoverageMetadata(cov, crsWkt, scratch, env);
+            } catch (Exception e) {
+                log.error("Unable to get crs84 bounds", e);
+                return null;
+            }
+            coverages.put(key, rval);
+        }
+        return rval;
+    }
+
     protected ReferencedEnvelope getProperBounds(GridLayer layer,
             GridCoverage cov, GridInfoRecord info) throws FactoryException,
             MismatchedDimensionException, TransformException {
@@ -209,6 +371,44 @@ public class GridLayerCollector extends
                 crs84Env.getCoordinateReferenceSystem());
     }
 
+    /**
+     * Loads all grid info records then streams the info and time of each
+     * record, creating a lightweight grid record for each. Records are only
+     * streamed individually, with their id, when the record index is enabled.
+     * Otherwise only distinct info and times are streamed.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void scrollFromDb(Consumer<List<GridRecord>> consumer)
+            throws DataAccessLayerException {
+        Map<Object, GridInfoRecord> infos = new HashMap<>();
+        scroll(sess -> {
+            List<GridInfoRecord> list = sess.createQuery(
+                    "from " + GridInfoRecord.class.getName()).list();
+            for (GridInfoRecord info : list) {
+                infos.put(info.getId(), info);
+            }
+            String query = index == null ? DISTINCT_TIMES_QUERY : TIMES_QUERY;
+            return sess.createQuery(query).setReadOnly(true)
+                    .setFetchSize(DB_BATCH_SIZE)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+        }, row -> {
+            int i = index == null ? 0 : 1;
+            GridInfoRecord info = infos.get(row[i]);
+            if (info == null) {
+                return null;
+            }
+            GridRecord rec = new GridRecord();
+            if (index != null) {
+                rec.setId(((Number) row[0]).intValue());
+            }
+            rec.setInfo(info);
+            rec.setDataTime(new DataTime((Date) row[i + 1],
+                    ((Number) row[i + 2]).intValue()));
+            return rec;
+        }, consumer);
+    }
+
     @Override
     public String getLayerName(GridRecord rec) {
         return createLayerName(rec);
@@ -227,4 +427,67 @@ public class GridLayerCollector extends
         return new GridCompositeLayer(orig);
     }
 
+    /**
+     * Spatial metadata derived from a coverage, shared by every layer on the
+     * coverage
+     */
+    private static class CoverageMetadata {
+
+        private final String coverageName;
+
+        private final String crsWkt;
+
+        private final int nx;
+
+        private final int ny;
+
+        private final double nativeMinX, nativeMinY, nativeMaxX, nativeMaxY;
+
+        private final Envelope crs84Env;
+
+        private final Polygon crs84Bounds;
+
+        /**
+         * @param cov
+         * @param crsWkt
+         * @param nativeBounds
+         *            layer with native bounds set
+         * @param crs84Env
+         */
+        public CoverageMetadata(GridCoverage cov, String crsWkt,
+                GridLayer nativeBounds, Envelope crs84Env) {
+            this.coverageName = cov.getName();
+            this.crsWkt = crsWkt;
+            this.nx = cov.getNx();
+            this.ny = cov.getNy();
+            this.nativeMinX = nativeBounds.getNativeMinX();
+            this.nativeMinY = nativeBounds.getNativeMinY();
+            this.nativeMaxX = nativeBounds.getNativeMaxX();
+            this.nativeMaxY = nativeBounds.getNativeMaxY();
+            this.crs84Env = crs84Env;
+            this.crs84Bounds = JTS.toGeometry(crs84Env);
+        }
+
+        /**
+         * Set spatial metadata of layer
+         * 
+         * @param layer
+         */
+        public void apply(GridLayer layer) {
+            layer.setCoverageName(coverageName);
+            layer.setCrsWkt(crsWkt);
+            layer.setNx(nx);
+            layer.setNy(ny);
+            layer.setNativeMinX(nativeMinX);
+            layer.setNativeMinY(nativeMinY);
+            layer.setNativeMaxX(nativeMaxX);
+            layer.setNativeMaxY(nativeMaxY);
+            layer.setTargetMinx(crs84Env.getMinX());
+            layer.setTargetMiny(crs84Env.getMinY());
+            layer.setTargetMaxx(crs84Env.getMaxX());
+            layer.setTargetMaxy(crs84Env.getMaxY());
+            layer.setCrs84Bounds(crs84Bounds);
+        }
+    }
+
 }
@@ -24,6 +24,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
+import java.util.TreeSet;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
@@ -57,6 +58,8 @@ import com.raytheon.uf.edex.ogc.common.time.ForecastTimeUtil;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Jun 27, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        resolve WMS records from record index
+ * Oct 17, 2026            agent        find stored record for index entry
  * 
  * </pre>
  * 
@@ -153,13 +156,66 @@ public class GridRecordFinder {
             LayerTransformer<GridDimension, GridParamLayer> transformer,
             String key, String layerName, String time,
             Map<String, String> dimensions) throws OgcException {
+        return findWms(transformer, null, key, layerName, time, dimensions);
+    }
+
+    /**
+     * Find records for WMS layer, using the record index if possible. The
+     * database is only queried if no records are found in the index.
+     * 
+     * @param transformer
+     * @param index
+     *            may be null
+     * @param key
+     * @param layerName
+     * @param time
+     * @param dimensions
+     * @return
+     * @throws OgcException
+     */
+    public static List<GridRecord> findWms(
+            LayerTransformer<GridDimension, GridParamLayer> transformer,
+            GridRecordIndex index, String key, String layerName, String time,
+            Map<String, String> dimensions) throws OgcException {
         GridParamLayer l = getLayer(transformer, layerName);
         SortedSet<DataTime> times = ForecastTimeUtil.getDataTimes(l, time,
                 dimensions);
+        if (index != null) {
+            String[] parts = layerName.split(OgcLayer.keySeparator);
+            if (parts.length >= 4) {
+                String indexKey = GridRecordIndex.createKey(parts[0],
+                        parts[1], ogcToDbParameter(parts[2]), parts[3]);
+                List<GridRecord> rval = index.find(indexKey, times,
+                        getRequestedLevel(dimensions, l));
+                if (!rval.isEmpty()) {
+                    return rval;
+                }
+            }
+        }
         return findInternal(l, transformer, key, times, dimensions,
                 parseWmsId(layerName));
     }
 
+    /**
+     * Find the record stored in the database with the same info and time as
+     * record, used when a record from the index can't be read
+     * 
+     * @param key
+     * @param record
+     * @return null if no record is stored
+     * @throws OgcException
+     */
+    public static GridRecord findStored(String key, GridRecord record)
+            throws OgcException {
+        GridInfoRecord info = record.getInfo();
+        SortedSet<DataTime> times = new TreeSet<DataTime>();
+        times.add(record.getDataTime());
+        List<GridRecord> res = query(key, times, info.getParameter()
+                .getAbbreviation(),
+                Restrictions.eq(INFO_ALIAS + ".id", info.getId()), null);
+        return res.isEmpty() ? null : res.get(0);
+    }
+
     protected static List<GridRecord> findInternal(GridParamLayer l,
             LayerTransformer<GridDimension, GridParamLayer> transformer,
             String key, SortedSet<DataTime> times,
@@ -220,29 +276,53 @@ public class GridRecordFinder {
      */
     protected static Criterion getLevel(Map<String, String> dimensions,
             GridLayer layer) throws OgcException {
-        String dimName = null;
+        String dimName = getLevelDimName(dimensions, layer);
+        if (dimName == null) {
+            return null;
+        }
+        SimpleDimension dim = layer.getDimension(dimName);
+        // undo any case changes
+        return parseLevel(dim.getName(), dimensions.get(dimName),
+                dim.getUnits());
+    }
+
+    /**
+     * @param dimensions
+     * @param layer
+     * @return null if level value not in dimensions and not in layer or if
+     *         the value only names the master level
+     * @throws OgcException
+     */
+    protected static Level getRequestedLevel(Map<String, String> dimensions,
+            GridLayer layer) throws OgcException {
+        String dimName = getLevelDimName(dimensions, layer);
+        if (dimName == null) {
+            return null;
+        }
+        SimpleDimension dim = layer.getDimension(dimName);
+        return LevelDimUtil.parseLevel(dim.getName(), dimensions.get(dimName),
+                dim.getUnits());
+    }
+
+    /**
+     * @param dimensions
+     * @param layer
+     * @return name of level dimension as given in request, null if level
+     *         value not in dimensions and not in layer
+     */
+    private static String getLevelDimName(Map<String, String> dimensions,
+            GridLayer layer) {
         // find level dimension in request
         for (String dim : dimensions.keySet()) {
             String lower = dim.toLowerCase();
             if (lower.startsWith(LevelDimUtil.LEVEL_DIM_PREFIX.toLowerCase())) {
-                dimName = dim;
-                break;
-            }
-        }
-        SimpleDimension dim;
-        String value;
-        if (dimName == null) {
-            return null;
-        } else {
-            dim = layer.getDimension(dimName);
-            if (dim == null) {
-                return null;
+                if (layer.getDimension(dim) == null) {
+                    return null;
+                }
+                return dim;
             }
-            value = dimensions.get(dimName);
         }
-        // undo any case changes
-        dimName = dim.getName();
-        return parseLevel(dimName, value, dim.getUnits());
+        return null;
     }
 
     @SuppressWarnings("unchecked")
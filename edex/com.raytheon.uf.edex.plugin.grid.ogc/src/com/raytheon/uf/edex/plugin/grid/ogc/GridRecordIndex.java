@@ -0,0 +1,295 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.plugin.grid.ogc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.raytheon.uf.common.dataplugin.grid.GridInfoRecord;
+import com.raytheon.uf.common.dataplugin.grid.GridRecord;
+import com.raytheon.uf.common.dataplugin.level.Level;
+import com.raytheon.uf.common.time.DataTime;
+import com.raytheon.uf.edex.ogc.common.OgcLayer;
+
+/**
+ * In memory index of grid records by dataset, coverage, parameter, master
+ * level and time. Maintained by {@link GridLayerCollector} so that records can
+ * be resolved for a layer request without querying the database.
+ * 
+ * Entries are stamped with a generation. A purge starts a new generation,
+ * every record still in the database is added again while layers are rebuilt
+ * and entries left with an older generation are removed. Entries of a time are
+ * keyed by data URI so a record that is stored again replaces its old entry.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        key entries by data URI, remove stale
+ *                                      records
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class GridRecordIndex {
+
+    private final ConcurrentMap<String, ConcurrentMap<TimeKey, ConcurrentMap<String, Entry>>> index = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param dataset
+     * @param coverage
+     *            coverage name
+     * @param parameter
+     *            database parameter abbreviation
+     * @param level
+     *            master level name
+     * @return key for records of a parameter layer
+     */
+    public static String createKey(String dataset, String coverage,
+            String parameter, String level) {
+        return dataset + OgcLayer.keySeparator + coverage
+                + OgcLayer.keySeparator + parameter + OgcLayer.keySeparator
+                + level;
+    }
+
+    /**
+     * @param info
+     * @return key for records of the parameter layer of info
+     */
+    private static String createKey(GridInfoRecord info) {
+        return createKey(info.getDatasetId(), info.getLocation().getName(),
+                info.getParameter().getAbbreviation(), info.getLevel()
+                        .getMasterLevel().getName());
+    }
+
+    /**
+     * Add record to index, replacing any entry with the same data URI.
+     * Records without an id, data URI or coverage are ignored.
+     * 
+     * @param record
+     */
+    public void add(GridRecord record) {
+        GridInfoRecord info = record.getInfo();
+        String dataURI = record.getDataURI();
+        if (record.getId() == 0 || dataURI == null
+                || info.getLocation() == null) {
+            return;
+        }
+        DataTime time = record.getDataTime();
+        index.computeIfAbsent(createKey(info), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(new TimeKey(time),
+                        k -> new ConcurrentHashMap<>())
+                .put(dataURI, new Entry(record.getId(), dataURI, info, time,
+                        generation.get()));
+    }
+
+    /**
+     * Remove the entry for record, used when a record is no longer stored
+     * 
+     * @param record
+     */
+    public void remove(GridRecord record) {
+        GridInfoRecord info = record.getInfo();
+        String dataURI = record.getDataURI();
+        if (dataURI == null || info.getLocation() == null) {
+            return;
+        }
+        TimeKey time = new TimeKey(record.getDataTime());
+        index.computeIfPresent(createKey(info), (k, byTime) -> {
+            byTime.computeIfPresent(time, (t, entries) -> {
+                entries.remove(dataURI);
+                return entries.isEmpty() ? null : entries;
+            });
+            return byTime.isEmpty() ? null : byTime;
+        });
+    }
+
+    /**
+     * Find records for a parameter layer
+     * 
+     * @param key
+     *            from {@link #createKey(String, String, String, String)}
+     * @param times
+     * @param level
+     *            level to match, null to match all levels of layer
+     * @return matching records, not sorted. Records are created from index
+     *         entries and only have id, data URI, info and data time
+     *         populated.
+     */
+    public List<GridRecord> find(String key, Collection<DataTime> times,
+            Level level) {
+        Map<TimeKey, ConcurrentMap<String, Entry>> byTime = index.get(key);
+        if (byTime == null) {
+            return new ArrayList<GridRecord>(0);
+        }
+        List<GridRecord> rval = new ArrayList<GridRecord>();
+        for (DataTime time : times) {
+            Map<String, Entry> entries = byTime.get(new TimeKey(time));
+            if (entries == null) {
+                continue;
+            }
+            for (Entry e : entries.values()) {
+                if (level == null || matches(e.info.getLevel(), level)) {
+                    rval.add(e.toRecord());
+                }
+            }
+        }
+        return rval;
+    }
+
+    /**
+     * Start a new generation, entries added after this call are kept by
+     * {@link #removeOlderThan(long)}
+     * 
+     * @return the new generation
+     */
+    public long nextGeneration() {
+        return generation.incrementAndGet();
+    }
+
+    /**
+     * Remove entries that have not been added since generation started. A
+     * record added concurrently to an emptied time or layer can be dropped,
+     * it is then found in the database instead.
+     * 
+     * @param gen
+     */
+    public void removeOlderThan(long gen) {
+        Iterator<ConcurrentMap<TimeKey, ConcurrentMap<String, Entry>>> layers = index
+                .values().iterator();
+        while (layers.hasNext()) {
+            ConcurrentMap<TimeKey, ConcurrentMap<String, Entry>> byTime = layers
+                    .next();
+            Iterator<ConcurrentMap<String, Entry>> times = byTime.values()
+                    .iterator();
+            while (times.hasNext()) {
+                ConcurrentMap<String, Entry> entries = times.next();
+                entries.values().removeIf(e -> e.generation < gen);
+                if (entries.isEmpty()) {
+                    times.remove();
+                }
+            }
+            if (byTime.isEmpty()) {
+                layers.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * Same comparison as the level criterion in
+     * {@link GridRecordFinder#parseLevel(String, String, String)}
+     * 
+     * @param recordLevel
+     * @param requested
+     * @return
+     */
+    private static boolean matches(Level recordLevel, Level requested) {
+        return recordLevel.getLevelonevalue() == requested.getLevelonevalue()
+                && recordLevel.getLeveltwovalue() == requested
+                        .getLeveltwovalue()
+                && Objects.equals(recordLevel.getMasterLevel().getUnitString(),
+                        requested.getMasterLevel().getUnitString());
+    }
+
+    /**
+     * Reference and forecast time of a record
+     */
+    private static class TimeKey {
+
+        private final long refTime;
+
+        private final int fcstTime;
+
+        public TimeKey(DataTime time) {
+            this.refTime = time.getRefTime().getTime();
+            this.fcstTime = time.getFcstTime();
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(refTime) * 31 + fcstTime;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TimeKey)) {
+                return false;
+            }
+            TimeKey other = (TimeKey) obj;
+            return refTime == other.refTime && fcstTime == other.fcstTime;
+        }
+    }
+
+    /**
+     * Indexed record
+     */
+    private static class Entry {
+
+        public final int id;
+
+        public final String dataURI;
+
+        public final GridInfoRecord info;
+
+        public final DataTime time;
+
+        public final long generation;
+
+        public Entry(int id, String dataURI, GridInfoRecord info,
+                DataTime time, long generation) {
+            this.id = id;
+            this.dataURI = dataURI;
+            this.info = info;
+            this.time = time;
+            this.generation = generation;
+        }
+
+        public GridRecord toRecord() {
+            GridRecord rval = new GridRecord();
+            rval.setId(id);
+            rval.setDataURI(dataURI);
+            rval.setInfo(info);
+            rval.setDataTime(time);
+            return rval;
+        }
+    }
+
+}
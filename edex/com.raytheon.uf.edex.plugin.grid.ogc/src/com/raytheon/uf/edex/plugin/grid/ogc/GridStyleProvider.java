@@ -14,11 +14,17 @@ import javax.measure.Unit;
 import com.raytheon.uf.common.dataplugin.PluginException;
 import com.raytheon.uf.common.dataplugin.grid.GridRecord;
 import com.raytheon.uf.common.dataplugin.grid.util.GridStyleUtil;
+import com.raytheon.uf.common.dataplugin.level.Level;
+import com.raytheon.uf.common.dataplugin.level.MasterLevel;
 import com.raytheon.uf.common.datastorage.records.FloatDataRecord;
 import com.raytheon.uf.common.datastorage.records.IDataRecord;
 import com.raytheon.uf.common.parameter.Parameter;
 import com.raytheon.uf.common.style.ParamLevelMatchCriteria;
 import com.raytheon.uf.edex.ogc.common.IStyleLookupCallback;
+import com.raytheon.uf.edex.ogc.common.OgcException;
+import com.raytheon.uf.edex.ogc.common.OgcLayer;
+import com.raytheon.uf.edex.ogc.common.db.LayerTransformer;
+import com.raytheon.uf.edex.ogc.common.level.LevelDimUtil;
 import com.raytheon.uf.edex.plugin.grid.dao.GridDao;
 import com.raytheon.uf.edex.wms.WmsException;
 import com.raytheon.uf.edex.wms.WmsException.Code;
@@ -34,6 +40,8 @@ import com.raytheon.uf.edex.wms.styling.ColormapStyleProvider;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Jul 2, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        Style criteria from layer metadata
+ * Oct 17, 2026            agent        Skip fill values in data stats
  * 
  * </pre>
  * 
@@ -42,6 +50,11 @@ import com.raytheon.uf.edex.wms.styling.ColormapStyleProvider;
  */
 public class GridStyleProvider extends ColormapStyleProvider<GridRecord> {
 
+    /* value stored for missing grid points */
+    private static final float GRID_FILL_VALUE = -999999f;
+
+    protected LayerTransformer<GridDimension, GridParamLayer> transformer;
+
     /**
      * @param styleLibraryFileName
      * @param defaultColormap
@@ -58,6 +71,72 @@ public class GridStyleProvider extends ColormapStyleProvider<GridRecord> {
         super(callback);
     }
 
+    /**
+     * @param callback
+     * @param transformer
+     *            used to create style criteria from layer metadata
+     * @param defaultColormap
+     */
+    public GridStyleProvider(IStyleLookupCallback<GridRecord> callback,
+            LayerTransformer<GridDimension, GridParamLayer> transformer,
+            String defaultColormap) {
+        super(callback, defaultColormap);
+        this.transformer = transformer;
+    }
+
+    @Override
+    protected ParamLevelMatchCriteria getCriteria(String layerName)
+            throws WmsException {
+        if (transformer == null) {
+            return super.getCriteria(layerName);
+        }
+        String[] parts = layerName.split(OgcLayer.keySeparator);
+        if (parts.length < 4) {
+            throw new WmsException(Code.LayerNotDefined,
+                    "Invalid layer name: " + layerName);
+        }
+        GridParamLayer layer;
+        Level level;
+        try {
+            layer = GridRecordFinder.getLayer(transformer, layerName);
+            level = getDefaultLevel(layer, parts[3]);
+        } catch (OgcException e) {
+            throw new WmsException(e);
+        }
+        GridRecord record = new GridRecord();
+        record.setDatasetId(parts[0]);
+        record.setParameter(new Parameter(GridRecordFinder
+                .ogcToDbParameter(layer.getParameter())));
+        record.setLevel(level);
+        return getCriteria(record);
+    }
+
+    /**
+     * @param layer
+     * @param levelName
+     *            master level name
+     * @return lowest level advertised by layer
+     * @throws OgcException
+     */
+    protected Level getDefaultLevel(GridParamLayer layer, String levelName)
+            throws OgcException {
+        GridDimension dim = layer.getDimension(LevelDimUtil.LEVEL_DIM_PREFIX
+                + levelName);
+        Level rval = null;
+        if (dim != null) {
+            String value = dim.getDefaultValue(layer);
+            if (value != null) {
+                rval = LevelDimUtil.parseLevel(dim.getName(), value,
+                        dim.getUnits());
+            }
+        }
+        if (rval == null) {
+            rval = new Level();
+            rval.setMasterLevel(new MasterLevel(levelName));
+        }
+        return rval;
+    }
+
     @Override
     protected ParamLevelMatchCriteria getCriteria(GridRecord record)
             throws WmsException {
@@ -70,6 +149,11 @@ public class GridStyleProvider extends ColormapStyleProvider<GridRecord> {
         return parameter.getUnit();
     }
 
+    @Override
+    protected boolean isNoData(float value) {
+        return value == GRID_FILL_VALUE;
+    }
+
     @Override
     protected Object getRawData(GridRecord record) throws WmsException {
         Object data;
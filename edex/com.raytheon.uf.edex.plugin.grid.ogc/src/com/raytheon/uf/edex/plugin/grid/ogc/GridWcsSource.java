@@ -37,7 +37,6 @@ import javax.xml.bind.DatatypeConverter;
 
 import org.apache.commons.collections.map.LRUMap;
 import org.geotools.geometry.jts.ReferencedEnvelope;
-import org.geotools.referencing.CRS;
 import org.hibernate.Criteria;
 import org.hibernate.criterion.Conjunction;
 import org.hibernate.criterion.Criterion;
@@ -59,6 +58,7 @@ import com.raytheon.uf.edex.ogc.common.db.SimpleDimension;
 import com.raytheon.uf.edex.ogc.common.level.LevelDimUtil;
 import com.raytheon.uf.edex.ogc.common.spatial.AltUtil;
 import com.raytheon.uf.edex.ogc.common.spatial.Composite3DBoundingBox;
+import com.raytheon.uf.edex.ogc.common.spatial.CrsLookup;
 import com.raytheon.uf.edex.ogc.common.spatial.VerticalCoordinate;
 import com.raytheon.uf.edex.ogc.common.spatial.VerticalCoordinate.Reference;
 import com.raytheon.uf.edex.wcs.WcsException;
@@ -83,6 +83,7 @@ import ucar.units.UnitFormatManager;
  * ------------ ---------- ----------- --------------------------
  * May 6, 2013             bclement     Initial creation
  * May 8, 2019  7596       tgurney      Fixes for Units upgrade
+ * Oct 17, 2026            agent        parse native CRS through cache
  * 
  * </pre>
  * 
@@ -210,7 +211,7 @@ public class GridWcsSource extends
                     rval.add(new Composite3DBoundingBox(crs84Horiz, vert));
                     try {
                         GridLayer griblayer = (GridLayer) layer;
-                        CoordinateReferenceSystem crs = CRS.parseWKT(griblayer
+                        CoordinateReferenceSystem crs = CrsLookup.parseWKT(griblayer
                                 .getCrsWkt());
                         ReferencedEnvelope nativeHoriz = new ReferencedEnvelope(
                                 griblayer.getNativeMinX(),
@@ -11,9 +11,12 @@ package com.raytheon.uf.edex.plugin.grid.ogc;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
 
 import org.apache.commons.lang.StringUtils;
@@ -23,7 +26,9 @@ import com.raytheon.uf.edex.ogc.common.OgcLayer;
 import com.raytheon.uf.edex.ogc.common.db.ILayerCache;
 
 /**
- * Layer cache adapter to split composite levels into parameter levels
+ * Layer cache adapter to split composite levels into parameter levels.
+ * Parameter layers are built once per version of the composite layer cache
+ * and shared until the version changes, they must not be modified.
  * 
  * <pre>
  * 
@@ -32,6 +37,10 @@ import com.raytheon.uf.edex.ogc.common.db.ILayerCache;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Jun 26, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        added createParamLayerName()
+ * Oct 17, 2026            agent        added getVersion()
+ * Oct 17, 2026            agent        reuse parameter layers until version
+ *                                      changes
  * 
  * </pre>
  * 
@@ -42,6 +51,8 @@ public class GridWmsLayerCache implements ILayerCache<GridDimension, GridLayer>
 
     private final ILayerCache<GridDimension, GridCompositeLayer> cache;
 
+    private volatile Snapshot snapshot;
+
     /**
      * @param cache
      */
@@ -50,17 +61,43 @@ public class GridWmsLayerCache implements ILayerCache<GridDimension, GridLayer>
         this.cache = cache;
     }
 
+    /**
+     * @return unmodifiable list of parameter layers, shared and must not be
+     *         modified
+     */
     @Override
     public List<GridLayer> getLayers() throws OgcException {
+        return getSnapshot().layers;
+    }
+
+    /**
+     * @return parameter layers for the current version of the composite
+     *         layers
+     * @throws OgcException
+     */
+    private Snapshot getSnapshot() throws OgcException {
+        Snapshot rval = snapshot;
+        // read version first, a change while building forces a rebuild
+        long version = cache.getVersion();
+        if (rval != null && rval.version == version) {
+            return rval;
+        }
         List<GridCompositeLayer> origLayers = cache.getLayers();
-        List<GridLayer> rval = new ArrayList<GridLayer>(origLayers.size());
+        List<GridLayer> layers = new ArrayList<GridLayer>(origLayers.size());
+        Map<String, GridLayer> byName = new HashMap<String, GridLayer>(
+                origLayers.size());
         for (GridCompositeLayer orig : origLayers) {
             String[] parts = StringUtils.split(orig.getName(),
                     OgcLayer.keySeparator);
             for (String param : orig.getParameters()) {
-                rval.add(getParamLayer(orig, parts, param));
+                GridLayer layer = getParamLayer(orig, parts, param);
+                layers.add(layer);
+                byName.put(layer.getName(), layer);
             }
         }
+        rval = new Snapshot(version, Collections.unmodifiableList(layers),
+                byName);
+        snapshot = rval;
         return rval;
     }
 
@@ -85,15 +122,44 @@ public class GridWmsLayerCache implements ILayerCache<GridDimension, GridLayer>
      */
     private GridLayer getParamLayer(GridCompositeLayer orig, String[] parts,
             String param) {
+        return getParamLayer(orig, createParamLayerName(parts, param), param);
+    }
+
+    /**
+     * @param compositeName
+     *            name of composite layer
+     * @param param
+     * @return name of parameter layer
+     */
+    public static String createParamLayerName(String compositeName,
+            String param) {
+        return createParamLayerName(
+                StringUtils.split(compositeName, OgcLayer.keySeparator), param);
+    }
+
+    /**
+     * @param parts
+     *            name of composite layer split on key separator
+     * @param param
+     * @return name of parameter layer
+     */
+    private static String createParamLayerName(String[] parts, String param) {
         LinkedList<String> partList = new LinkedList<String>(
                 Arrays.asList(parts));
         partList.add(parts.length - 1, param);
-        return getParamLayer(orig,
-                StringUtils.join(partList, OgcLayer.keySeparator), param);
+        return StringUtils.join(partList, OgcLayer.keySeparator);
     }
 
+    /**
+     * @return layer from the current snapshot if it is up to date, shared and
+     *         must not be modified
+     */
     @Override
     public GridLayer getLayer(String name) throws OgcException {
+        Snapshot current = snapshot;
+        if (current != null && current.version == cache.getVersion()) {
+            return current.byName.get(name);
+        }
         String[] parts = StringUtils.split(name, OgcLayer.keySeparator);
         LinkedList<String> partList = new LinkedList<String>(
                 Arrays.asList(parts));
@@ -119,4 +185,28 @@ public class GridWmsLayerCache implements ILayerCache<GridDimension, GridLayer>
         return rval;
     }
 
+    @Override
+    public long getVersion() {
+        return cache.getVersion();
+    }
+
+    /**
+     * Parameter layers built from a version of the composite layers
+     */
+    private static class Snapshot {
+
+        private final long version;
+
+        private final List<GridLayer> layers;
+
+        private final Map<String, GridLayer> byName;
+
+        public Snapshot(long version, List<GridLayer> layers,
+                Map<String, GridLayer> byName) {
+            this.version = version;
+            this.layers = layers;
+            this.byName = byName;
+        }
+    }
+
 }
@@ -23,12 +23,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+
+import com.raytheon.uf.common.dataplugin.PluginDataObject;
 import com.raytheon.uf.common.dataplugin.PluginException;
 import com.raytheon.uf.common.dataplugin.PluginProperties;
 import com.raytheon.uf.common.dataplugin.grid.GridRecord;
 import com.raytheon.uf.edex.database.query.DatabaseQuery;
 import com.raytheon.uf.edex.ogc.common.OgcException;
 import com.raytheon.uf.edex.ogc.common.db.LayerTransformer;
+import com.raytheon.uf.edex.ogc.common.reprojection.ReferencedDataRecord;
 import com.raytheon.uf.edex.wms.WmsException;
 import com.raytheon.uf.edex.wms.WmsException.Code;
 import com.raytheon.uf.edex.wms.reg.DefaultWmsSource;
@@ -45,6 +50,10 @@ import com.raytheon.uf.edex.wms.styling.ICoverageStyleProvider;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * May 6, 2013             bclement     Initial creation
+ * Oct 17, 2026            agent        Style criteria from layer metadata
+ * Oct 17, 2026            agent        Resolve records from record index
+ * Oct 17, 2026            agent        Fall back to database when indexed
+ *                                      record can't be read
  * 
  * </pre>
  * 
@@ -53,7 +62,9 @@ public class GridWmsSource extends
         DefaultWmsSource<GridDimension, GridParamLayer, GridRecord> {
 
     protected ColormapStyleProvider<GridRecord> styler = new GridStyleProvider(
-            this, "Grid/Default");
+            this, transformer, "Grid/Default");
+
+    protected GridRecordIndex index;
 
     public GridWmsSource(PluginProperties props,
             LayerTransformer<GridDimension, GridParamLayer> transformer)
@@ -61,6 +72,21 @@ public class GridWmsSource extends
         super(props, props.getPluginName(), transformer);
     }
 
+    /**
+     * @param props
+     * @param transformer
+     * @param collector
+     *            provides index used to find records without querying the
+     *            database
+     * @throws PluginException
+     */
+    public GridWmsSource(PluginProperties props,
+            LayerTransformer<GridDimension, GridParamLayer> transformer,
+            GridLayerCollector collector) throws PluginException {
+        this(props, transformer);
+        this.index = collector.getIndex();
+    }
+
     @Override
     protected GridRecord getRecord(String layer, String time, String elevation,
             Map<String, String> dimensions) throws WmsException {
@@ -68,8 +94,8 @@ public class GridWmsSource extends
         List<GridRecord> res;
         try {
             transformer = getTransformer();
-            res = GridRecordFinder.findWms(transformer, key, layer, time,
-                    dimensions);
+            res = GridRecordFinder.findWms(transformer, index, key, layer,
+                    time, dimensions);
         } catch (OgcException e) {
             WmsException err = new WmsException(e);
             if (err.getCode().equals(Code.InternalServerError)) {
@@ -87,6 +113,61 @@ public class GridWmsSource extends
         return res.get(0);
     }
 
+    @Override
+    public ReferencedDataRecord getDataRecord(PluginDataObject record,
+            ReferencedEnvelope envelope) throws WmsException {
+        try {
+            return super.getDataRecord(record, envelope);
+        } catch (WmsException e) {
+            GridRecord stored = findStored(record);
+            if (stored == null) {
+                throw e;
+            }
+            return super.getDataRecord(stored, envelope);
+        }
+    }
+
+    @Override
+    public GridCoverage2D getGridCoverage(PluginDataObject record,
+            ReferencedEnvelope envelope) throws WmsException {
+        try {
+            return super.getGridCoverage(record, envelope);
+        } catch (WmsException e) {
+            GridRecord stored = findStored(record);
+            if (stored == null) {
+                throw e;
+            }
+            return super.getGridCoverage(stored, envelope);
+        }
+    }
+
+    /**
+     * Called when the data for a record can't be read. Records found in the
+     * index may have been purged or stored again since they were indexed, the
+     * index entry is removed and the record is looked up in the database.
+     * 
+     * @param record
+     * @return record stored in database, null if the index is disabled or
+     *         no other record is stored
+     */
+    private GridRecord findStored(PluginDataObject record) {
+        if (index == null || !(record instanceof GridRecord)) {
+            return null;
+        }
+        GridRecord rec = (GridRecord) record;
+        index.remove(rec);
+        try {
+            GridRecord rval = GridRecordFinder.findStored(key, rec);
+            if (rval == null || rval.getId() == rec.getId()) {
+                return null;
+            }
+            return rval;
+        } catch (OgcException e) {
+            log.error("Problem finding stored record for: " + record, e);
+            return null;
+        }
+    }
+
     @Override
     protected ICoverageStyleProvider<GridRecord> getStyleProvider(String layer)
             throws WmsException {
@@ -11,10 +11,12 @@ package com.raytheon.uf.edex.wcs;
 
 import java.util.Map;
 
+import javax.activation.DataHandler;
+
 import net.opengis.wcs.v_1_1_2.CoveragesType;
 
 /**
- * Container object to group coverage metadata with raw byte data
+ * Container object to group coverage metadata with attachment data
  * 
  * <pre>
  * 
@@ -23,6 +25,7 @@ import net.opengis.wcs.v_1_1_2.CoveragesType;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Mar 19, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        Data is held as data handlers
  * 
  * </pre>
  * 
@@ -33,7 +36,7 @@ public class CoveragesHolder {
 
     protected CoveragesType metadata;
 
-    protected Map<String, byte[]> data;
+    protected Map<String, DataHandler> data;
 
     protected String contentType;
 
@@ -41,7 +44,8 @@ public class CoveragesHolder {
      * @param metadata
      * @param data
      */
-    public CoveragesHolder(CoveragesType metadata, Map<String, byte[]> data) {
+    public CoveragesHolder(CoveragesType metadata,
+            Map<String, DataHandler> data) {
         super();
         this.metadata = metadata;
         this.data = data;
@@ -72,7 +76,7 @@ public class CoveragesHolder {
     /**
      * @return the data
      */
-    public Map<String, byte[]> getData() {
+    public Map<String, DataHandler> getData() {
         return data;
     }
 
@@ -80,7 +84,7 @@ public class CoveragesHolder {
      * @param data
      *            the data to set
      */
-    public void setData(Map<String, byte[]> data) {
+    public void setData(Map<String, DataHandler> data) {
         this.data = data;
     }
 
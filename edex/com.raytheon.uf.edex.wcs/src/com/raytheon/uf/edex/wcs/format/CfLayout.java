@@ -0,0 +1,479 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wcs.format;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+import org.geotools.coverage.grid.GridEnvelope2D;
+import org.geotools.coverage.grid.GridGeometry2D;
+import org.geotools.coverage.grid.InvalidGridGeometryException;
+import org.geotools.geometry.DirectPosition2D;
+import org.geotools.parameter.Parameter;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.operation.transform.ConcatenatedTransform;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.metadata.spatial.PixelOrientation;
+import org.opengis.parameter.GeneralParameterValue;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.cs.CartesianCS;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import com.raytheon.uf.common.geospatial.MapUtil;
+import com.raytheon.uf.common.nc4.cf.CfConstants;
+import com.raytheon.uf.common.nc4.cf.CfGridMapper;
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.edex.wcs.WcsException;
+import com.raytheon.uf.edex.wcs.WcsException.Code;
+import com.raytheon.uf.edex.wcs.reg.CoverageDimensions;
+import com.raytheon.uf.edex.wcs.reg.CoverageField;
+import com.raytheon.uf.edex.wcs.reg.CoverageTAxis;
+import com.raytheon.uf.edex.wcs.reg.CoverageXYAxis;
+import com.raytheon.uf.edex.wcs.reg.CoverageZAxis;
+
+/**
+ * Climate and forecast (CF) layout of the dimensions of a coverage. Shared by
+ * {@link NetCdfFormatter} and {@link CfStreamWriter} so that coverages written
+ * to a file or a stream have the same dimensions, coordinates and grid
+ * mappings. Fields on the same axes share dimensions.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class CfLayout {
+
+    private static final IUFStatusHandler log = UFStatus
+            .getHandler(CfLayout.class);
+
+    private static final Pattern PARAM_PATTERN = Pattern
+            .compile("^(.*)(_([0-9]+))$");
+
+    private final List<Horizontal> horizontals = new ArrayList<Horizontal>();
+
+    private final List<Vertical> verticals = new ArrayList<Vertical>();
+
+    private final List<Axis> times = new ArrayList<Axis>();
+
+    private final List<FieldLayout> fields;
+
+    /**
+     * @param fields
+     * @throws Exception
+     *             if the horizontal axes can't be computed
+     */
+    public CfLayout(List<CoverageField> fields) throws Exception {
+        Map<CoverageXYAxis, Horizontal> horizMap = new HashMap<CoverageXYAxis, Horizontal>();
+        Map<CoverageZAxis, Vertical> vertMap = new HashMap<CoverageZAxis, Vertical>();
+        Map<CoverageTAxis, Axis> timeMap = new HashMap<CoverageTAxis, Axis>();
+        this.fields = new ArrayList<FieldLayout>(fields.size());
+        for (CoverageField field : fields) {
+            CoverageDimensions dims = field.getDimensions();
+            CoverageXYAxis xyAxis = dims.getXyAxis();
+            Horizontal horiz = horizMap.get(xyAxis);
+            if (horiz == null) {
+                horiz = createXY(xyAxis, horizMap.size());
+                horizMap.put(xyAxis, horiz);
+                horizontals.add(horiz);
+            }
+            CoverageZAxis zAxis = dims.getZAxis();
+            Vertical vert = vertMap.get(zAxis);
+            if (vert == null) {
+                vert = new Vertical("level" + vertMap.size(),
+                        zAxis.getValue(), zAxis.getUnits(),
+                        zAxis.isUpIsPositive());
+                vertMap.put(zAxis, vert);
+                verticals.add(vert);
+            }
+            CoverageTAxis tAxis = dims.getTAxis();
+            Axis time = timeMap.get(tAxis);
+            if (time == null) {
+                time = new Axis("time" + timeMap.size(), "time", null,
+                        CfConstants.UNIX_TIME_UNITS, "T",
+                        getTimes(tAxis.getTimes()));
+                timeMap.put(tAxis, time);
+                times.add(time);
+            }
+            this.fields.add(new FieldLayout(field, horiz, vert, time));
+        }
+    }
+
+    /**
+     * Create horizontal axes
+     *
+     * @param xyAxis
+     * @param count
+     *            number of horizontal axes already created
+     * @return
+     * @throws Exception
+     */
+    private static Horizontal createXY(CoverageXYAxis xyAxis, int count)
+            throws Exception {
+        CoordinateReferenceSystem crs = xyAxis.getEnvelope()
+                .getCoordinateReferenceSystem();
+        boolean geographic = crs instanceof GeographicCRS;
+        if (!geographic && !(crs instanceof ProjectedCRS)) {
+            log.error("Unsupport CRS object type: " + crs.getClass(),
+                    new Exception());
+            throw new WcsException(Code.InternalServerError);
+        }
+        GridGeometry2D geom = xyAxis.getGridGeometry();
+        double[][] lonLatAxis = getLonLatAxis(geom);
+        Axis lon = new Axis("lon" + count, "longitude", null,
+                CfConstants.LON_UNITS, geographic ? "X" : null,
+                lonLatAxis[0]);
+        Axis lat = new Axis("lat" + count, "latitude", null,
+                CfConstants.LAT_UNITS, geographic ? "Y" : null,
+                lonLatAxis[1]);
+        if (geographic) {
+            return new Horizontal(lon, lat, null, null, null, null, null);
+        }
+
+        ProjectedCRS projected = (ProjectedCRS) crs;
+        CartesianCS cs = projected.getCoordinateSystem();
+        double[][] xyVals = getXYAxis(geom, projected);
+        Axis x = new Axis("x" + count, CfConstants.X_STD_NAME, null, cs
+                .getAxis(0).getUnit().toString(), "X", xyVals[0]);
+        Axis y = new Axis("y" + count, CfConstants.Y_STD_NAME, null, cs
+                .getAxis(1).getUnit().toString(), "Y", xyVals[1]);
+
+        ParameterValueGroup params = projected.getConversionFromBase()
+                .getParameterValues();
+        String projName = params.getDescriptor().getName().getCode();
+        return new Horizontal(lon, lat, x, y, projName, projName + count,
+                getMappingAttributes(params));
+    }
+
+    /**
+     * Map parameter base names to values ordered by parameter number
+     *
+     * @param params
+     * @return values are Number[] or String[]
+     */
+    private static Map<String, Object[]> getMappingAttributes(
+            ParameterValueGroup params) {
+        Map<String, List<NumberedValue>> paramMap = new LinkedHashMap<String, List<NumberedValue>>();
+        for (GeneralParameterValue v : params.values()) {
+            Parameter<?> p = (Parameter<?>) v;
+            String paramName = p.getDescriptor().getName().getCode().trim();
+            Matcher m = PARAM_PATTERN.matcher(paramName);
+            int number = 0;
+            if (m.matches()) {
+                paramName = m.group(1);
+                number = Integer.parseInt(m.group(3));
+            }
+            paramName = CfGridMapper.getMappingAttributeName(paramName);
+            List<NumberedValue> values = paramMap.get(paramName);
+            if (values == null) {
+                values = new ArrayList<NumberedValue>(2);
+                paramMap.put(paramName, values);
+            }
+            values.add(new NumberedValue(number, p.getValue()));
+        }
+        Map<String, Object[]> rval = new LinkedHashMap<String, Object[]>();
+        for (Entry<String, List<NumberedValue>> e : paramMap.entrySet()) {
+            List<NumberedValue> list = e.getValue();
+            Collections.sort(list);
+            Object[] vals;
+            if (list.get(0).value instanceof Number) {
+                vals = new Number[list.size()];
+                for (int i = 0; i < vals.length; ++i) {
+                    vals[i] = (Number) list.get(i).value;
+                }
+            } else {
+                vals = new String[list.size()];
+                for (int i = 0; i < vals.length; ++i) {
+                    vals[i] = list.get(i).value.toString();
+                }
+            }
+            rval.put(e.getKey(), vals);
+        }
+        return rval;
+    }
+
+    /**
+     * Convert times to UNIX timestamps with milliseconds as decimal
+     *
+     * @param times
+     * @return
+     */
+    private static double[] getTimes(Date[] times) {
+        double[] rval = new double[times.length];
+        for (int i = 0; i < rval.length; ++i) {
+            rval[i] = times[i].getTime() / 1000;
+        }
+        return rval;
+    }
+
+    /**
+     * Convert geometry to CRS84.
+     *
+     * @param geom
+     * @return array of size 2. Index 0 contains longitude, index 1 contains
+     *         latitude. Not guaranteed to be the same length.
+     * @throws InvalidGridGeometryException
+     * @throws FactoryException
+     * @throws MismatchedDimensionException
+     * @throws TransformException
+     */
+    private static double[][] getLonLatAxis(GridGeometry2D geom)
+            throws InvalidGridGeometryException, FactoryException,
+            MismatchedDimensionException, TransformException {
+        return getXYAxis(geom, MapUtil.LATLON_PROJECTION);
+    }
+
+    /**
+     * Convert geometry to Target CRS.
+     *
+     * @param geom
+     * @param targetCRS
+     * @return
+     * @throws InvalidGridGeometryException
+     * @throws FactoryException
+     * @throws MismatchedDimensionException
+     * @throws TransformException
+     */
+    private static double[][] getXYAxis(GridGeometry2D geom,
+            CoordinateReferenceSystem targetCRS)
+            throws InvalidGridGeometryException, FactoryException,
+            MismatchedDimensionException, TransformException {
+        double[][] rval = new double[2][];
+        GridEnvelope2D gridEnv = geom.getGridRange2D();
+        MathTransform gridToCRS = geom
+                .getGridToCRS(PixelOrientation.UPPER_LEFT);
+        CoordinateReferenceSystem origCrs = geom.getCoordinateReferenceSystem();
+        MathTransform toTarget = CRS
+                .findMathTransform(origCrs, targetCRS, true);
+        MathTransform transform = ConcatenatedTransform.create(gridToCRS,
+                toTarget);
+        rval[0] = new double[gridEnv.width];
+        rval[1] = new double[gridEnv.height];
+        int maxLen = Math.max(gridEnv.width, gridEnv.height);
+        int xIndex = 0;
+        int yIndex = 0;
+        for (int i = 0; i < maxLen; ++i) {
+            DirectPosition2D point = new DirectPosition2D(xIndex, yIndex);
+            DirectPosition2D target = new DirectPosition2D();
+            transform.transform(point, target);
+            rval[0][xIndex] = target.getX();
+            rval[1][yIndex] = target.getY();
+            xIndex = Math.min(++xIndex, gridEnv.width - 1);
+            yIndex = Math.min(++yIndex, gridEnv.height - 1);
+        }
+        return rval;
+    }
+
+    /**
+     * @return horizontal axes in the order they are first used by fields
+     */
+    public List<Horizontal> getHorizontals() {
+        return horizontals;
+    }
+
+    /**
+     * @return vertical axes in the order they are first used by fields
+     */
+    public List<Vertical> getVerticals() {
+        return verticals;
+    }
+
+    /**
+     * @return time axes in the order they are first used by fields
+     */
+    public List<Axis> getTimeAxes() {
+        return times;
+    }
+
+    /**
+     * @return axes of each field in coverage order
+     */
+    public List<FieldLayout> getFields() {
+        return fields;
+    }
+
+    /**
+     * Dimension and its coordinate variable
+     */
+    public static class Axis {
+
+        public final String name;
+
+        /* may be null */
+        public final String standardName;
+
+        /* may be null */
+        public final String longName;
+
+        public final String units;
+
+        /* value of axis attribute, may be null */
+        public final String axis;
+
+        public final double[] values;
+
+        public Axis(String name, String standardName, String longName,
+                String units, String axis, double[] values) {
+            this.name = name;
+            this.standardName = standardName;
+            this.longName = longName;
+            this.units = units;
+            this.axis = axis;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Vertical axis
+     */
+    public static class Vertical extends Axis {
+
+        public final boolean upIsPositive;
+
+        public Vertical(String name, double[] values, String units,
+                boolean upIsPositive) {
+            super(name, null, "height level", units, "Z", values);
+            this.upIsPositive = upIsPositive;
+        }
+    }
+
+    /**
+     * Horizontal axes and grid mapping
+     */
+    public static class Horizontal {
+
+        public final Axis lon;
+
+        public final Axis lat;
+
+        /* projected axes, null for geographic */
+        public final Axis x;
+
+        public final Axis y;
+
+        /* value of grid mapping name attribute, null for geographic */
+        public final String projName;
+
+        /* name of grid mapping variable, null for geographic */
+        public final String gridMapping;
+
+        /* grid mapping attributes, values are Number[] or String[] */
+        public final Map<String, Object[]> mappingAttributes;
+
+        /* auxiliary coordinates, null for geographic */
+        public final String coords;
+
+        public Horizontal(Axis lon, Axis lat, Axis x, Axis y, String projName,
+                String gridMapping, Map<String, Object[]> mappingAttributes) {
+            this.lon = lon;
+            this.lat = lat;
+            this.x = x;
+            this.y = y;
+            this.projName = projName;
+            this.gridMapping = gridMapping;
+            this.mappingAttributes = mappingAttributes;
+            this.coords = gridMapping == null ? null : StringUtils.join(
+                    new String[] { lat.name, lon.name }, " ");
+        }
+
+        /**
+         * @return true if the horizontal axes are projected
+         */
+        public boolean isMapped() {
+            return gridMapping != null;
+        }
+
+        /**
+         * @return axis along the columns of the grid
+         */
+        public Axis getX() {
+            return isMapped() ? x : lon;
+        }
+
+        /**
+         * @return axis along the rows of the grid
+         */
+        public Axis getY() {
+            return isMapped() ? y : lat;
+        }
+    }
+
+    /**
+     * Axes of a field
+     */
+    public static class FieldLayout {
+
+        public final CoverageField field;
+
+        public final Horizontal horiz;
+
+        public final Vertical z;
+
+        public final Axis t;
+
+        public FieldLayout(CoverageField field, Horizontal horiz, Vertical z,
+                Axis t) {
+            this.field = field;
+            this.horiz = horiz;
+            this.z = z;
+            this.t = t;
+        }
+    }
+
+    private static class NumberedValue implements Comparable<NumberedValue> {
+        public final int number;
+
+        public final Object value;
+
+        public NumberedValue(int number, Object value) {
+            this.number = number;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(NumberedValue o) {
+            return number - o.number;
+        }
+    }
+
+}
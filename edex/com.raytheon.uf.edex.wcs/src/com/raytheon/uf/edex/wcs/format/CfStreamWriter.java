@@ -0,0 +1,343 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wcs.format;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.raytheon.uf.common.datastorage.records.IDataRecord;
+import com.raytheon.uf.common.nc4.NcVariable;
+import com.raytheon.uf.common.nc4.cf.CfConstants;
+import com.raytheon.uf.edex.ogc.common.reprojection.ReferencedDataRecord;
+import com.raytheon.uf.edex.wcs.format.CfLayout.Axis;
+import com.raytheon.uf.edex.wcs.format.CfLayout.FieldLayout;
+import com.raytheon.uf.edex.wcs.format.CfLayout.Horizontal;
+import com.raytheon.uf.edex.wcs.format.CfLayout.Vertical;
+import com.raytheon.uf.edex.wcs.format.NcStreamWriter.Dimension;
+import com.raytheon.uf.edex.wcs.format.NcStreamWriter.Type;
+import com.raytheon.uf.edex.wcs.format.NcStreamWriter.Variable;
+import com.raytheon.uf.edex.wcs.reg.Coverage;
+import com.raytheon.uf.edex.wcs.reg.CoverageField;
+import com.raytheon.uf.edex.wcs.reg.TemporalCube;
+import com.raytheon.uf.edex.wcs.reg.VerticalSlice;
+
+/**
+ * Writes coverage data to a stream as netcdf classic format using climate and
+ * forecast (CF) conventions. Uses the same {@link CfLayout} as
+ * {@link NetCdfFormatter} but data is written one slice at a time as it is retrieved so the coverage
+ * is never held on disk or in memory.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        Prefetch slices
+ * Oct 17, 2026            agent        Share layout with NetCdfFormatter
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class CfStreamWriter {
+
+    private static final String CONVENTIONS_ATTR = "Conventions";
+
+    private static final String CONVENTIONS = "CF-1.6";
+
+    private static final String AXIS_ATTR = "axis";
+
+    private static final String POSITIVE_ATTR = "positive";
+
+    private final Coverage coverage;
+
+    private final NcStreamWriter nc = new NcStreamWriter();
+
+    /* coordinate variable values in definition order */
+    private final Map<Variable, double[]> coordValues = new LinkedHashMap<Variable, double[]>();
+
+    /**
+     * @param coverage
+     */
+    public CfStreamWriter(Coverage coverage) {
+        this.coverage = coverage;
+    }
+
+    /**
+     * Write coverage to stream. Stream is not closed.
+     *
+     * @param out
+     * @throws Exception
+     */
+    public void write(OutputStream out) throws Exception {
+        nc.getGlobals().putStringAttribute(CONVENTIONS_ATTR, CONVENTIONS);
+        nc.getGlobals().putStringAttribute(CfConstants.COVERAGE_ID_ATTR,
+                coverage.getName());
+        List<CoverageField> fields = coverage.getFields();
+        /* all dimensions are defined first so their data comes first */
+        List<FieldDims> dims = defineDims(new CfLayout(fields));
+        List<FieldVar> vars = new ArrayList<FieldVar>(fields.size());
+        Iterator<FieldDims> iter = dims.iterator();
+        for (CoverageField field : fields) {
+            vars.add(define(iter.next(), field));
+        }
+        nc.endDefinition(out);
+        for (Entry<Variable, double[]> e : coordValues.entrySet()) {
+            nc.write(e.getKey(), e.getValue());
+        }
+        for (FieldVar var : vars) {
+            write(var);
+        }
+        nc.finish();
+    }
+
+    /**
+     * Write 4D cube in field to variable, missing slices are filled. Upcoming
+     * slices are retrieved while each slice is written.
+     *
+     * @param fieldVar
+     * @throws Exception
+     */
+    private void write(FieldVar fieldVar) throws Exception {
+        CoverageField field = fieldVar.field;
+        Variable var = fieldVar.var;
+        long sliceSize = (long) fieldVar.dims.horiz.x.getLength()
+                * fieldVar.dims.horiz.y.getLength();
+        int levels = fieldVar.dims.z.getLength();
+        List<TemporalCube> timeCube = field.getTimeCube();
+        try (SlicePrefetcher prefetcher = new SlicePrefetcher(timeCube)) {
+            for (TemporalCube cube : timeCube) {
+                int count = cube.getSlices().size();
+                if (count > levels) {
+                    throw new Exception("Too many levels for field "
+                            + field.getName() + ", expected " + levels);
+                }
+                for (int j = 0; j < count; ++j) {
+                    IDataRecord record = prefetcher.next().getRecord();
+                    long[] sizes = record.getSizes();
+                    if (sizes[0] * sizes[1] != sliceSize) {
+                        throw new Exception("Slice of field "
+                                + field.getName() + " has "
+                                + (sizes[0] * sizes[1]) + " values, expected "
+                                + sliceSize);
+                    }
+                    fieldVar.writer.write(nc, var, record);
+                }
+                if (count < levels) {
+                    nc.fill(var, (levels - count) * sliceSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Define variable for field
+     *
+     * @param dims
+     * @param field
+     * @return
+     * @throws Exception
+     */
+    private FieldVar define(FieldDims dims, CoverageField field)
+            throws Exception {
+        List<TemporalCube> timeCube = field.getTimeCube();
+        TemporalCube firstCube = timeCube.get(0);
+        VerticalSlice firstSlice = firstCube.getSlices().get(0);
+        ReferencedDataRecord firstRecord = firstSlice.getRecord().get(true);
+        NcWriter<? extends NcVariable> writer = NcWriter.create(firstRecord
+                .getRecord());
+        Type type = writer.getStreamType();
+        Variable var = nc.defineVar(field.getName(), type, dims.t, dims.z,
+                dims.horiz.y, dims.horiz.x);
+        var.putStringAttribute(CfConstants.STANDARD_NAME_ATTR,
+                field.getStandardName());
+        var.putStringAttribute(CfConstants.LONG_NAME_ATTR,
+                field.getStandardName());
+        var.putStringAttribute(CfConstants.UNITS_ATTR, field.getUnits());
+        Number padding = field.getPaddingValue();
+        if (padding != null) {
+            var.putNumberAttribute(CfConstants.MISSING_VAL_ATTR, type,
+                    new Number[] { padding });
+            var.setFill(padding);
+        }
+        if (dims.layout.isMapped()) {
+            var.putStringAttribute(CfConstants.GRID_MAP_NAME_ATTR,
+                    dims.layout.gridMapping);
+            var.putStringAttribute(CfConstants.COORDS_ATTR, dims.layout.coords);
+        }
+        return new FieldVar(field, dims, var, writer);
+    }
+
+    /**
+     * Define dimensions for fields, fields on the same axes share dimensions
+     *
+     * @param layout
+     * @return dimensions for each field
+     */
+    private List<FieldDims> defineDims(CfLayout layout) {
+        Map<Axis, Dimension> dimMap = new HashMap<Axis, Dimension>();
+        Map<Horizontal, HorizontalDims> horizMap = new HashMap<Horizontal, HorizontalDims>();
+        for (Horizontal horiz : layout.getHorizontals()) {
+            Dimension lon = defineCoord(horiz.lon);
+            Dimension lat = defineCoord(horiz.lat);
+            if (horiz.isMapped()) {
+                Dimension x = defineCoord(horiz.x);
+                Dimension y = defineCoord(horiz.y);
+                defineProjVar(horiz);
+                horizMap.put(horiz, new HorizontalDims(x, y));
+            } else {
+                horizMap.put(horiz, new HorizontalDims(lon, lat));
+            }
+        }
+        for (Vertical vert : layout.getVerticals()) {
+            dimMap.put(vert, defineCoord(vert));
+        }
+        for (Axis time : layout.getTimeAxes()) {
+            dimMap.put(time, defineCoord(time));
+        }
+        List<FieldDims> rval = new ArrayList<FieldDims>(layout.getFields()
+                .size());
+        for (FieldLayout field : layout.getFields()) {
+            rval.add(new FieldDims(field.horiz, horizMap.get(field.horiz),
+                    dimMap.get(field.z), dimMap.get(field.t)));
+        }
+        return rval;
+    }
+
+    /**
+     * Define grid projection mapping variable. The variable has no data, only
+     * attributes.
+     *
+     * @param horiz
+     * @return
+     */
+    private Variable defineProjVar(Horizontal horiz) {
+        Variable projVar = nc.defineVar(horiz.gridMapping, Type.BYTE);
+        projVar.putStringAttribute(CfConstants.GRID_MAP_NAME_ATTR,
+                horiz.projName);
+        for (Entry<String, Object[]> e : horiz.mappingAttributes.entrySet()) {
+            Object[] vals = e.getValue();
+            if (vals instanceof Number[]) {
+                projVar.putNumberAttribute(e.getKey(), (Number[]) vals);
+            } else {
+                projVar.putStringsAttribute(e.getKey(), (String[]) vals);
+            }
+        }
+        return projVar;
+    }
+
+    /**
+     * Define dimension and its coordinate variable for axis, values are
+     * written after definition ends
+     *
+     * @param axis
+     * @return
+     */
+    private Dimension defineCoord(Axis axis) {
+        Dimension dim = nc.defineDim(axis.name, axis.values.length);
+        Variable var = nc.defineVar(dim.getName(), Type.DOUBLE, dim);
+        if (axis.standardName != null) {
+            var.putStringAttribute(CfConstants.STANDARD_NAME_ATTR,
+                    axis.standardName);
+        }
+        if (axis.longName != null) {
+            var.putStringAttribute(CfConstants.LONG_NAME_ATTR, axis.longName);
+        }
+        var.putStringAttribute(CfConstants.UNITS_ATTR, axis.units);
+        if (axis.axis != null) {
+            var.putStringAttribute(AXIS_ATTR, axis.axis);
+        }
+        if (axis instanceof Vertical) {
+            var.putStringAttribute(POSITIVE_ATTR,
+                    ((Vertical) axis).upIsPositive ? "up" : "down");
+        }
+        coordValues.put(var, axis.values);
+        return dim;
+    }
+
+    /**
+     * Horizontal dimensions of the grid
+     */
+    private static class HorizontalDims {
+
+        public final Dimension x;
+
+        public final Dimension y;
+
+        public HorizontalDims(Dimension x, Dimension y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * Dimensions of a field
+     */
+    private static class FieldDims {
+
+        public final Horizontal layout;
+
+        public final HorizontalDims horiz;
+
+        public final Dimension z;
+
+        public final Dimension t;
+
+        public FieldDims(Horizontal layout, HorizontalDims horiz, Dimension z,
+                Dimension t) {
+            this.layout = layout;
+            this.horiz = horiz;
+            this.z = z;
+            this.t = t;
+        }
+    }
+
+    /**
+     * Field and the variable it is written to
+     */
+    private static class FieldVar {
+
+        public final CoverageField field;
+
+        public final FieldDims dims;
+
+        public final Variable var;
+
+        public final NcWriter<? extends NcVariable> writer;
+
+        public FieldVar(CoverageField field, FieldDims dims, Variable var,
+                NcWriter<? extends NcVariable> writer) {
+            this.field = field;
+            this.dims = dims;
+            this.var = var;
+            this.writer = writer;
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wcs.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+
+import com.raytheon.uf.edex.wcs.reg.Coverage;
+
+/**
+ * Attachment data handler that formats a coverage directly to the attachment
+ * stream when it is written. Used for MTOM attachments so the formatted
+ * coverage is never held in memory.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class CoverageDataHandler extends DataHandler {
+
+    private final IWcsDataFormatter formatter;
+
+    private final Coverage coverage;
+
+    /**
+     * @param formatter
+     * @param coverage
+     * @param contentType
+     */
+    public CoverageDataHandler(IWcsDataFormatter formatter, Coverage coverage,
+            String contentType) {
+        super(new CoverageDataSource(formatter, coverage, contentType));
+        this.formatter = formatter;
+        this.coverage = coverage;
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        try {
+            formatter.format(coverage, os);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to format coverage "
+                    + coverage.getName(), e);
+        }
+    }
+
+    /**
+     * Data source for consumers that read the attachment instead of having it
+     * written to them
+     */
+    private static class CoverageDataSource implements DataSource {
+
+        private final IWcsDataFormatter formatter;
+
+        private final Coverage coverage;
+
+        private final String contentType;
+
+        public CoverageDataSource(IWcsDataFormatter formatter,
+                Coverage coverage, String contentType) {
+            this.formatter = formatter;
+            this.coverage = coverage;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return formatter.format(coverage);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Unable to format coverage "
+                        + coverage.getName(), e);
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("Coverage attachments are read only");
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public String getName() {
+            return coverage.getName();
+        }
+    }
+
+}
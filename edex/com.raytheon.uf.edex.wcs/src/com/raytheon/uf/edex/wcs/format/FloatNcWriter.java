@@ -9,6 +9,8 @@
  */
 package com.raytheon.uf.edex.wcs.format;
 
+import java.io.IOException;
+
 import com.raytheon.uf.common.datastorage.records.FloatDataRecord;
 import com.raytheon.uf.common.datastorage.records.IDataRecord;
 import com.raytheon.uf.common.nc4.NcVariable;
@@ -25,6 +27,7 @@ import com.raytheon.uf.common.nc4.NetcdfException;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Mar 12, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        Added stream writing
  * 
  * </pre>
  * 
@@ -47,4 +50,15 @@ public class FloatNcWriter extends NcWriter<FloatVariable> {
         variable.putVar(start, shape, record.getFloatData());
     }
 
+    @Override
+    public NcStreamWriter.Type getStreamType() {
+        return NcStreamWriter.Type.FLOAT;
+    }
+
+    @Override
+    public void write(NcStreamWriter writer, NcStreamWriter.Variable var,
+            IDataRecord irecord) throws IOException {
+        writer.write(var, ((FloatDataRecord) irecord).getFloatData());
+    }
+
 }
@@ -21,6 +21,7 @@ package com.raytheon.uf.edex.wcs.format;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import com.raytheon.uf.edex.wcs.reg.Coverage;
 
@@ -34,6 +35,7 @@ import com.raytheon.uf.edex.wcs.reg.Coverage;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Mar 12, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        Added stream formatting
  * 
  * </pre>
  * 
@@ -65,6 +67,22 @@ public interface IWcsDataFormatter {
      */
     public InputStream format(Coverage coverage) throws Exception;
 
+    /**
+     * Format coverage to stream. Stream is not closed. Formatters that can
+     * write as data is retrieved should override this, by default the result
+     * of {@link #format(Coverage)} is copied.
+     * 
+     * @param coverage
+     * @param out
+     * @throws Exception
+     */
+    public default void format(Coverage coverage, OutputStream out)
+            throws Exception {
+        try (InputStream in = format(coverage)) {
+            in.transferTo(out);
+        }
+    }
+
     /**
      * Store coverage
      * 
@@ -0,0 +1,685 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wcs.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Writes netcdf classic format files to a stream. All dimensions and variables
+ * are defined up front, then the header is written and variable data is
+ * written in definition order without seeking. Only fixed size dimensions are
+ * supported.
+ *
+ * The 64-bit offset format is used unless a variable other than the last is
+ * too big for it, then the 64-bit data format is used.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class NcStreamWriter {
+
+    /**
+     * Netcdf classic data types
+     */
+    public static enum Type {
+        BYTE(1, 1), CHAR(2, 1), SHORT(3, 2), INT(4, 4), FLOAT(5, 4), DOUBLE(
+                6, 8);
+
+        public final int code;
+
+        public final int size;
+
+        private Type(int code, int size) {
+            this.code = code;
+            this.size = size;
+        }
+
+        /**
+         * @param value
+         * @return type that holds values of the same java type
+         */
+        public static Type of(Number value) {
+            if (value instanceof Byte) {
+                return BYTE;
+            } else if (value instanceof Short) {
+                return SHORT;
+            } else if (value instanceof Integer) {
+                return INT;
+            } else if (value instanceof Float) {
+                return FLOAT;
+            } else {
+                return DOUBLE;
+            }
+        }
+    }
+
+    /**
+     * Fixed size dimension
+     */
+    public static class Dimension {
+
+        private final int id;
+
+        private final String name;
+
+        private final int length;
+
+        private Dimension(int id, String name, int length) {
+            this.id = id;
+            this.name = name;
+            this.length = length;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Named list of values
+     */
+    private static class Attribute {
+
+        public final String name;
+
+        public final Type type;
+
+        public final Object values;
+
+        public Attribute(String name, Type type, Object values) {
+            this.name = name;
+            this.type = type;
+            this.values = values;
+        }
+    }
+
+    /**
+     * List of attributes for a variable or the file
+     */
+    public static class Attributes {
+
+        private final List<Attribute> attributes = new ArrayList<Attribute>();
+
+        /**
+         * @param name
+         * @param value
+         */
+        public void putStringAttribute(String name, String value) {
+            attributes.add(new Attribute(name, Type.CHAR, value == null ? ""
+                    : value));
+        }
+
+        /**
+         * Classic format has no string arrays, values are joined with spaces
+         *
+         * @param name
+         * @param values
+         */
+        public void putStringsAttribute(String name, String[] values) {
+            putStringAttribute(name, StringUtils.join(values, " "));
+        }
+
+        /**
+         * Attribute type is taken from the first value
+         *
+         * @param name
+         * @param values
+         */
+        public void putNumberAttribute(String name, Number[] values) {
+            putNumberAttribute(name, Type.of(values[0]), values);
+        }
+
+        /**
+         * @param name
+         * @param type
+         *            numeric type to store values as
+         * @param values
+         */
+        public void putNumberAttribute(String name, Type type,
+                Number[] values) {
+            if (type == Type.CHAR) {
+                throw new IllegalArgumentException(
+                        "Numeric attribute cannot be of type " + type);
+            }
+            attributes.add(new Attribute(name, type, values));
+        }
+    }
+
+    /**
+     * Variable definition
+     */
+    public static class Variable extends Attributes {
+
+        private final String name;
+
+        private final Type type;
+
+        private final Dimension[] dims;
+
+        private final long count;
+
+        private Number fill = 0;
+
+        private long begin;
+
+        private Variable(String name, Type type, Dimension[] dims) {
+            this.name = name;
+            this.type = type;
+            this.dims = dims;
+            long count = 1;
+            for (Dimension d : dims) {
+                count *= d.length;
+            }
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return number of values in variable
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @param fill
+         *            value used for any part of the variable that isn't
+         *            written, defaults to zero
+         */
+        public void setFill(Number fill) {
+            this.fill = fill;
+        }
+
+        /**
+         * @return size of variable data in bytes including padding
+         */
+        private long getSize() {
+            return pad(count * type.size);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /* 4 GiB minus 4, the largest padded size the 64-bit offset format holds */
+    private static final long MAX_OFFSET_VSIZE = 0xFFFFFFFCL;
+
+    private static final int NC_DIMENSION = 0x0A;
+
+    private static final int NC_VARIABLE = 0x0B;
+
+    private static final int NC_ATTRIBUTE = 0x0C;
+
+    private final Attributes globals = new Attributes();
+
+    private final List<Dimension> dims = new ArrayList<Dimension>();
+
+    private final List<Variable> vars = new ArrayList<Variable>();
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(
+            ByteOrder.BIG_ENDIAN);
+
+    private OutputStream out;
+
+    private int version;
+
+    /* index of variable currently being written */
+    private int current;
+
+    /* values left to write for current variable */
+    private long remaining;
+
+    /**
+     * @return global attributes
+     */
+    public Attributes getGlobals() {
+        return globals;
+    }
+
+    /**
+     * @param name
+     * @param length
+     * @return
+     */
+    public Dimension defineDim(String name, int length) {
+        checkDefining();
+        Dimension rval = new Dimension(dims.size(), name, length);
+        dims.add(rval);
+        return rval;
+    }
+
+    /**
+     * @param name
+     * @param type
+     * @param dims
+     *            slowest varying first, empty for scalar
+     * @return
+     */
+    public Variable defineVar(String name, Type type, Dimension... dims) {
+        checkDefining();
+        Variable rval = new Variable(name, type, dims);
+        vars.add(rval);
+        return rval;
+    }
+
+    private void checkDefining() {
+        if (out != null) {
+            throw new IllegalStateException("Definition already ended");
+        }
+    }
+
+    /**
+     * End definition and write header to stream. Stream is not closed by
+     * writer.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void endDefinition(OutputStream out) throws IOException {
+        checkDefining();
+        version = 2;
+        for (int i = 0; i < vars.size() - 1; ++i) {
+            if (vars.get(i).getSize() > MAX_OFFSET_VSIZE) {
+                version = 5;
+                break;
+            }
+        }
+        /* header length doesn't depend on offsets */
+        long offset = encodeHeader().length;
+        for (Variable v : vars) {
+            v.begin = offset;
+            offset += v.getSize();
+        }
+        this.out = out;
+        out.write(encodeHeader());
+        current = 0;
+        remaining = vars.isEmpty() ? 0 : vars.get(0).count;
+    }
+
+    /**
+     * @return encoded header using current variable offsets
+     * @throws IOException
+     */
+    private byte[] encodeHeader() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.write(new byte[] { 'C', 'D', 'F', (byte) version });
+        /* numrecs, no record dimension */
+        writeNonNeg(header, 0);
+        if (dims.isEmpty()) {
+            writeAbsent(header);
+        } else {
+            header.writeInt(NC_DIMENSION);
+            writeNonNeg(header, dims.size());
+            for (Dimension d : dims) {
+                writeName(header, d.name);
+                writeNonNeg(header, d.length);
+            }
+        }
+        writeAttributes(header, globals);
+        if (vars.isEmpty()) {
+            writeAbsent(header);
+        } else {
+            header.writeInt(NC_VARIABLE);
+            writeNonNeg(header, vars.size());
+            for (Variable v : vars) {
+                writeName(header, v.name);
+                writeNonNeg(header, v.dims.length);
+                for (Dimension d : v.dims) {
+                    writeNonNeg(header, d.id);
+                }
+                writeAttributes(header, v);
+                header.writeInt(v.type.code);
+                long vsize = v.getSize();
+                if (version == 2) {
+                    /* only allowed to overflow for the last variable */
+                    header.writeInt((int) Math.min(vsize, 0xFFFFFFFFL));
+                } else {
+                    header.writeLong(vsize);
+                }
+                header.writeLong(v.begin);
+            }
+        }
+        header.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writeAttributes(DataOutputStream header, Attributes attrs)
+            throws IOException {
+        if (attrs.attributes.isEmpty()) {
+            writeAbsent(header);
+            return;
+        }
+        header.writeInt(NC_ATTRIBUTE);
+        writeNonNeg(header, attrs.attributes.size());
+        for (Attribute a : attrs.attributes) {
+            writeName(header, a.name);
+            header.writeInt(a.type.code);
+            if (a.type == Type.CHAR) {
+                byte[] bytes = ((String) a.values)
+                        .getBytes(StandardCharsets.UTF_8);
+                writeNonNeg(header, bytes.length);
+                header.write(bytes);
+                writePadding(header, bytes.length);
+                continue;
+            }
+            Number[] values = (Number[]) a.values;
+            writeNonNeg(header, values.length);
+            for (Number n : values) {
+                writeValue(header, a.type, n);
+            }
+            writePadding(header, (long) values.length * a.type.size);
+        }
+    }
+
+    private void writeName(DataOutputStream header, String name)
+            throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        writeNonNeg(header, bytes.length);
+        header.write(bytes);
+        writePadding(header, bytes.length);
+    }
+
+    private void writeAbsent(DataOutputStream header) throws IOException {
+        header.writeInt(0);
+        writeNonNeg(header, 0);
+    }
+
+    private void writeNonNeg(DataOutputStream header, long value)
+            throws IOException {
+        if (version == 5) {
+            header.writeLong(value);
+        } else {
+            header.writeInt((int) value);
+        }
+    }
+
+    private static void writeValue(DataOutputStream header, Type type,
+            Number n) throws IOException {
+        switch (type) {
+        case BYTE:
+            header.writeByte(n.byteValue());
+            break;
+        case SHORT:
+            header.writeShort(n.shortValue());
+            break;
+        case INT:
+            header.writeInt(n.intValue());
+            break;
+        case FLOAT:
+            header.writeFloat(n.floatValue());
+            break;
+        default:
+            header.writeDouble(n.doubleValue());
+        }
+    }
+
+    private static void writePadding(DataOutputStream header, long length)
+            throws IOException {
+        for (long i = length; i < pad(length); ++i) {
+            header.writeByte(0);
+        }
+    }
+
+    /**
+     * @param length
+     * @return length rounded up to 4 byte boundary
+     */
+    private static long pad(long length) {
+        return (length + 3) & ~3L;
+    }
+
+    /**
+     * Prepare to write count values to variable. Any variables defined before
+     * it that are not complete are filled.
+     *
+     * @param var
+     * @param count
+     * @throws IOException
+     */
+    private void start(Variable var, long count) throws IOException {
+        if (out == null) {
+            throw new IllegalStateException("Definition not ended");
+        }
+        int index = vars.indexOf(var);
+        if (index < current) {
+            throw new IllegalStateException("Variable " + var.name
+                    + " already written, variables must be written in order");
+        }
+        while (current < index) {
+            finishCurrent();
+        }
+        if (count > remaining) {
+            throw new IllegalStateException("Too much data for variable "
+                    + var.name + ": " + count + " values, " + remaining
+                    + " left");
+        }
+        remaining -= count;
+    }
+
+    /**
+     * Fill rest of current variable and move to the next one
+     *
+     * @throws IOException
+     */
+    private void finishCurrent() throws IOException {
+        Variable var = vars.get(current);
+        long count = remaining;
+        remaining = 0;
+        putFill(var, count);
+        long written = var.count * var.type.size;
+        for (long i = written; i < pad(written); ++i) {
+            ensure(1);
+            buffer.put((byte) 0);
+        }
+        ++current;
+        if (current < vars.size()) {
+            remaining = vars.get(current).count;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    private void putFill(Variable var, long count) throws IOException {
+        for (long i = 0; i < count; ++i) {
+            ensure(var.type.size);
+            switch (var.type) {
+            case BYTE:
+            case CHAR:
+                buffer.put(var.fill.byteValue());
+                break;
+            case SHORT:
+                buffer.putShort(var.fill.shortValue());
+                break;
+            case INT:
+                buffer.putInt(var.fill.intValue());
+                break;
+            case FLOAT:
+                buffer.putFloat(var.fill.floatValue());
+                break;
+            default:
+                buffer.putDouble(var.fill.doubleValue());
+            }
+        }
+    }
+
+    /**
+     * Write fill values to variable
+     *
+     * @param var
+     * @param count
+     *            number of values
+     * @throws IOException
+     */
+    public void fill(Variable var, long count) throws IOException {
+        start(var, count);
+        putFill(var, count);
+    }
+
+    /**
+     * Write next values of variable
+     *
+     * @param var
+     * @param data
+     * @throws IOException
+     */
+    public void write(Variable var, byte[] data) throws IOException {
+        start(var, data.length);
+        for (int i = 0; i < data.length;) {
+            ensure(1);
+            int len = Math.min(buffer.remaining(), data.length - i);
+            buffer.put(data, i, len);
+            i += len;
+        }
+    }
+
+    /**
+     * Write next values of variable
+     *
+     * @param var
+     * @param data
+     * @throws IOException
+     */
+    public void write(Variable var, short[] data) throws IOException {
+        start(var, data.length);
+        for (int i = 0; i < data.length;) {
+            ensure(Short.BYTES);
+            int len = Math.min(buffer.remaining() / Short.BYTES, data.length
+                    - i);
+            buffer.asShortBuffer().put(data, i, len);
+            buffer.position(buffer.position() + len * Short.BYTES);
+            i += len;
+        }
+    }
+
+    /**
+     * Write next values of variable
+     *
+     * @param var
+     * @param data
+     * @throws IOException
+     */
+    public void write(Variable var, int[] data) throws IOException {
+        start(var, data.length);
+        for (int i = 0; i < data.length;) {
+            ensure(Integer.BYTES);
+            int len = Math.min(buffer.remaining() / Integer.BYTES, data.length
+                    - i);
+            buffer.asIntBuffer().put(data, i, len);
+            buffer.position(buffer.position() + len * Integer.BYTES);
+            i += len;
+        }
+    }
+
+    /**
+     * Write next values of variable
+     *
+     * @param var
+     * @param data
+     * @throws IOException
+     */
+    public void write(Variable var, float[] data) throws IOException {
+        start(var, data.length);
+        for (int i = 0; i < data.length;) {
+            ensure(Float.BYTES);
+            int len = Math.min(buffer.remaining() / Float.BYTES, data.length
+                    - i);
+            buffer.asFloatBuffer().put(data, i, len);
+            buffer.position(buffer.position() + len * Float.BYTES);
+            i += len;
+        }
+    }
+
+    /**
+     * Write next values of variable
+     *
+     * @param var
+     * @param data
+     * @throws IOException
+     */
+    public void write(Variable var, double[] data) throws IOException {
+        start(var, data.length);
+        for (int i = 0; i < data.length;) {
+            ensure(Double.BYTES);
+            int len = Math.min(buffer.remaining() / Double.BYTES, data.length
+                    - i);
+            buffer.asDoubleBuffer().put(data, i, len);
+            buffer.position(buffer.position() + len * Double.BYTES);
+            i += len;
+        }
+    }
+
+    /**
+     * Fill any variables that were not completely written and flush the
+     * stream. Stream is not closed.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if (out == null) {
+            throw new IllegalStateException("Definition not ended");
+        }
+        while (current < vars.size()) {
+            finishCurrent();
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+}
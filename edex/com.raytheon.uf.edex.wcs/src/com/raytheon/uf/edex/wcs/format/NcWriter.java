@@ -9,6 +9,8 @@
  */
 package com.raytheon.uf.edex.wcs.format;
 
+import java.io.IOException;
+
 import com.raytheon.uf.common.datastorage.records.ByteDataRecord;
 import com.raytheon.uf.common.datastorage.records.FloatDataRecord;
 import com.raytheon.uf.common.datastorage.records.IDataRecord;
@@ -27,6 +29,7 @@ import com.raytheon.uf.common.nc4.NetcdfException;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Mar 12, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        Added stream writing
  * 
  * </pre>
  * 
@@ -47,6 +50,23 @@ public abstract class NcWriter<T extends NcVariable> {
     public abstract void write(NcVariable var, int[] start, IDataRecord irecord)
             throws NetcdfException;
 
+    /**
+     * @return type of variable in classic format stream
+     */
+    public abstract NcStreamWriter.Type getStreamType();
+
+    /**
+     * Write data record as the next values of variable in stream
+     * 
+     * @param writer
+     * @param var
+     * @param irecord
+     * @throws IOException
+     */
+    public abstract void write(NcStreamWriter writer,
+            NcStreamWriter.Variable var, IDataRecord irecord)
+            throws IOException;
+
     /**
      * Converts the dimensions of the record to netcdf shape. This will be
      * reverse from the data record sizes;
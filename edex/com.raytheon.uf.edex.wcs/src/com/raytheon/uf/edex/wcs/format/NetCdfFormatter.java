@@ -23,43 +23,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.HashCodeBuilder;
-import org.geotools.coverage.grid.GridEnvelope2D;
-import org.geotools.coverage.grid.GridGeometry2D;
-import org.geotools.coverage.grid.InvalidGridGeometryException;
-import org.geotools.geometry.DirectPosition2D;
-import org.geotools.geometry.jts.ReferencedEnvelope;
-import org.geotools.parameter.Parameter;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.operation.transform.ConcatenatedTransform;
-import org.opengis.geometry.MismatchedDimensionException;
-import org.opengis.metadata.spatial.PixelOrientation;
-import org.opengis.parameter.GeneralParameterValue;
-import org.opengis.parameter.ParameterValueGroup;
-import org.opengis.referencing.FactoryException;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
-import org.opengis.referencing.crs.GeographicCRS;
-import org.opengis.referencing.crs.ProjectedCRS;
-import org.opengis.referencing.cs.CartesianCS;
-import org.opengis.referencing.cs.CoordinateSystemAxis;
-import org.opengis.referencing.operation.MathTransform;
-import org.opengis.referencing.operation.Projection;
-import org.opengis.referencing.operation.TransformException;
-
-import com.raytheon.uf.common.geospatial.MapUtil;
+
 import com.raytheon.uf.common.nc4.NcDimension;
 import com.raytheon.uf.common.nc4.NcDimension.DoubleDimension;
 import com.raytheon.uf.common.nc4.NcVariable;
@@ -68,26 +42,27 @@ import com.raytheon.uf.common.nc4.Netcdf;
 import com.raytheon.uf.common.nc4.NetcdfException;
 import com.raytheon.uf.common.nc4.cf.CfConstants;
 import com.raytheon.uf.common.nc4.cf.CfDimensions;
-import com.raytheon.uf.common.nc4.cf.CfGridMapper;
 import com.raytheon.uf.common.nc4.cf.CfHorizontalDims;
 import com.raytheon.uf.common.nc4.cf.CfNetcdf;
 import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
 import com.raytheon.uf.edex.ogc.common.BasicFileStore;
 import com.raytheon.uf.edex.ogc.common.reprojection.ReferencedDataRecord;
-import com.raytheon.uf.edex.wcs.WcsException;
-import com.raytheon.uf.edex.wcs.WcsException.Code;
+import com.raytheon.uf.edex.wcs.format.CfLayout.Axis;
+import com.raytheon.uf.edex.wcs.format.CfLayout.FieldLayout;
+import com.raytheon.uf.edex.wcs.format.CfLayout.Horizontal;
+import com.raytheon.uf.edex.wcs.format.CfLayout.Vertical;
 import com.raytheon.uf.edex.wcs.reg.Coverage;
-import com.raytheon.uf.edex.wcs.reg.CoverageDimensions;
 import com.raytheon.uf.edex.wcs.reg.CoverageField;
-import com.raytheon.uf.edex.wcs.reg.CoverageTAxis;
-import com.raytheon.uf.edex.wcs.reg.CoverageXYAxis;
-import com.raytheon.uf.edex.wcs.reg.CoverageZAxis;
 import com.raytheon.uf.edex.wcs.reg.TemporalCube;
 import com.raytheon.uf.edex.wcs.reg.VerticalSlice;
 
 /**
- * Formats coverage data to netcdf 4 using climat and forecast (CF) conventions
+ * Formats coverage data to netcdf 4 using climat and forecast (CF) conventions.
+ * Setting ogc.wcs.netcdf.stream to true writes coverages formatted to a stream
+ * in netcdf classic format with {@link CfStreamWriter} instead of going
+ * through a temp file, since netcdf 4 needs a random access file. The format is
+ * then advertised as {@link #STREAM_CONTENT_TYPE}. Both use {@link CfLayout}.
  * 
  * <pre>
  * 
@@ -96,6 +71,9 @@ import com.raytheon.uf.edex.wcs.reg.VerticalSlice;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Mar 12, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        Stream coverages without temp files
+ * Oct 17, 2026            agent        Prefetch slices
+ * Oct 17, 2026            agent        Make streaming opt-in, share layout
  * 
  * </pre>
  * 
@@ -106,19 +84,24 @@ public class NetCdfFormatter implements IWcsDataFormatter {
 
     public static final String CONTENT_TYPE = "application/netcdf4";
 
+    public static final String STREAM_CONTENT_TYPE = "application/x-netcdf";
+
     private final IUFStatusHandler log = UFStatus.getHandler(this.getClass());
 
     private final BasicFileStore store;
 
     private static final AtomicLong STORAGE_ID = new AtomicLong();
 
+    private static final boolean STREAM = Boolean.parseBoolean(System
+            .getProperty("ogc.wcs.netcdf.stream", "false"));
+
     public NetCdfFormatter(BasicFileStore store) {
         this.store = store;
     }
 
     @Override
     public String getIdentifier() {
-        return CONTENT_TYPE;
+        return STREAM ? STREAM_CONTENT_TYPE : CONTENT_TYPE;
     }
 
     @Override
@@ -139,6 +122,15 @@ public class NetCdfFormatter implements IWcsDataFormatter {
         };
     }
 
+    @Override
+    public void format(Coverage coverage, OutputStream out) throws Exception {
+        if (STREAM) {
+            new CfStreamWriter(coverage).write(out);
+        } else {
+            IWcsDataFormatter.super.format(coverage, out);
+        }
+    }
+
     @Override
     public File store(Coverage coverage) throws Exception {
         String id = createStoreId(coverage);
@@ -149,7 +141,7 @@ public class NetCdfFormatter implements IWcsDataFormatter {
             ncfile.putStringAttribute(CfConstants.COVERAGE_ID_ATTR,
                     coverage.getName());
             List<CoverageField> fields = coverage.getFields();
-            DimMapping dmap = defineDims(ncfile, fields);
+            DimMapping dmap = defineDims(ncfile, new CfLayout(fields));
             List<NcVariable> vars = new ArrayList<NcVariable>(fields.size());
             for (CoverageField field : fields) {
                 vars.add(define(ncfile, dmap.fieldMap.get(field.getName()),
@@ -172,7 +164,8 @@ public class NetCdfFormatter implements IWcsDataFormatter {
     }
 
     /**
-     * Write 4D cube in field to variable
+     * Write 4D cube in field to variable, upcoming slices are retrieved while
+     * each slice is written
      * 
      * @param field
      * @param var
@@ -186,14 +179,15 @@ public class NetCdfFormatter implements IWcsDataFormatter {
         NcWriter<? extends NcVariable> writer = NcWriter.create(firstRecord
                 .getRecord());
 
-        Iterator<TemporalCube> cubeIter = timeCube.iterator();
-        for (int i = 0; cubeIter.hasNext(); ++i) {
-            TemporalCube cube = cubeIter.next();
-            Iterator<VerticalSlice> sliceIter = cube.getSlices().iterator();
-            for (int j = 0; sliceIter.hasNext(); ++j) {
-                VerticalSlice slice = sliceIter.next();
-                writer.write(var, new int[] { i, j, 0, 0 }, slice.getRecord()
-                        .get(false).getRecord());
+        try (SlicePrefetcher prefetcher = new SlicePrefetcher(timeCube)) {
+            Iterator<TemporalCube> cubeIter = timeCube.iterator();
+            for (int i = 0; cubeIter.hasNext(); ++i) {
+                TemporalCube cube = cubeIter.next();
+                int count = cube.getSlices().size();
+                for (int j = 0; j < count; ++j) {
+                    writer.write(var, new int[] { i, j, 0, 0 }, prefetcher
+                            .next().getRecord());
+                }
             }
         }
     }
@@ -261,41 +255,39 @@ public class NetCdfFormatter implements IWcsDataFormatter {
      * Define dimensions for fields.
      * 
      * @param ncfile
-     * @param fields
+     * @param layout
      * @return
-     * @throws Exception
+     * @throws NetcdfException
      */
-    private DimMapping defineDims(CfNetcdf ncfile, List<CoverageField> fields)
-            throws Exception {
-        Map<CoverageXYAxis, CfHorizontalDims<DoubleDimension>> horizMap = new HashMap<CoverageXYAxis, CfHorizontalDims<DoubleDimension>>();
-        Map<CoverageZAxis, DoubleDimension> vertMap = new HashMap<CoverageZAxis, DoubleDimension>();
-        Map<CoverageTAxis, DoubleDimension> timeMap = new HashMap<CoverageTAxis, DoubleDimension>();
-        Map<String, CfDimensions<DoubleDimension>> fieldMap = new HashMap<String, CfDimensions<DoubleDimension>>();
+    private DimMapping defineDims(CfNetcdf ncfile, CfLayout layout)
+            throws NetcdfException {
+        Map<Horizontal, CfHorizontalDims<DoubleDimension>> horizMap = new HashMap<Horizontal, CfHorizontalDims<DoubleDimension>>();
+        Map<Axis, DoubleDimension> dimMap = new HashMap<Axis, DoubleDimension>();
         List<DimWriter> writers = new ArrayList<NetCdfFormatter.DimWriter>();
 
-        for (CoverageField field : fields) {
-            CoverageDimensions dims = field.getDimensions();
-            CoverageXYAxis xyAxis = dims.getXyAxis();
-            CfHorizontalDims<DoubleDimension> horiz = horizMap.get(xyAxis);
-            if (horiz == null) {
-                horiz = defineXY(ncfile, xyAxis, writers, horizMap.size());
-                horizMap.put(xyAxis, horiz);
-            }
-            CoverageZAxis zAxis = dims.getZAxis();
-            DoubleDimension vert = vertMap.get(zAxis);
-            if (vert == null) {
-                vert = defineZ(ncfile, zAxis, writers, vertMap.size());
-                vertMap.put(zAxis, vert);
-            }
-            CoverageTAxis tAxis = dims.getTAxis();
-            DoubleDimension time = timeMap.get(tAxis);
-            if (time == null) {
-                time = defineT(ncfile, tAxis, writers, timeMap.size());
-                timeMap.put(tAxis, time);
-            }
-            fieldMap.put(field.getName(),
-                    new CfDimensions<NcDimension.DoubleDimension>(horiz, vert,
-                            time));
+        for (Horizontal horiz : layout.getHorizontals()) {
+            horizMap.put(horiz, defineXY(ncfile, horiz, writers));
+        }
+        for (Vertical vert : layout.getVerticals()) {
+            DoubleDimension z = ncfile.defineZDim(vert.name, vert.longName,
+                    vert.values.length, vert.units, vert.upIsPositive,
+                    DoubleDimension.class);
+            addWriter(writers, z, vert.values);
+            dimMap.put(vert, z);
+        }
+        for (Axis time : layout.getTimeAxes()) {
+            DoubleDimension t = ncfile.defineTimeDim(time.name,
+                    time.standardName, time.values.length, time.units,
+                    DoubleDimension.class);
+            addWriter(writers, t, time.values);
+            dimMap.put(time, t);
+        }
+        Map<String, CfDimensions<DoubleDimension>> fieldMap = new HashMap<String, CfDimensions<DoubleDimension>>();
+        for (FieldLayout field : layout.getFields()) {
+            fieldMap.put(field.field.getName(),
+                    new CfDimensions<NcDimension.DoubleDimension>(horizMap
+                            .get(field.horiz), dimMap.get(field.z), dimMap
+                            .get(field.t)));
         }
         return new DimMapping(fieldMap, writers);
     }
@@ -304,311 +296,83 @@ public class NetCdfFormatter implements IWcsDataFormatter {
      * Define horizontal dimensions
      * 
      * @param ncfile
-     * @param xyAxis
+     * @param horiz
      * @param writers
-     * @param count
      * @return
-     * @throws Exception
+     * @throws NetcdfException
      */
     private CfHorizontalDims<DoubleDimension> defineXY(CfNetcdf ncfile,
-            CoverageXYAxis xyAxis, List<DimWriter> writers, int count)
-            throws Exception {
-        double[][] lonLatAxis = getLonLatAxis(xyAxis.getGridGeometry());
-        final double[] lonValue = lonLatAxis[0];
-        final double[] latValue = lonLatAxis[1];
-        final DoubleDimension lon = ncfile.defineXDim("lon" + count,
-                "longitude", lonValue.length, CfConstants.LON_UNITS,
-                DoubleDimension.class);
-        final DoubleDimension lat = ncfile.defineYDim("lat" + count,
-                "latitude", latValue.length, CfConstants.LAT_UNITS,
-                DoubleDimension.class);
-        writers.add(new DimWriter() {
-            @Override
-            public void write() throws NetcdfException {
-                lon.putDim(lonValue);
-                lat.putDim(latValue);
-            }
-        });
-
-        ReferencedEnvelope env = xyAxis.getEnvelope();
-        CoordinateReferenceSystem crs = env.getCoordinateReferenceSystem();
-        if (crs instanceof GeographicCRS) {
+            Horizontal horiz, List<DimWriter> writers) throws NetcdfException {
+        DoubleDimension lon = defineXDim(ncfile, horiz.lon, writers);
+        DoubleDimension lat = defineYDim(ncfile, horiz.lat, writers);
+        if (!horiz.isMapped()) {
             return new CfHorizontalDims<NcDimension.DoubleDimension>(lon, lat);
-        } else if (crs instanceof ProjectedCRS) {
-            return defineMappedXY(ncfile, xyAxis, writers, count, lon, lat);
-        } else {
-            log.error("Unsupport CRS object type: " + crs.getClass(),
-                    new Exception());
-            throw new WcsException(Code.InternalServerError);
         }
+        DoubleDimension x = defineXDim(ncfile, horiz.x, writers);
+        DoubleDimension y = defineYDim(ncfile, horiz.y, writers);
+        NcVariable projVar = defineProjVar(ncfile, horiz);
+        return new CfHorizontalDims<NcDimension.DoubleDimension>(x, y,
+                horiz.coords, projVar.getName());
+    }
+
+    private DoubleDimension defineXDim(CfNetcdf ncfile, Axis axis,
+            List<DimWriter> writers) throws NetcdfException {
+        DoubleDimension dim = ncfile.defineXDim(axis.name, axis.standardName,
+                axis.values.length, axis.units, DoubleDimension.class);
+        addWriter(writers, dim, axis.values);
+        return dim;
+    }
+
+    private DoubleDimension defineYDim(CfNetcdf ncfile, Axis axis,
+            List<DimWriter> writers) throws NetcdfException {
+        DoubleDimension dim = ncfile.defineYDim(axis.name, axis.standardName,
+                axis.values.length, axis.units, DoubleDimension.class);
+        addWriter(writers, dim, axis.values);
+        return dim;
     }
 
     /**
-     * Define non geographic horizontal dimensions
+     * Postpone writing dimension values until after definition phase
      * 
-     * @param ncfile
-     * @param xyAxis
      * @param writers
-     * @param count
-     * @param lon
-     * @param lat
-     * @return
-     * @throws NetcdfException
-     * @throws TransformException
-     * @throws FactoryException
-     * @throws MismatchedDimensionException
-     * @throws InvalidGridGeometryException
+     * @param dim
+     * @param values
      */
-    private CfHorizontalDims<NcDimension.DoubleDimension> defineMappedXY(
-            CfNetcdf ncfile, CoverageXYAxis xyAxis, List<DimWriter> writers,
-            int count, DoubleDimension lon, DoubleDimension lat)
-            throws Exception {
-        ReferencedEnvelope env = xyAxis.getEnvelope();
-        ProjectedCRS crs = (ProjectedCRS) env.getCoordinateReferenceSystem();
-        CartesianCS cs = crs.getCoordinateSystem();
-        CoordinateSystemAxis xAxis = cs.getAxis(0);
-        CoordinateSystemAxis yAxis = cs.getAxis(1);
-        GridGeometry2D geom = xyAxis.getGridGeometry();
-        GridEnvelope2D gridEnv = geom.getGridRange2D();
-
-        final DoubleDimension x = ncfile.defineXDim("x" + count,
-                CfConstants.X_STD_NAME, gridEnv.width, xAxis.getUnit()
-                        .toString(), DoubleDimension.class);
-        final DoubleDimension y = ncfile.defineYDim("y" + count,
-                CfConstants.Y_STD_NAME, gridEnv.height, yAxis.getUnit()
-                        .toString(), DoubleDimension.class);
-
-        double[][] xyVals = getXYAxis(geom, crs);
-        final double[] xVals = xyVals[0];
-        final double[] yVals = xyVals[1];
-
+    private static void addWriter(List<DimWriter> writers,
+            final DoubleDimension dim, final double[] values) {
         writers.add(new DimWriter() {
             @Override
             public void write() throws NetcdfException {
-                x.putDim(xVals);
-                y.putDim(yVals);
+                dim.putDim(values);
             }
         });
-
-        Projection conv = crs.getConversionFromBase();
-        ParameterValueGroup params = conv.getParameterValues();
-        String projName = params.getDescriptor().getName().getCode();
-
-        Map<String, List<NumberedValue>> paramMap = getParamMap(params);
-        NcVariable projVar = defineProjVar(ncfile, projName, paramMap, count);
-        String coords = StringUtils.join(
-                new String[] { lat.getName(), lon.getName() }, " ");
-        return new CfHorizontalDims<NcDimension.DoubleDimension>(x, y, coords,
-                projVar.getName());
-    }
-
-    protected static class NumberedValue implements Comparable<NumberedValue> {
-        public int number;
-
-        public Object value;
-
-        public NumberedValue(int number, Object value) {
-            this.number = number;
-            this.value = value;
-        }
-
-        @Override
-        public int compareTo(NumberedValue o) {
-            return number - o.number;
-        }
-
-    }
-
-    /**
-     * Map parameter base names to values
-     * 
-     * @param params
-     * @return
-     */
-    protected Map<String, List<NumberedValue>> getParamMap(
-            ParameterValueGroup params) {
-        final Pattern PARAM_PATTERN = Pattern.compile("^(.*)(_([0-9]+))$");
-        Map<String, List<NumberedValue>> paramMap = new HashMap<String, List<NumberedValue>>();
-        for (GeneralParameterValue v : params.values()) {
-            Parameter<?> p = (Parameter<?>) v;
-            String paramName = p.getDescriptor().getName().getCode().trim();
-            Matcher m = PARAM_PATTERN.matcher(paramName);
-            int number = 0;
-            if (m.matches()) {
-                paramName = m.group(1);
-                number = Integer.parseInt(m.group(3));
-            }
-            paramName = CfGridMapper.getMappingAttributeName(paramName);
-            List<NumberedValue> values = paramMap.get(paramName);
-            if (values == null) {
-                values = new ArrayList<NumberedValue>(2);
-                paramMap.put(paramName, values);
-            }
-
-            values.add(new NumberedValue(number, p.getValue()));
-        }
-        return paramMap;
     }
 
     /**
      * Define grid projection mapping variable
      * 
      * @param ncfile
-     * @param projName
-     * @param paramMap
-     * @param count
+     * @param horiz
      * @return
      * @throws NetcdfException
      */
-    private NcVariable defineProjVar(CfNetcdf ncfile, String projName,
-            Map<String, List<NumberedValue>> paramMap, int count)
+    private NcVariable defineProjVar(CfNetcdf ncfile, Horizontal horiz)
             throws NetcdfException {
-        ByteVariable projVar = ncfile.defineVar(projName + count,
+        ByteVariable projVar = ncfile.defineVar(horiz.gridMapping,
                 new NcDimension[0], ByteVariable.class);
-        projVar.putStringAttribute(CfConstants.GRID_MAP_NAME_ATTR, projName);
-        for (Entry<String, List<NumberedValue>> e : paramMap.entrySet()) {
-            List<NumberedValue> list = e.getValue();
-            Collections.sort(list);
-            if (list.get(0).value instanceof Number) {
-                Number[] vals = new Number[list.size()];
-                Iterator<NumberedValue> iter = list.iterator();
-                for (int i = 0; iter.hasNext(); ++i) {
-                    vals[i] = (Number) iter.next().value;
-                }
-                projVar.putNumberAttribute(e.getKey(), vals);
+        projVar.putStringAttribute(CfConstants.GRID_MAP_NAME_ATTR,
+                horiz.projName);
+        for (Entry<String, Object[]> e : horiz.mappingAttributes.entrySet()) {
+            Object[] vals = e.getValue();
+            if (vals instanceof Number[]) {
+                projVar.putNumberAttribute(e.getKey(), (Number[]) vals);
             } else {
-                String[] vals = new String[list.size()];
-                Iterator<NumberedValue> iter = list.iterator();
-                for (int i = 0; iter.hasNext(); ++i) {
-                    vals[i] = iter.next().value.toString();
-                }
-                projVar.putStringsAttribute(e.getKey(), vals);
+                projVar.putStringsAttribute(e.getKey(), (String[]) vals);
             }
         }
         return projVar;
     }
 
-    /**
-     * Define vertical dimension
-     * 
-     * @param ncfile
-     * @param zAxis
-     * @param writers
-     * @param count
-     * @return
-     * @throws NetcdfException
-     */
-    private DoubleDimension defineZ(CfNetcdf ncfile, final CoverageZAxis zAxis,
-            List<DimWriter> writers, int count) throws NetcdfException {
-        final DoubleDimension z = ncfile.defineZDim("level" + count,
-                "height level", zAxis.getValue().length, zAxis.getUnits(),
-                zAxis.isUpIsPositive(), DoubleDimension.class);
-        writers.add(new DimWriter() {
-            @Override
-            public void write() throws NetcdfException {
-                z.putDim(zAxis.getValue());
-            }
-        });
-        return z;
-    }
-
-    /**
-     * Define temporal dimension
-     * 
-     * @param ncfile
-     * @param tAxis
-     * @param writers
-     * @param count
-     * @return
-     * @throws NetcdfException
-     */
-    private DoubleDimension defineT(CfNetcdf ncfile, CoverageTAxis tAxis,
-            List<DimWriter> writers, int count) throws NetcdfException {
-        final DoubleDimension t = ncfile.defineTimeDim("time" + count, "time",
-                tAxis.getTimes().length, CfConstants.UNIX_TIME_UNITS,
-                DoubleDimension.class);
-        final double[] values = getTimes(tAxis.getTimes());
-        writers.add(new DimWriter() {
-            @Override
-            public void write() throws NetcdfException {
-                t.putDim(values);
-            }
-        });
-        return t;
-    }
-
-    /**
-     * Convert times to UNIX timestamps with milliseconds as decimal
-     * 
-     * @param times
-     * @return
-     */
-    private double[] getTimes(Date[] times) {
-        double[] rval = new double[times.length];
-        for (int i = 0; i < rval.length; ++i) {
-            rval[i] = times[i].getTime() / 1000;
-        }
-        return rval;
-    }
-
-    /**
-     * Convert geometry to CRS84.
-     * 
-     * @param geom
-     * @return array of size 2. Index 0 contains longitude, index 1 contains
-     *         latitude. Not guaranteed to be the same length.
-     * @throws InvalidGridGeometryException
-     * @throws FactoryException
-     * @throws MismatchedDimensionException
-     * @throws TransformException
-     */
-    private double[][] getLonLatAxis(GridGeometry2D geom)
-            throws InvalidGridGeometryException, FactoryException,
-            MismatchedDimensionException, TransformException {
-        return getXYAxis(geom, MapUtil.LATLON_PROJECTION);
-    }
-
-    /**
-     * Convert geometry to Target CRS.
-     * 
-     * @param geom
-     * @param targetCRS
-     * @return
-     * @throws InvalidGridGeometryException
-     * @throws FactoryException
-     * @throws MismatchedDimensionException
-     * @throws TransformException
-     */
-    private double[][] getXYAxis(GridGeometry2D geom,
-            CoordinateReferenceSystem targetCRS)
-            throws InvalidGridGeometryException, FactoryException,
-            MismatchedDimensionException, TransformException {
-        double[][] rval = new double[2][];
-        GridEnvelope2D gridEnv = geom.getGridRange2D();
-        MathTransform gridToCRS = geom
-                .getGridToCRS(PixelOrientation.UPPER_LEFT);
-        CoordinateReferenceSystem origCrs = geom.getCoordinateReferenceSystem();
-        MathTransform toTarget = CRS
-                .findMathTransform(origCrs, targetCRS, true);
-        MathTransform transform = ConcatenatedTransform.create(gridToCRS,
-                toTarget);
-        rval[0] = new double[gridEnv.width];
-        rval[1] = new double[gridEnv.height];
-        int maxLen = Math.max(gridEnv.width, gridEnv.height);
-        int xIndex = 0;
-        int yIndex = 0;
-        for (int i = 0; i < maxLen; ++i) {
-            DirectPosition2D point = new DirectPosition2D(xIndex, yIndex);
-            DirectPosition2D target = new DirectPosition2D();
-            transform.transform(point, target);
-            rval[0][xIndex] = target.getX();
-            rval[1][yIndex] = target.getY();
-            xIndex = Math.min(++xIndex, gridEnv.width - 1);
-            yIndex = Math.min(++yIndex, gridEnv.height - 1);
-        }
-        return rval;
-    }
-
     /**
      * Create unique id for file store
      * 
@@ -0,0 +1,194 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wcs.format;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.raytheon.uf.edex.ogc.common.reprojection.ReferencedDataRecord;
+import com.raytheon.uf.edex.wcs.WcsException;
+import com.raytheon.uf.edex.wcs.WcsException.Code;
+import com.raytheon.uf.edex.wcs.reg.TemporalCube;
+import com.raytheon.uf.edex.wcs.reg.VerticalSlice;
+
+/**
+ * Retrieves the slices of a field in order while upcoming slices are read and
+ * reprojected in the background. At most a configured number of slices are
+ * retrieved ahead of the caller so memory stays bounded no matter how many
+ * slices the field has.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SlicePrefetcher implements AutoCloseable {
+
+    public static final int FETCH_THREADS = Integer.getInteger(
+            "ogc.wcs.slice.fetch.threads", 8);
+
+    public static final int FETCH_QUEUE_SIZE = Integer.getInteger(
+            "ogc.wcs.slice.fetch.queue.size", 256);
+
+    /* slices retrieved ahead of the caller for each field */
+    public static final int IN_FLIGHT = Math.max(
+            Integer.getInteger("ogc.wcs.slice.fetch.inflight", 4), 1);
+
+    public static final long FETCH_TIMEOUT_MILLIS = Long.getLong(
+            "ogc.wcs.slice.fetch.timeout.seconds", 300) * 1000;
+
+    /*
+     * callers fetch slices themselves when the pool is saturated so a burst of
+     * requests degrades to sequential retrieval instead of failing
+     */
+    private static final ThreadPoolExecutor fetchPool;
+
+    static {
+        final AtomicInteger count = new AtomicInteger();
+        fetchPool = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS, 60L,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+                        FETCH_QUEUE_SIZE), r -> {
+                    Thread t = new Thread(r, "wcs-slice-fetch-"
+                            + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        fetchPool.allowCoreThreadTimeOut(true);
+    }
+
+    private final List<VerticalSlice> slices;
+
+    private final Deque<Future<ReferencedDataRecord>> pending = new ArrayDeque<Future<ReferencedDataRecord>>(
+            IN_FLIGHT);
+
+    /* index of next slice to submit */
+    private int submitted = 0;
+
+    /**
+     * @param timeCube
+     *            slices are retrieved in time then level order
+     */
+    public SlicePrefetcher(List<TemporalCube> timeCube) {
+        List<VerticalSlice> slices = new ArrayList<VerticalSlice>();
+        for (TemporalCube cube : timeCube) {
+            slices.addAll(cube.getSlices());
+        }
+        this.slices = slices;
+        fill();
+    }
+
+    /**
+     * Submit slices until the in flight limit is reached
+     */
+    private void fill() {
+        while (pending.size() < IN_FLIGHT && submitted < slices.size()) {
+            final VerticalSlice slice = slices.get(submitted++);
+            pending.add(fetchPool.submit(() -> slice.getRecord().get(false)));
+        }
+    }
+
+    /**
+     * @return true if there are slices that haven't been returned by
+     *         {@link #next()}
+     */
+    public boolean hasNext() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Get the next slice, waiting for it to be retrieved if needed
+     *
+     * @return
+     * @throws WcsException
+     *             if retrieval failed or timed out
+     */
+    public ReferencedDataRecord next() throws WcsException {
+        Future<ReferencedDataRecord> f = pending.poll();
+        if (f == null) {
+            throw new IllegalStateException("No slices left");
+        }
+        try {
+            ReferencedDataRecord rval = f.get(FETCH_TIMEOUT_MILLIS,
+                    TimeUnit.MILLISECONDS);
+            fill();
+            return rval;
+        } catch (ExecutionException e) {
+            throw toWcsException(e.getCause());
+        } catch (TimeoutException e) {
+            f.cancel(true);
+            throw new WcsException(Code.InternalServerError,
+                    "Timed out retrieving coverage data");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WcsException(Code.InternalServerError,
+                    "Interrupted while retrieving coverage data");
+        }
+    }
+
+    /**
+     * Cancel any slices still being retrieved
+     */
+    @Override
+    public void close() {
+        for (Future<ReferencedDataRecord> f : pending) {
+            f.cancel(true);
+        }
+        pending.clear();
+        submitted = slices.size();
+    }
+
+    /**
+     * Unchecked exceptions are rethrown as they would have been if the fetch
+     * ran on the calling thread
+     *
+     * @param t
+     * @return
+     */
+    private static WcsException toWcsException(Throwable t) {
+        if (t instanceof WcsException) {
+            return (WcsException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new WcsException(Code.InternalServerError, t);
+    }
+
+}
@@ -21,7 +21,6 @@
 package com.raytheon.uf.edex.wcs.provider;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,6 +29,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -41,6 +41,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.activation.DataHandler;
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
@@ -68,8 +69,7 @@ import net.opengis.wcs.v_1_1_2.RangeSubsetType.FieldSubset;
 import net.opengis.wcs.v_1_1_2.TimePeriodType;
 import net.opengis.wcs.v_1_1_2.TimeSequenceType;
 
-import org.apache.commons.codec.binary.Base64InputStream;
-import org.apache.cxf.helpers.IOUtils;
+import org.apache.commons.codec.binary.Base64OutputStream;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import com.raytheon.uf.common.http.MimeType;
@@ -77,6 +77,7 @@ import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
 import com.raytheon.uf.common.time.DataTime;
 import com.raytheon.uf.common.time.TimeRange;
+import com.raytheon.uf.edex.ogc.common.CapabilitiesCache;
 import com.raytheon.uf.edex.ogc.common.OgcBoundingBox;
 import com.raytheon.uf.edex.ogc.common.OgcNamespace;
 import com.raytheon.uf.edex.ogc.common.OgcOperationInfo;
@@ -95,6 +96,7 @@ import com.raytheon.uf.edex.wcs.CoveragesHolder;
 import com.raytheon.uf.edex.wcs.WcsException;
 import com.raytheon.uf.edex.wcs.WcsException.Code;
 import com.raytheon.uf.edex.wcs.WcsProvider;
+import com.raytheon.uf.edex.wcs.format.CoverageDataHandler;
 import com.raytheon.uf.edex.wcs.format.IWcsDataFormatter;
 import com.raytheon.uf.edex.wcs.reg.Coverage;
 import com.raytheon.uf.edex.wcs.reg.CoverageDescription;
@@ -121,6 +123,8 @@ import org.locationtech.jts.geom.Envelope;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Mar 12, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        cache marshalled capabilities
+ * Oct 17, 2026            agent        stream formatted coverages
  * 
  * </pre>
  * 
@@ -274,11 +278,22 @@ public class OgcWcsProvider implements WcsProvider {
     }
 
     @Override
-    public OgcResponse getCapabilities(OgcServiceInfo<WcsOpType> serviceinfo,
-            GetCapRequest request) {
-        Capabilities capabilities = getCapBuilder().getCapabilities(
-                serviceinfo, WcsSourceAccessor.getCoverages(true));
-        return marshalResponse(capabilities);
+    public OgcResponse getCapabilities(
+            final OgcServiceInfo<WcsOpType> serviceinfo, GetCapRequest request) {
+        String key = CapabilitiesCache.getKey("WCS", "1.1.2", null,
+                serviceinfo);
+        try {
+            byte[] xml = CapabilitiesCache.get(key,
+                    WcsSourceAccessor::getLayerVersions, () -> {
+                        Capabilities capabilities = getCapBuilder()
+                                .getCapabilities(serviceinfo,
+                                        WcsSourceAccessor.getCoverages(true));
+                        return marshal(capabilities);
+                    });
+            return new OgcResponse(xml, OgcResponse.TEXT_XML_MIME, TYPE.TEXT);
+        } catch (WcsException e) {
+            return getError(e, request.getExceptionFormat());
+        }
     }
 
     public Capabilities getCapabilities(EndpointInfo info,
@@ -358,7 +373,7 @@ public class OgcWcsProvider implements WcsProvider {
         coverage.setName(CustomIdMap.internalToExternal(coverage.getName()));
         CoveragesHolder holder = new CoveragesHolder();
         holder.setContentType(format);
-        Map<String, byte[]> data = new HashMap<String, byte[]>();
+        Map<String, DataHandler> data = new HashMap<String, DataHandler>();
         String href;
         if (request.isStore()) {
             try {
@@ -372,19 +387,9 @@ public class OgcWcsProvider implements WcsProvider {
             }
         } else {
             href = getCoverageId(externalId);
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            InputStream in = null;
-            try {
-                in = formatter.format(coverage);
-                IOUtils.copy(in, out);
-                out.flush();
-            } catch (Exception e) {
-                log.error("Problem formatting coverage", e);
-                throw new WcsException(Code.InternalServerError);
-            } finally {
-                close(in, out);
-            }
-            data.put(href, out.toByteArray());
+            /* formatted straight to the attachment when it is sent */
+            data.put(href,
+                    new CoverageDataHandler(formatter, coverage, format));
         }
         CoveragesType rval = getCoverageOgcResponse(externalId, href);
         holder.setMetadata(rval);
@@ -405,19 +410,6 @@ public class OgcWcsProvider implements WcsProvider {
                 request.getFields());
     }
 
-    private void close(InputStream in, OutputStream out) {
-        try {
-            if (in != null) {
-                in.close();
-            }
-            if (out != null) {
-                out.close();
-            }
-        } catch (Throwable t) {
-            log.error("Unable to close streams", t);
-        }
-    }
-
     @Override
     public void getCoverage(OgcServiceInfo<WcsOpType> serviceinfo,
             GetCoverageRequest request, IOgcHttpResponse httpResp) {
@@ -440,14 +432,7 @@ public class OgcWcsProvider implements WcsProvider {
                 OutputStream out = httpResp.getOutputStream();
                 if (request.isDefacto()) {
                     httpResp.setContentType(formatter.getIdentifier());
-                    InputStream in = formatter.format(coverage);
-                    if (base64) {
-                        in = new Base64InputStream(in, true);
-                    }
-                    IOUtils.copy(in, out);
-                    out.flush();
-                    out.close();
-                    in.close();
+                    writeCoverage(formatter, coverage, out);
                     return;
                 }
                 long timestamp = System.currentTimeMillis();
@@ -471,14 +456,7 @@ public class OgcWcsProvider implements WcsProvider {
                 stream.println("Content-ID: <" + cid + ">");
                 stream.println();
                 stream.flush();
-                InputStream in = formatter.format(coverage);
-                if (base64) {
-                    in = new Base64InputStream(in, true);
-                }
-                IOUtils.copy(in, out);
-                out.flush();
-                out.close();
-                in.close();
+                writeCoverage(formatter, coverage, out);
             } catch (Exception e) {
                 log.error("Problem formatting coverage", e);
                 throw new WcsException(Code.InternalServerError);
@@ -489,6 +467,28 @@ public class OgcWcsProvider implements WcsProvider {
         }
     }
 
+    /**
+     * Format coverage directly to response stream, encoding if configured.
+     * Stream is closed.
+     * 
+     * @param formatter
+     * @param coverage
+     * @param out
+     * @throws Exception
+     */
+    private void writeCoverage(IWcsDataFormatter formatter, Coverage coverage,
+            OutputStream out) throws Exception {
+        if (base64) {
+            out = new Base64OutputStream(out, true);
+        }
+        try {
+            formatter.format(coverage, out);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
     protected void sendTextResponse(IOgcHttpResponse httpRes,
             OgcResponse response) {
         MimeType mimetype = response.getMimetype();
@@ -796,6 +796,21 @@ public class OgcWcsProvider implements WcsProvider {
         return rval;
     }
 
+    /**
+     * @param jaxbobject
+     * @return UTF-8 encoded xml
+     * @throws WcsException
+     */
+    protected byte[] marshal(Object jaxbobject) throws WcsException {
+        try {
+            return jaxbManager.marshalToXml(jaxbobject).getBytes(
+                    StandardCharsets.UTF_8);
+        } catch (JAXBException e) {
+            log.error("Unable to marshal WCS response", e);
+            throw new WcsException(Code.InternalServerError);
+        }
+    }
+
     public boolean isBase64() {
         return base64;
     }
@@ -122,6 +122,7 @@ import com.raytheon.uf.edex.wcs.WcsException.Code;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * May 6, 2013             bclement     Initial creation
+ * Oct 17, 2026            agent        added getLayerVersion()
  * 
  * </pre>
  * 
@@ -1636,4 +1637,9 @@ public abstract class DefaultWcsSource<D extends SimpleDimension, L extends Simp
         }
     }
 
+    @Override
+    public long getLayerVersion() {
+        return transformer.getVersion();
+    }
+
 }
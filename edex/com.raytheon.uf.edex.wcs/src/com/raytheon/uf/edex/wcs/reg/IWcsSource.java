@@ -46,6 +46,7 @@ import com.raytheon.uf.edex.wcs.WcsException;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * May 6, 2013             bclement     Initial creation
+ * Oct 17, 2026            agent        added getLayerVersion()
  * 
  * </pre>
  * 
@@ -72,6 +73,12 @@ public interface IWcsSource<D extends SimpleDimension, L extends SimpleLayer<D>>
 
     public boolean hasCoverage(String id) throws WcsException;
 
+    /**
+     * @return version that changes whenever the coverages of this source
+     *         change
+     */
+    public long getLayerVersion();
+
     /**
      * @param c
      *            extension class
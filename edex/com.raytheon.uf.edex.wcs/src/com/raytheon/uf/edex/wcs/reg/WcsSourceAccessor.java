@@ -43,6 +43,7 @@ import com.raytheon.uf.edex.wcs.format.IWcsDataFormatter;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * May 3, 2013            bclement     Initial creation
+ * Oct 17, 2026            agent        added getLayerVersions()
  * 
  * </pre>
  * 
@@ -119,6 +120,21 @@ public class WcsSourceAccessor {
         return cd;
     }
 
+    /**
+     * @return layer version of each source by source key, empty map if
+     *         accessor isn't initialized
+     */
+    public static Map<String, Long> getLayerVersions() {
+        if (cache == null) {
+            return new HashMap<String, Long>(0);
+        }
+        Map<String, Long> rval = new HashMap<String, Long>(cache.size());
+        for (String key : cache.keySet()) {
+            rval.put(key, cache.get(key).getLayerVersion());
+        }
+        return rval;
+    }
+
     /**
      * @param id
      * @return null if source is not found or accessor isn't initialized
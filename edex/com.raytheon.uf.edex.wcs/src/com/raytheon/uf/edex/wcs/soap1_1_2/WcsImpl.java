@@ -50,6 +50,7 @@ import com.raytheon.uf.edex.wcs.request.GetCoverageRequest;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Stream coverage attachments
  * 
  * </pre>
  * 
@@ -152,20 +153,14 @@ public class WcsImpl extends AbstractOwsService implements IWcsPortType {
     }
 
     /**
-     * Wrap attachments in data handlers
+     * Get attachments from holder, data is formatted as it is written
      * 
      * @param holder
      * @return
      */
     private Map<String, Object> getAttachments(CoveragesHolder holder) {
-        String contentType = holder.getContentType();
-        Map<String, byte[]> data = holder.getData();
-        Map<String, Object> rval = new HashMap<String, Object>(data.size());
-        for (String id : data.keySet()) {
-            DataHandler h = new DataHandler(data.get(id), contentType);
-            rval.put(id, h);
-        }
-        return rval;
+        Map<String, DataHandler> data = holder.getData();
+        return new HashMap<String, Object>(data);
     }
 
     @Override
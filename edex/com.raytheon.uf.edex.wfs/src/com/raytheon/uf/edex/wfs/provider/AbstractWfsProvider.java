@@ -9,6 +9,7 @@
  */
 package com.raytheon.uf.edex.wfs.provider;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -54,6 +55,7 @@ import com.raytheon.uf.edex.wfs.request.SortBy.Order;
  * ------------ ---------- ----------- --------------------------
  * Oct 25, 2012            bclement     Initial creation
  * Nov 11, 2013 2539        bclement    moved registry/marshal from children
+ * Oct 17, 2026            agent        added marshal()
  * 
  * </pre>
  * 
@@ -290,6 +292,22 @@ public abstract class AbstractWfsProvider implements IWfsProvider {
         }
     }
 
+    /**
+     * @param jaxbobject
+     * @return marshalled object
+     * @throws WfsException
+     */
+    protected byte[] marshal(Object jaxbobject) throws WfsException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            registry.marshal(jaxbobject, out);
+        } catch (Exception e) {
+            log.error("Unable to marshal WFS response", e);
+            throw new WfsException(Code.OperationProcessingFailed);
+        }
+        return out.toByteArray();
+    }
+
     /**
      * Marshal object through response. Response cannot be reused after this
      * method is called.
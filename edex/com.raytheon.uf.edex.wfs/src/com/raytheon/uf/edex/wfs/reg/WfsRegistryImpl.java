@@ -63,6 +63,7 @@ import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
  * Apr 11, 2011            bclement     Initial creation        
  * May 30, 2013   753      dhladky      reverted to original
  * Jul 15, 2014 3373       bclement     jaxb manager api changes
+ * Oct 17, 2026            agent        added getSourceVersion()
  * 
  * </pre>
  * 
@@ -102,6 +103,9 @@ public class WfsRegistryImpl implements IWfsRegistry {
 
 	protected volatile long jaxbContextVersion = 0;
 
+    /* incremented whenever a source is registered or unregistered */
+    protected volatile long sourceVersion = 0;
+
 	protected String prefix = "wfs";
 
     protected final ReadWriteLock lock = new ReentrantReadWriteLock();
@@ -161,6 +165,7 @@ public class WfsRegistryImpl implements IWfsRegistry {
             jaxbClasses = (Class<?>[]) ArrayUtils.addAll(jaxbClasses,
                     source.getJaxbClasses());
             currentVersion++;
+            sourceVersion++;
         } finally {
             write.unlock();
         }
@@ -339,12 +344,20 @@ public class WfsRegistryImpl implements IWfsRegistry {
         write.lock();
         try {
             removeAll(source);
+            sourceVersion++;
         } finally {
             write.unlock();
         }
         return this;
 	}
 
+    /**
+     * @return version that changes whenever the registered sources change
+     */
+    public long getSourceVersion() {
+        return sourceVersion;
+    }
+
     /**
      * Look up source by feature type
      * 
@@ -26,7 +26,6 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 
 import net.opengis.gml.v_3_1_1.FeaturePropertyType;
@@ -47,6 +46,7 @@ import org.w3.xmlschema.Schema;
 
 import com.raytheon.uf.common.http.MimeType;
 import com.raytheon.uf.edex.core.EDEXUtil;
+import com.raytheon.uf.edex.ogc.common.CapabilitiesCache;
 import com.raytheon.uf.edex.ogc.common.OgcException;
 import com.raytheon.uf.edex.ogc.common.OgcOperationInfo;
 import com.raytheon.uf.edex.ogc.common.OgcResponse;
@@ -88,6 +88,7 @@ import com.raytheon.uf.edex.wfs.soap2_0_0.util.DescribeFeatureTypeResponseType;
  * ------------ ---------- ----------- --------------------------
  * Apr 22, 2011            bclement     Initial creation
  * Nov 11, 2013 2539        bclement    moved registry/marshal to parent
+ * Oct 17, 2026            agent        cache marshalled capabilities
  * 
  * </pre>
  * 
@@ -274,14 +275,20 @@ public class Wfs1_1_0Provider extends AbstractWfsProvider {
      *             on unrecoverable error that was unable to be sent via
      *             response
      */
-    public void handleCapabilities(GetCapReq request,
-            OgcServiceInfo<WfsOpType> serviceInfo, IOgcHttpResponse resp)
+    public void handleCapabilities(final GetCapReq request,
+            final OgcServiceInfo<WfsOpType> serviceInfo, IOgcHttpResponse resp)
             throws Exception {
         try {
-            WFSCapabilitiesType cap = getCapabilities(request, serviceInfo);
-            JAXBElement<WFSCapabilitiesType> rval = wfsFactory
-                    .createWFSCapabilities(cap);
-            marshalResponse(rval, OgcResponse.TEXT_XML_MIME, resp);
+            String key = CapabilitiesCache.getKey("WFS", version,
+                    request.getRoles(), serviceInfo);
+            byte[] xml = CapabilitiesCache.get(key,
+                    registry::getSourceVersion, () -> {
+                        WFSCapabilitiesType cap = getCapabilities(request,
+                                serviceInfo);
+                        return marshal(wfsFactory.createWFSCapabilities(cap));
+                    });
+            OgcResponseOutput.sendText(new OgcResponse(xml,
+                    OgcResponse.TEXT_XML_MIME, TYPE.TEXT), resp);
         } catch (WfsException e) {
             OgcResponse response = getError(e, null);
             OgcResponseOutput.sendText(response, resp);
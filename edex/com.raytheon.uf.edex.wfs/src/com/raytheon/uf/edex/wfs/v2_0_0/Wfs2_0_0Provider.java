@@ -69,6 +69,7 @@ import org.w3c.dom.NodeList;
 
 import com.raytheon.uf.common.http.MimeType;
 import com.raytheon.uf.edex.core.EDEXUtil;
+import com.raytheon.uf.edex.ogc.common.CapabilitiesCache;
 import com.raytheon.uf.edex.ogc.common.OgcException;
 import com.raytheon.uf.edex.ogc.common.OgcOperationInfo;
 import com.raytheon.uf.edex.ogc.common.OgcResponse;
@@ -119,6 +120,7 @@ import com.raytheon.uf.edex.wfs.util.XMLGregorianCalendarConverter;
  * Sep 18, 2013 #411       skorolev     Added required RESPONSE METADATA
  * Nov 11, 2013 2539       bclement     moved registry/marshal to parent
  * Jul 15, 2014 3373       bclement     jaxb manager api changes
+ * Oct 17, 2026            agent        cache marshalled capabilities
  * 
  * </pre>
  * 
@@ -322,14 +324,20 @@ public class Wfs2_0_0Provider extends AbstractWfsProvider implements
      *             on unrecoverable error that was unable to be sent via
      *             response
      */
-    public void handleCapabilities(GetCapReq request,
-            OgcServiceInfo<WfsOpType> serviceInfo, IOgcHttpResponse resp)
+    public void handleCapabilities(final GetCapReq request,
+            final OgcServiceInfo<WfsOpType> serviceInfo, IOgcHttpResponse resp)
             throws Exception {
         try {
-            WFSCapabilitiesType cap = getCapabilities(request, serviceInfo);
-            JAXBElement<WFSCapabilitiesType> rval = wfsFactory
-                    .createWFSCapabilities(cap);
-            marshalResponse(rval, OgcResponse.TEXT_XML_MIME, resp);
+            String key = CapabilitiesCache.getKey("WFS", version,
+                    request.getRoles(), serviceInfo);
+            byte[] xml = CapabilitiesCache.get(key,
+                    registry::getSourceVersion, () -> {
+                        WFSCapabilitiesType cap = getCapabilities(request,
+                                serviceInfo);
+                        return marshal(wfsFactory.createWFSCapabilities(cap));
+                    });
+            OgcResponseOutput.sendText(new OgcResponse(xml,
+                    OgcResponse.TEXT_XML_MIME, TYPE.TEXT), resp);
         } catch (WfsException e) {
             OgcResponse response = getError(e, null);
             OgcResponseOutput.sendText(response, resp);
@@ -21,10 +21,21 @@ package com.raytheon.uf.edex.wms.provider;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.geotools.coverage.grid.GridGeometry2D;
 import org.geotools.styling.NamedLayer;
@@ -39,7 +50,9 @@ import com.raytheon.uf.edex.wms.reg.WmsSource;
 import com.raytheon.uf.edex.wms.util.StyleLibrary;
 
 /**
- * Handles get map requests for layer imagery
+ * Handles get map requests for layer imagery. Images for the layers of a
+ * request are fetched concurrently on a shared bounded pool and returned in
+ * request order.
  * 
  * <pre>
  * SOFTWARE HISTORY
@@ -47,6 +60,8 @@ import com.raytheon.uf.edex.wms.util.StyleLibrary;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Fetch layer images concurrently
+ * Oct 17, 2026            agent        Fail on first fetch error to complete
  * 
  * </pre>
  * 
@@ -55,6 +70,34 @@ import com.raytheon.uf.edex.wms.util.StyleLibrary;
  */
 public class GetMapProcessor {
 
+    public static final int FETCH_THREADS = Integer.getInteger(
+            "wms.getmap.threads", 8);
+
+    public static final int FETCH_QUEUE_SIZE = Integer.getInteger(
+            "wms.getmap.queue.size", 256);
+
+    public static final long FETCH_TIMEOUT_MILLIS = Long.getLong(
+            "wms.getmap.timeout.seconds", 60) * 1000;
+
+    /*
+     * callers fetch images themselves when the pool is saturated so a burst of
+     * requests degrades to the old sequential behavior instead of failing
+     */
+    private static final ThreadPoolExecutor fetchPool;
+
+    static {
+        final AtomicInteger count = new AtomicInteger();
+        fetchPool = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS, 60L,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+                        FETCH_QUEUE_SIZE), r -> {
+                    Thread t = new Thread(r, "wms-getmap-fetch-"
+                            + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        fetchPool.allowCoreThreadTimeOut(true);
+    }
+
     protected GridGeometry2D geometry;
 
     protected String elevation;
@@ -92,36 +135,41 @@ public class GetMapProcessor {
     public List<WmsImage> getMapSld(StyledLayerDescriptor sld, String[] times)
             throws WmsException {
         StyledLayer[] layers = sld.getStyledLayers();
-        ArrayList<WmsImage> rval = new ArrayList<WmsImage>(layers.length);
-        String time;
+        final String time;
         if (times.length == 1) {
             time = times[0];
         } else {
             throw new WmsException(Code.InvalidParameterValue,
                     "times per layer not supported for sld");
         }
+        List<Callable<List<WmsImage>>> tasks = new ArrayList<Callable<List<WmsImage>>>(
+                layers.length);
         for (StyledLayer sl : layers) {
             if (sl instanceof NamedLayer) {
                 NamedLayer layer = (NamedLayer) sl;
-                String layerName = layer.getName();
-                WmsSource source = getSource(layerName);
-                Style[] styles = layer.getStyles();
-                if (styles == null || styles.length < 1) {
-                    // request a layer with default style
-                    WmsImage img = source.getImage(layerName, null, true,
-                            geometry, time, elevation, dimensions, scale);
-                    rval.add(img);
-                } else {
+                final String layerName = layer.getName();
+                final WmsSource source = getSource(layerName);
+                final Style[] styles = layer.getStyles();
+                tasks.add(() -> {
+                    if (styles == null || styles.length < 1) {
+                        // request a layer with default style
+                        WmsImage img = source.getImage(layerName, null, true,
+                                geometry, time, elevation, dimensions, scale);
+                        return Collections.singletonList(img);
+                    }
+                    List<WmsImage> images = new ArrayList<WmsImage>(
+                            styles.length);
                     for (Style s : styles) {
                         WmsImage img = source.getImage(layerName, null, false,
                                 geometry, time, elevation, dimensions, scale);
                         img.setStyle(s);
-                        rval.add(img);
+                        images.add(img);
                     }
-                }
+                    return images;
+                });
             }
         }
-        return rval;
+        return fetchAll(tasks);
     }
 
     protected WmsSource getSource(String layer) throws WmsException {
@@ -139,13 +187,14 @@ public class GetMapProcessor {
     public List<WmsImage> getMapStyleLib(String[] layers, String[] styles,
             String[] times, StyledLayerDescriptor sld) throws WmsException {
         StyleLibrary lib = new StyleLibrary(sld);
-        ArrayList<WmsImage> rval = new ArrayList<WmsImage>(layers.length);
+        List<Callable<List<WmsImage>>> tasks = new ArrayList<Callable<List<WmsImage>>>(
+                layers.length);
         for (int i = 0; i < layers.length; ++i) {
-            String layerName = layers[i];
-            WmsSource source = getSource(layerName);
-            String styleName = styles[i];
-            String time = times[i];
-            Style style = null;
+            final String layerName = layers[i];
+            final WmsSource source = getSource(layerName);
+            final String styleName = styles[i];
+            final String time = times[i];
+            final Style style;
             if (styleName != null && styleName.trim().isEmpty()) {
                 // use default
                 style = lib.getDefault(layerName);
@@ -153,38 +202,133 @@ public class GetMapProcessor {
                 // use library
                 style = lib.getNamedStyle(styleName);
             }
-            WmsImage img;
-            if (style == null) {
-                // not in library, pass to source to see if they know it
-                img = source.getImage(layerName, styleName, false, geometry,
-                        time, elevation, dimensions, scale);
-            } else {
-                // get without style
-                img = source.getImage(layerName, null, false, geometry, time,
-                        elevation, dimensions, scale);
-                img.setStyle(style);
-            }
-            rval.add(img);
+            tasks.add(() -> {
+                WmsImage img;
+                if (style == null) {
+                    // not in library, pass to source to see if they know it
+                    img = source.getImage(layerName, styleName, false,
+                            geometry, time, elevation, dimensions, scale);
+                } else {
+                    // get without style
+                    img = source.getImage(layerName, null, false, geometry,
+                            time, elevation, dimensions, scale);
+                    img.setStyle(style);
+                }
+                return Collections.singletonList(img);
+            });
         }
-        return rval;
+        return fetchAll(tasks);
     }
 
     public List<WmsImage> getMap(String[] layers, String[] styles,
             String[] times) throws WmsException {
-        ArrayList<WmsImage> rval = new ArrayList<WmsImage>(layers.length);
+        List<Callable<List<WmsImage>>> tasks = new ArrayList<Callable<List<WmsImage>>>(
+                layers.length);
         for (int i = 0; i < layers.length; ++i) {
-            String layerName = layers[i];
-            WmsSource source = getSource(layerName);
-            String styleName = styles[i];
-            String time = times[i];
-            boolean defaultStyle = (styleName == null || styleName.isEmpty());
-            WmsImage img = source.getImage(layerName, styleName, defaultStyle,
-                    geometry, time, elevation, dimensions, scale);
-            if (img != null) {
-                rval.add(img);
+            final String layerName = layers[i];
+            final WmsSource source = getSource(layerName);
+            final String styleName = styles[i];
+            final String time = times[i];
+            final boolean defaultStyle = (styleName == null || styleName
+                    .isEmpty());
+            tasks.add(() -> {
+                WmsImage img = source.getImage(layerName, styleName,
+                        defaultStyle, geometry, time, elevation, dimensions,
+                        scale);
+                if (img == null) {
+                    return Collections.emptyList();
+                }
+                return Collections.singletonList(img);
+            });
+        }
+        return fetchAll(tasks);
+    }
+
+    /**
+     * Run image fetches concurrently. Images are returned in task order. As
+     * soon as any fetch fails or the request deadline passes, outstanding
+     * fetches are cancelled.
+     * 
+     * @param tasks
+     * @return
+     * @throws WmsException
+     *             first error to complete or InternalServerError on timeout
+     */
+    protected List<WmsImage> fetchAll(List<Callable<List<WmsImage>>> tasks)
+            throws WmsException {
+        List<WmsImage> rval = new ArrayList<WmsImage>(tasks.size());
+        if (tasks.size() == 1) {
+            // nothing to overlap, avoid the hand off
+            rval.addAll(call(tasks.get(0)));
+            return rval;
+        }
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(FETCH_TIMEOUT_MILLIS);
+        CompletionService<List<WmsImage>> completion = new ExecutorCompletionService<List<WmsImage>>(
+                fetchPool);
+        /* task index of each future, results complete in any order */
+        Map<Future<List<WmsImage>>, Integer> futures = new HashMap<Future<List<WmsImage>>, Integer>(
+                tasks.size() * 2);
+        List<List<WmsImage>> results = new ArrayList<List<WmsImage>>(
+                Collections.nCopies(tasks.size(), (List<WmsImage>) null));
+        try {
+            for (int i = 0; i < tasks.size(); ++i) {
+                futures.put(completion.submit(tasks.get(i)), i);
+            }
+            for (int i = 0; i < tasks.size(); ++i) {
+                long remaining = deadline - System.nanoTime();
+                Future<List<WmsImage>> f = completion.poll(
+                        Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                if (f == null) {
+                    throw new WmsException(Code.InternalServerError,
+                            "Timed out rendering map layers");
+                }
+                results.set(futures.get(f), f.get());
+            }
+            for (List<WmsImage> images : results) {
+                rval.addAll(images);
+            }
+            return rval;
+        } catch (ExecutionException e) {
+            throw toWmsException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WmsException(Code.InternalServerError,
+                    "Interrupted while rendering map layers");
+        } finally {
+            for (Future<List<WmsImage>> f : futures.keySet()) {
+                f.cancel(true);
             }
         }
-        return rval;
+    }
+
+    private static List<WmsImage> call(Callable<List<WmsImage>> task)
+            throws WmsException {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw toWmsException(e);
+        }
+    }
+
+    /**
+     * Unchecked exceptions are rethrown as they would have been if the fetch
+     * ran on the calling thread
+     * 
+     * @param t
+     * @return
+     */
+    private static WmsException toWmsException(Throwable t) {
+        if (t instanceof WmsException) {
+            return (WmsException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new WmsException(Code.InternalServerError, t);
     }
 
 }
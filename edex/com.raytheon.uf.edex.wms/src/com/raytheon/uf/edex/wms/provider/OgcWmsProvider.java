@@ -23,9 +23,11 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -74,6 +76,7 @@ import org.geotools.map.FeatureLayer;
 import org.geotools.map.GridCoverageLayer;
 import org.geotools.map.MapContent;
 import org.geotools.map.MapViewport;
+import org.geotools.referencing.CRS;
 import org.geotools.styling.FeatureTypeStyle;
 import org.geotools.styling.NamedLayer;
 import org.geotools.styling.Style;
@@ -85,7 +88,9 @@ import org.opengis.coverage.grid.GridEnvelope;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.geometry.DirectPosition;
+import org.opengis.metadata.spatial.PixelOrientation;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransform2D;
 import org.springframework.context.ApplicationContext;
 
@@ -93,6 +98,7 @@ import com.raytheon.uf.common.http.MimeType;
 import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
 import com.raytheon.uf.edex.core.EDEXUtil;
+import com.raytheon.uf.edex.ogc.common.CapabilitiesCache;
 import com.raytheon.uf.edex.ogc.common.OgcNamespace;
 import com.raytheon.uf.edex.ogc.common.OgcOperationInfo;
 import com.raytheon.uf.edex.ogc.common.OgcPrefix;
@@ -126,6 +132,9 @@ import org.locationtech.jts.geom.Envelope;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Composite pre-rendered coverages
+ *                                      directly when on the target grid
+ * Oct 17, 2026            agent        cache marshalled capabilities
  * 
  * </pre>
  * 
@@ -136,6 +145,9 @@ public class OgcWmsProvider implements IWmsProvider {
 
     protected static final String svcTitle = "EDEX Map Server";
 
+    /* fraction of a pixel that grids can differ by and still be the same */
+    private static final double GRID_TOLERANCE = 1.0e-3;
+
     protected WmsLayerManager layerManager;
 
     protected OgcJaxbManager jaxbManager;
@@ -157,14 +169,20 @@ public class OgcWmsProvider implements IWmsProvider {
     }
 
     @Override
-    public OgcResponse getCapabilities(BaseRequest<WmsOpType> req) {
+    public OgcResponse getCapabilities(final BaseRequest<WmsOpType> req) {
         OgcResponse rval;
         try {
-            WMSCapabilities capabilities = new WMSCapabilities();
-            OgcServiceInfo<WmsOpType> serviceinfo = req.getServiceinfo();
-            capabilities.setService(getServiceInfo(serviceinfo));
-            capabilities.setCapability(getMainCapability(req));
-            rval = marshalResponse(capabilities);
+            final OgcServiceInfo<WmsOpType> serviceinfo = req.getServiceinfo();
+            String key = CapabilitiesCache.getKey(WMS_NAME, "1.3.0",
+                    req.getRoles(), serviceinfo);
+            byte[] xml = CapabilitiesCache.get(key,
+                    layerManager::getLayerVersions, () -> {
+                        WMSCapabilities capabilities = new WMSCapabilities();
+                        capabilities.setService(getServiceInfo(serviceinfo));
+                        capabilities.setCapability(getMainCapability(req));
+                        return marshal(capabilities);
+                    });
+            rval = new OgcResponse(xml, OgcResponse.TEXT_XML_MIME, TYPE.TEXT);
         } catch (WmsException e) {
             rval = getError(e, req.getExceptionFormat());
         }
@@ -284,6 +302,21 @@ public class OgcWmsProvider implements IWmsProvider {
         return rval;
     }
 
+    /**
+     * @param jaxbobject
+     * @return UTF-8 encoded xml
+     * @throws WmsException
+     */
+    protected byte[] marshal(Object jaxbobject) throws WmsException {
+        try {
+            return jaxbManager.marshalToXml(jaxbobject).getBytes(
+                    StandardCharsets.UTF_8);
+        } catch (JAXBException e) {
+            log.error("Unable to marshal WMS response", e);
+            throw new WmsException(Code.InternalServerError);
+        }
+    }
+
     @Override
     public OgcResponse handlePost(InputStream in) {
         Element root;
@@ -493,9 +526,133 @@ public class OgcWmsProvider implements IWmsProvider {
         return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
     }
 
+    /**
+     * Render images to a single map image in list order. Pre-rendered
+     * coverages that are already on the target grid are drawn directly,
+     * everything else is rendered by GeoTools.
+     * 
+     * @param images
+     * @param clear
+     *            true if background should be transparent
+     * @param bgcolor
+     * @param geom
+     *            target geometry
+     * @return
+     * @throws WmsException
+     */
     public static BufferedImage mergeWmsImages(List<WmsImage> images,
             boolean clear, Color bgcolor, GridGeometry2D geom)
             throws WmsException {
+        boolean direct = false;
+        for (WmsImage i : images) {
+            if (isOnGrid(i, geom)) {
+                direct = true;
+                break;
+            }
+        }
+        if (!direct) {
+            return renderMap(images, clear, bgcolor, geom);
+        }
+        GridEnvelope2D range = geom.getGridRange2D();
+        BufferedImage rval = new BufferedImage(range.width, range.height,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = rval.createGraphics();
+        try {
+            if (!clear && bgcolor != null) {
+                g.setColor(bgcolor);
+                g.fillRect(0, 0, range.width, range.height);
+            }
+            List<WmsImage> pending = new ArrayList<WmsImage>(images.size());
+            for (WmsImage i : images) {
+                if (isOnGrid(i, geom)) {
+                    drawRendered(g, pending, geom);
+                    // default composite is alpha blending source over dest
+                    g.drawRenderedImage(i.getCoverage().getRenderedImage(),
+                            new AffineTransform());
+                } else if (i.getType() != WmsImage.TYPE.BLANK) {
+                    pending.add(i);
+                }
+            }
+            drawRendered(g, pending, geom);
+        } finally {
+            g.dispose();
+        }
+        return rval;
+    }
+
+    /**
+     * Render images that can't be composited directly with GeoTools and draw
+     * them over the current contents of the graphics
+     * 
+     * @param g
+     * @param pending
+     *            cleared after drawing
+     * @param geom
+     * @throws WmsException
+     */
+    private static void drawRendered(Graphics2D g, List<WmsImage> pending,
+            GridGeometry2D geom) throws WmsException {
+        if (!pending.isEmpty()) {
+            g.drawImage(renderMap(pending, true, null, geom), 0, 0, null);
+            pending.clear();
+        }
+    }
+
+    /**
+     * @param image
+     * @param geom
+     * @return true if image is a pre-rendered coverage that has the same grid
+     *         as geom
+     */
+    protected static boolean isOnGrid(WmsImage image, GridGeometry2D geom) {
+        if (image.getType() != WmsImage.TYPE.COVERAGE
+                || !image.isPreRendered() || image.getCoverage() == null) {
+            return false;
+        }
+        GridGeometry2D covGeom = image.getCoverage().getGridGeometry();
+        if (!covGeom.getGridRange2D().equals(geom.getGridRange2D())) {
+            return false;
+        }
+        CoordinateReferenceSystem covCrs = covGeom
+                .getCoordinateReferenceSystem();
+        CoordinateReferenceSystem crs = geom.getCoordinateReferenceSystem();
+        if (covCrs != crs && !CRS.equalsIgnoreMetadata(covCrs, crs)) {
+            return false;
+        }
+        MathTransform covTransform = covGeom
+                .getGridToCRS2D(PixelOrientation.UPPER_LEFT);
+        MathTransform transform = geom
+                .getGridToCRS2D(PixelOrientation.UPPER_LEFT);
+        if (!(covTransform instanceof AffineTransform)
+                || !(transform instanceof AffineTransform)) {
+            return false;
+        }
+        AffineTransform a = (AffineTransform) covTransform;
+        AffineTransform b = (AffineTransform) transform;
+        // allow a small fraction of a pixel for rounding in envelopes
+        double tol = GRID_TOLERANCE
+                * Math.min(Math.abs(b.getScaleX()), Math.abs(b.getScaleY()));
+        return Math.abs(a.getScaleX() - b.getScaleX()) <= tol
+                && Math.abs(a.getScaleY() - b.getScaleY()) <= tol
+                && Math.abs(a.getShearX() - b.getShearX()) <= tol
+                && Math.abs(a.getShearY() - b.getShearY()) <= tol
+                && Math.abs(a.getTranslateX() - b.getTranslateX()) <= tol
+                && Math.abs(a.getTranslateY() - b.getTranslateY()) <= tol;
+    }
+
+    /**
+     * Render images using GeoTools
+     * 
+     * @param images
+     * @param clear
+     * @param bgcolor
+     * @param geom
+     * @return
+     * @throws WmsException
+     */
+    protected static BufferedImage renderMap(List<WmsImage> images,
+            boolean clear, Color bgcolor, GridGeometry2D geom)
+            throws WmsException {
         CoordinateReferenceSystem crs = geom.getCoordinateReferenceSystem();
         Envelope2D env = geom.getEnvelope2D();
         GridEnvelope2D range = geom.getGridRange2D();
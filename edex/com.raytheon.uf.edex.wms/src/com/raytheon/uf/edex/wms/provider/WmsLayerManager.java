@@ -29,7 +29,10 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.opengis.wms.v_1_3_0.BoundingBox;
 import net.opengis.wms.v_1_3_0.Dimension;
@@ -60,7 +63,9 @@ import com.raytheon.uf.edex.wms.reg.WmsSource;
 import com.raytheon.uf.edex.wms.reg.WmsSourceAccessor;
 
 /**
- * Handles retrieving OGC layer metadata from WMS source objects
+ * Handles retrieving OGC layer metadata from WMS source objects. When caching
+ * is enabled, the layers of each source are kept until the layer version of
+ * the source changes so only sources with changed layers are rebuilt.
  * 
  * <pre>
  * SOFTWARE HISTORY
@@ -68,6 +73,9 @@ import com.raytheon.uf.edex.wms.reg.WmsSourceAccessor;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        cache layers per source by layer
+ *                                      version, caching on by default
+ * Oct 17, 2026            agent        added getLayerVersions()
  * 
  * </pre>
  * 
@@ -76,11 +84,11 @@ import com.raytheon.uf.edex.wms.reg.WmsSourceAccessor;
  */
 public class WmsLayerManager {
 
-    protected HashMap<String, List<Layer>> layermap = new HashMap<String, List<Layer>>();
-
+    /* cached layers by source key */
+    protected final Map<String, SourceLayers> layermap = new ConcurrentHashMap<String, SourceLayers>();
     protected WmsSourceAccessor registry = new WmsSourceAccessor();
 
-    protected boolean caching = false;
+    protected boolean caching = true;
 
     protected String componentPrefix = "wms";
 
@@ -108,6 +116,19 @@ public class WmsLayerManager {
         return rval;
     }
 
+    /**
+     * @return layer version of each source by source key, changes whenever
+     *         the layers of any source change
+     */
+    public Map<String, Long> getLayerVersions() {
+        Map<String, WmsSource> sources = registry.getSources();
+        Map<String, Long> rval = new HashMap<String, Long>(sources.size());
+        for (Entry<String, WmsSource> e : sources.entrySet()) {
+            rval.put(e.getKey(), e.getValue().getLayerVersion());
+        }
+        return rval;
+    }
+
     public List<Layer> getLayers(OgcServiceInfo<WmsOpType> ogcServiceInfo) {
         if (caching) {
             return getLayersCache(ogcServiceInfo);
@@ -116,20 +137,33 @@ public class WmsLayerManager {
         }
     }
 
+    /**
+     * Get layers, rebuilding only the layers of sources that have changed
+     * since they were cached. Cached layers are shared and must not be
+     * modified.
+     * 
+     * @param ogcServiceInfo
+     * @return
+     */
     protected List<Layer> getLayersCache(
             OgcServiceInfo<WmsOpType> ogcServiceInfo) {
         List<Layer> rval = new LinkedList<Layer>();
+        /* legend URLs are the only part of layers that use service info */
+        OgcOperationInfo<WmsOpType> legendOp = getLegendOp(ogcServiceInfo);
+        String legendRes = legendOp == null ? null : legendOp.getHttpGetRes();
         Map<String, WmsSource> sources = registry.getSources();
-        for (String key : sources.keySet()) {
-            WmsSource source = sources.get(key);
-            List<Layer> layers;
-            if (layermap.isEmpty() || source.hasUpdated()) {
-                layers = getPluginLayers(source, ogcServiceInfo);
-                layermap.put(key, layers);
-            } else {
-                layers = layermap.get(key);
+        for (Entry<String, WmsSource> e : sources.entrySet()) {
+            WmsSource source = e.getValue();
+            /* version is read before layers so changes are never missed */
+            long version = source.getLayerVersion();
+            SourceLayers cached = layermap.get(e.getKey());
+            if (cached == null || cached.version != version
+                    || !Objects.equals(cached.legendRes, legendRes)) {
+                cached = new SourceLayers(version, legendRes,
+                        getPluginLayers(source, ogcServiceInfo));
+                layermap.put(e.getKey(), cached);
             }
-            rval.addAll(layers);
+            rval.addAll(cached.layers);
         }
         return rval;
     }
@@ -333,6 +367,31 @@ public class WmsLayerManager {
         return rval;
     }
 
+    /**
+     * Layers built for a source
+     */
+    protected static class SourceLayers {
+
+        public final long version;
+
+        public final String legendRes;
+
+        public final List<Layer> layers;
+
+        /**
+         * @param version
+         *            layer version of source when layers were built
+         * @param legendRes
+         *            legend resource used to build layers
+         * @param layers
+         */
+        public SourceLayers(long version, String legendRes, List<Layer> layers) {
+            this.version = version;
+            this.legendRes = legendRes;
+            this.layers = layers;
+        }
+    }
+
     public boolean isCaching() {
         return caching;
     }
@@ -54,6 +54,7 @@ import com.raytheon.uf.edex.ogc.common.db.SimpleDimension;
 import com.raytheon.uf.edex.ogc.common.db.SimpleLayer;
 import com.raytheon.uf.edex.wms.WmsException;
 import com.raytheon.uf.edex.wms.WmsException.Code;
+import com.raytheon.uf.edex.wms.styling.StyleRuleWatcher;
 
 /**
  * Base OGC Web Map Service plugin implementation
@@ -64,6 +65,8 @@ import com.raytheon.uf.edex.wms.WmsException.Code;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        layer version from transformer
+ * Oct 17, 2026            agent        Added getLayerNames, style rule version
  * 
  * </pre>
  * 
@@ -330,8 +333,19 @@ public abstract class AbstractWmsSource<D extends SimpleDimension, L extends Sim
     }
 
     @Override
-    public boolean hasUpdated() {
-        return true;
+    public List<String> getLayerNames() throws OgcException {
+        List<L> layers = transformer.getLayers();
+        List<String> rval = new ArrayList<String>(layers.size());
+        for (L layer : layers) {
+            rval.add(layer.getName());
+        }
+        return rval;
+    }
+
+    @Override
+    public long getLayerVersion() {
+        /* both only increase so the sum changes whenever either does */
+        return transformer.getVersion() + StyleRuleWatcher.getVersion();
     }
 
     @Override
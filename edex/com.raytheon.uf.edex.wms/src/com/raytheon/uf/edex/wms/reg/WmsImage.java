@@ -34,6 +34,7 @@ import org.opengis.feature.simple.SimpleFeatureType;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        Added pre-rendered flag
  * 
  * </pre>
  * 
@@ -54,6 +55,9 @@ public class WmsImage {
 
     protected Style style;
 
+    /* true if coverage is already colored and style is just a pass through */
+    protected boolean preRendered = false;
+
     public WmsImage(GridCoverage2D coverage, Style style) {
         this(coverage);
         this.style = style;
@@ -96,6 +100,24 @@ public class WmsImage {
     public void setStyle(Style style) {
         this.style = style;
         this.type = TYPE.FEATURE;
+        this.preRendered = false;
+    }
+
+    /**
+     * @return true if the coverage image is already colored and can be drawn
+     *         without applying the style
+     */
+    public boolean isPreRendered() {
+        return preRendered;
+    }
+
+    /**
+     * @param preRendered
+     *            true if the coverage image is already colored and can be
+     *            drawn without applying the style
+     */
+    public void setPreRendered(boolean preRendered) {
+        this.preRendered = preRendered;
     }
 
 }
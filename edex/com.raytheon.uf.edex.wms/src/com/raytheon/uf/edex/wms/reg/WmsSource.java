@@ -40,6 +40,8 @@ import org.locationtech.jts.geom.Coordinate;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 28, 2012            bclement     Initial creation
+ * Oct 17, 2026            agent        replaced hasUpdated() with
+ *                                      getLayerVersion()
  * 
  * </pre>
  * 
@@ -64,7 +66,11 @@ public interface WmsSource {
             GridGeometry2D targetGeom, String time, String elevation,
             Map<String, String> dimensions, double scale) throws WmsException;
 
-    public boolean hasUpdated();
+    /**
+     * @return version of layer metadata, changes every time the layers
+     *         returned by {@link #listLayers()} change
+     */
+    public long getLayerVersion();
 
     public List<SimpleFeature> getFeatureInfo(String layer,
             GridGeometry2D targetGeom, String time,
@@ -25,11 +25,11 @@ import java.awt.image.RenderedImage;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.measure.Unit;
 import javax.measure.UnitConverter;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.geotools.coverage.grid.GridCoverageFactory;
 import org.geotools.coverage.grid.GridGeometry2D;
@@ -40,6 +40,8 @@ import org.geotools.styling.RasterSymbolizer;
 import org.geotools.styling.Style;
 import org.geotools.styling.StyleBuilder;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.raytheon.uf.common.colormap.ColorMap;
 import com.raytheon.uf.common.colormap.ColorMapException;
 import com.raytheon.uf.common.colormap.ColorMapLoader;
@@ -57,10 +59,14 @@ import com.raytheon.uf.common.style.StyleException;
 import com.raytheon.uf.common.style.StyleManager;
 import com.raytheon.uf.common.style.StyleRule;
 import com.raytheon.uf.common.style.image.ColorMapParameterFactory;
+import com.raytheon.uf.common.style.image.DataScale;
 import com.raytheon.uf.common.style.image.ImagePreferences;
+import com.raytheon.uf.common.style.level.Level;
+import com.raytheon.uf.common.style.level.SingleLevel;
 import com.raytheon.uf.edex.database.plugin.PluginDao;
 import com.raytheon.uf.edex.database.plugin.PluginFactory;
 import com.raytheon.uf.edex.ogc.common.IStyleLookupCallback;
+import com.raytheon.uf.edex.ogc.common.OgcException;
 import com.raytheon.uf.edex.ogc.common.OgcStyle;
 import com.raytheon.uf.edex.ogc.common.reprojection.ReferencedDataRecord;
 import com.raytheon.uf.edex.wms.WmsException;
@@ -79,6 +85,10 @@ import com.raytheon.uf.edex.wms.util.LegendUtility;
  * ------------- -------- --------- --------------------------
  * Nov 28, 2012           bclement  Initial creation
  * Aug 30, 2016  5867     randerso  Updated for GeoTools 15.1
+ * Oct 17, 2026           agent     Flag images as pre-rendered
+ * Oct 17, 2026           agent     Memoize default colormap per criteria
+ * Oct 17, 2026           agent     Cache colormap params by criteria and stats
+ * Oct 17, 2026           agent     Don't read data for fixed range styles
  *
  * </pre>
  *
@@ -88,9 +98,19 @@ import com.raytheon.uf.edex.wms.util.LegendUtility;
 public abstract class ColormapStyleProvider<R extends PluginDataObject>
         implements ICoverageStyleProvider<R> {
 
-    @SuppressWarnings("unchecked")
-    protected static final Map<String, ColorMapParameters> PARAM_CACHE = new LRUMap(
-            32);
+    /* colormap parameters by style criteria, units and data range */
+    protected static final Cache<String, ColorMapParameters> PARAM_CACHE = Caffeine
+            .newBuilder()
+            .maximumSize(Integer.getInteger("ogc.colormap.params.cache.size",
+                    1024))
+            .build();
+
+    /* min and max of data by record data uri */
+    protected static final Cache<String, float[]> STATS_CACHE = Caffeine
+            .newBuilder()
+            .maximumSize(Integer.getInteger("ogc.colormap.stats.cache.size",
+                    65536))
+            .build();
 
     protected String styleLibraryFileName;
 
@@ -109,6 +129,9 @@ public abstract class ColormapStyleProvider<R extends PluginDataObject>
 
     protected IStyleLookupCallback<R> callback;
 
+    /* style rule results for the current style rule version */
+    private volatile Memo memo = new Memo(StyleRuleWatcher.getVersion());
+
     public ColormapStyleProvider(IStyleLookupCallback<R> callback,
             String defaultColormap) {
         this(callback);
@@ -124,47 +147,69 @@ public abstract class ColormapStyleProvider<R extends PluginDataObject>
     }
 
     /**
-     * Create colormap parameters for data record
+     * Create colormap parameters for data record. Data is only read if the
+     * style rules do not define a range and statistics for the record are not
+     * cached.
      *
      * @param record
      * @return
-     * @throws StyleException
-     * @throws ColorTableException
      * @throws WmsException
      */
     protected ColorMapParameters getCmapParams(R record) throws WmsException {
-        ColorMapParameters rval;
-        synchronized (PARAM_CACHE) {
-            rval = PARAM_CACHE.get(record.getDataURI());
-        }
-        if (rval == null) {
-            Object rawData = getRawData(record);
-            return getCmapParams(record, rawData);
-        }
-        return rval;
+        return getCmapParams(record, null);
     }
 
     /**
-     * Create colormap parameters for data record
+     * Create colormap parameters for data record. Parameters depend on the
+     * style rules for the record criteria and, if the style rules do not define
+     * a range, the min and max of the record data. They are cached for all
+     * records with the same criteria and range.
      *
      * @param record
      * @param rawData
-     * @return
-     * @throws StyleException
-     * @throws ColorTableException
+     *            data for record, null if it has not been read
+     * @return a copy that the caller may modify
      * @throws WmsException
      */
     protected ColorMapParameters getCmapParams(R record, Object rawData)
             throws WmsException {
-        ColorMapParameters rval;
-        synchronized (PARAM_CACHE) {
-            rval = PARAM_CACHE.get(record.getDataURI());
+        Unit<?> paramUnits = getParamUnits(record);
+        ParamLevelMatchCriteria criteria = getCriteria(record);
+        String criteriaKey = getCriteriaKey(criteria);
+        StringBuilder key = new StringBuilder();
+        key.append(StyleRuleWatcher.getVersion()).append('|')
+                .append(criteriaKey).append('|').append(paramUnits);
+        Object data = null;
+        boolean fixedRange = hasFixedRange(criteria, criteriaKey);
+        ColorMapParameters rval = null;
+        if (fixedRange) {
+            /* range comes from the style rules, data is not needed */
+            rval = PARAM_CACHE.getIfPresent(key.toString());
+        } else {
+            /* range comes from the data, only read it if stats are missing */
+            float[] stats = STATS_CACHE.getIfPresent(record.getDataURI());
+            if (stats == null) {
+                if (rawData == null) {
+                    rawData = getRawData(record);
+                }
+                stats = computeStats(rawData);
+                if (stats != null) {
+                    STATS_CACHE.put(record.getDataURI(), stats);
+                }
+            }
+            if (stats != null) {
+                data = stats;
+                key.append('|').append(stats[0]).append(',').append(stats[1]);
+            } else {
+                /* unsupported data type, parameters are specific to record */
+                data = rawData;
+                key.append('|').append(record.getDataURI());
+            }
+            rval = PARAM_CACHE.getIfPresent(key.toString());
         }
         if (rval == null) {
-            Unit<?> paramUnits = getParamUnits(record);
-            ParamLevelMatchCriteria criteria = getCriteria(record);
             try {
-                rval = ColorMapParameterFactory.build(rawData, paramUnits,
+                rval = ColorMapParameterFactory.build(data, paramUnits,
                         criteria);
                 String colorMapName = rval.getColorMapName();
                 if (colorMapName == null) {
@@ -174,18 +219,79 @@ public abstract class ColormapStyleProvider<R extends PluginDataObject>
                 IColorMap cmap = ColorMapLoader.loadColorMap(colorMapName);
                 rval.setColorMap(cmap);
                 rval = finalizeCmapParams(record, rval);
-                synchronized (PARAM_CACHE) {
-                    PARAM_CACHE.put(record.getDataURI(), rval);
-                }
+                PARAM_CACHE.put(key.toString(), rval);
             } catch (Exception e) {
                 log.error("Unable to create colormap params for record: "
                         + record, e);
                 throw new WmsException(Code.InternalServerError);
             }
         }
+        return rval.clone();
+    }
+
+    /**
+     * @param criteria
+     * @param criteriaKey
+     *            from {@link #getCriteriaKey(ParamLevelMatchCriteria)}
+     * @return true if the style rules for criteria define both ends of the
+     *         data range so colormap parameters do not depend on the data
+     * @throws WmsException
+     */
+    protected boolean hasFixedRange(ParamLevelMatchCriteria criteria,
+            String criteriaKey) throws WmsException {
+        Memo current = getMemo();
+        Boolean rval = current.fixedRange.get(criteriaKey);
+        if (rval == null) {
+            rval = false;
+            ImagePreferences prefs = getImagePreferences(criteria);
+            if (prefs != null) {
+                DataScale scale = prefs.getDataScale();
+                rval = scale != null && scale.getMinValue() != null
+                        && scale.getMaxValue() != null;
+            }
+            current.fixedRange.put(criteriaKey, rval);
+        }
         return rval;
     }
 
+    /**
+     * Find the min and max of data, ignoring missing values
+     *
+     * @param rawData
+     * @return min and max, null if data is not supported
+     */
+    protected float[] computeStats(Object rawData) {
+        if (!(rawData instanceof float[])) {
+            return null;
+        }
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float f : (float[]) rawData) {
+            if (Float.isNaN(f) || isNoData(f)) {
+                continue;
+            }
+            if (f < min) {
+                min = f;
+            }
+            if (f > max) {
+                max = f;
+            }
+        }
+        if (min > max) {
+            /* no valid data */
+            return null;
+        }
+        return new float[] { min, max };
+    }
+
+    /**
+     * @param value
+     * @return true if value is the no data value of the data source
+     */
+    protected boolean isNoData(float value) {
+        return false;
+    }
+
     /**
      * Hook to modify cmap parameters
      *
@@ -218,34 +324,119 @@ public abstract class ColormapStyleProvider<R extends PluginDataObject>
         return data;
     }
 
+    /**
+     * Create style rule criteria for layer. Subclasses should override this to
+     * use layer metadata, the default looks up a sample record from the
+     * database.
+     *
+     * @param layerName
+     * @return
+     * @throws WmsException
+     */
+    protected ParamLevelMatchCriteria getCriteria(String layerName)
+            throws WmsException {
+        try {
+            return getCriteria(callback.lookupSample(layerName));
+        } catch (OgcException e) {
+            throw new WmsException(e);
+        }
+    }
+
     @Override
     public String lookup(String layername) {
         try {
-            R sample = callback.lookupSample(layername);
-            return lookupInternal(sample);
+            return lookupColormap(getCriteria(layername));
         } catch (Exception e) {
-            log.error("Unable to lookup sample record for layer: " + layername,
-                    e);
+            log.error("Unable to lookup style for layer: " + layername, e);
             return null;
         }
     }
 
-    private String lookupInternal(R sample) throws WmsException {
-        ParamLevelMatchCriteria criteria = getCriteria(sample);
+    /**
+     * Get default colormap name for criteria. Results are kept until the style
+     * rules change.
+     *
+     * @param criteria
+     * @return
+     * @throws WmsException
+     */
+    protected String lookupColormap(ParamLevelMatchCriteria criteria)
+            throws WmsException {
+        Memo current = getMemo();
+        String key = getCriteriaKey(criteria);
+        String rval = current.colormaps.get(key);
+        if (rval == null) {
+            rval = lookupInternal(criteria);
+            current.colormaps.put(key, rval);
+        }
+        return rval;
+    }
+
+    /**
+     * @return memoized style rule results for the current style rule version
+     */
+    private Memo getMemo() {
+        long version = StyleRuleWatcher.getVersion();
+        Memo current = memo;
+        if (current.version != version) {
+            current = new Memo(version);
+            memo = current;
+        }
+        return current;
+    }
+
+    /**
+     * @param criteria
+     * @return key that is equal for criteria that match the same style rules
+     */
+    protected static String getCriteriaKey(ParamLevelMatchCriteria criteria) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(criteria.getParameterNames()).append('|');
+        if (criteria.getLevels() != null) {
+            for (Level level : criteria.getLevels()) {
+                if (level instanceof SingleLevel) {
+                    SingleLevel single = (SingleLevel) level;
+                    sb.append(single.getType()).append(':')
+                            .append(single.getValue());
+                } else {
+                    sb.append(level);
+                }
+                sb.append(',');
+            }
+        }
+        sb.append('|').append(criteria.getCreatingEntityNames());
+        return sb.toString();
+    }
+
+    private String lookupInternal(ParamLevelMatchCriteria criteria)
+            throws WmsException {
+        ImagePreferences prefs = getImagePreferences(criteria);
+        if (prefs == null) {
+            return getFallbackDefaultColormapName();
+        }
+        String rval = prefs.getDefaultColormap();
+        if (rval == null) {
+            rval = getFallbackDefaultColormapName();
+        }
+        return rval;
+    }
+
+    /**
+     * @param criteria
+     * @return imagery preferences from style rules, null if no rule matches
+     * @throws WmsException
+     */
+    private ImagePreferences getImagePreferences(
+            ParamLevelMatchCriteria criteria) throws WmsException {
         try {
             StyleRule sr = StyleManager.getInstance()
                     .getStyleRule(StyleManager.StyleType.IMAGERY, criteria);
             if (sr == null) {
-                return getFallbackDefaultColormapName();
+                return null;
             }
-            ImagePreferences prefs = (ImagePreferences) sr.getPreferences();
-            String rval = prefs.getDefaultColormap();
-            if (rval == null) {
-                rval = getFallbackDefaultColormapName();
-            }
-            return rval;
+            return (ImagePreferences) sr.getPreferences();
         } catch (StyleException e) {
-            log.error("Unable to get style for record: " + sample, e);
+            log.error("Unable to get style for criteria: " + criteria, e);
             throw new WmsException(Code.InternalServerError, e);
         }
     }
@@ -302,7 +493,9 @@ public abstract class ColormapStyleProvider<R extends PluginDataObject>
                 ge.setRange(0, re.getMinX(), re.getMaxX());
                 ge.setRange(1, re.getMinY(), re.getMaxY());
                 GridCoverage2D gc = convert(image, ge);
-                return new WmsImage(gc, preRendered);
+                WmsImage img = new WmsImage(gc, preRendered);
+                img.setPreRendered(true);
+                return img;
 
             } catch (Exception e) {
                 log.error("Problem applying colormap", e);
@@ -369,10 +562,10 @@ public abstract class ColormapStyleProvider<R extends PluginDataObject>
     @Override
     public List<OgcStyle> getStyles() {
         try {
-            List<R> samples = callback.getAllSamples();
-            List<OgcStyle> rval = new ArrayList<OgcStyle>(samples.size());
-            for (R record : samples) {
-                rval.add(new OgcStyle(lookupInternal(record)));
+            List<String> layers = callback.getLayerNames();
+            List<OgcStyle> rval = new ArrayList<OgcStyle>(layers.size());
+            for (String layer : layers) {
+                rval.add(new OgcStyle(lookupColormap(getCriteria(layer))));
             }
             return rval;
         } catch (Exception e) {
@@ -491,4 +684,22 @@ public abstract class ColormapStyleProvider<R extends PluginDataObject>
         this.fallbackDefaultColormapName = fallbackDefaultColormapName;
     }
 
+    /**
+     * Style rule results for a version of the style rules
+     */
+    private static class Memo {
+
+        public final long version;
+
+        /* default colormap names by criteria key */
+        public final Map<String, String> colormaps = new ConcurrentHashMap<>();
+
+        /* if style rules define the data range by criteria key */
+        public final Map<String, Boolean> fixedRange = new ConcurrentHashMap<>();
+
+        public Memo(long version) {
+            this.version = version;
+        }
+    }
+
 }
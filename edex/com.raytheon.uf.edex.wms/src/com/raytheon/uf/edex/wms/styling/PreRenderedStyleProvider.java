@@ -51,6 +51,7 @@ import com.raytheon.uf.edex.wms.reg.WmsImage;
  * ------------- -------- --------- --------------------------
  * Nov 28, 2012           bclement  Initial creation
  * Aug 30, 2016  5867     randerso  Updated for GeoTools 15.1
+ * Oct 17, 2026           agent     Flag images as pre-rendered
  *
  * </pre>
  *
@@ -92,8 +93,10 @@ public class PreRenderedStyleProvider extends SingleCoverageStyleProvider {
                 BufferedImage.TYPE_INT_ARGB);
         img.setRGB(0, 0, w, h, intrec.getIntData(), 0, w);
         GridCoverageFactory fact = new GridCoverageFactory();
-        return new WmsImage(fact.create("", img, ref.getEnvelope()),
+        WmsImage rval = new WmsImage(fact.create("", img, ref.getEnvelope()),
                 this.style);
+        rval.setPreRendered(true);
+        return rval;
     }
 
     @Override
@@ -0,0 +1,83 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wms.styling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.raytheon.uf.common.localization.PathManagerFactory;
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+
+/**
+ * Tracks changes to the style rule library in localization. Anything derived
+ * from style rules, like default colormap names, can be kept until the version
+ * changes. Sources include this version in their layer version since styles
+ * are advertised in capabilities documents.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ *
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class StyleRuleWatcher {
+
+    public static final String STYLE_RULES_DIR = "styleRules";
+
+    private static final IUFStatusHandler log = UFStatus
+            .getHandler(StyleRuleWatcher.class);
+
+    private static final AtomicLong version = new AtomicLong();
+
+    static {
+        try {
+            PathManagerFactory.getPathManager().addLocalizationPathObserver(
+                    STYLE_RULES_DIR, file -> changed());
+        } catch (Exception e) {
+            log.error("Unable to watch style rules for changes,"
+                    + " style rule updates will require a restart", e);
+        }
+    }
+
+    private StyleRuleWatcher() {
+    }
+
+    /**
+     * @return current version of the style rule library
+     */
+    public static long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Mark style rules as changed
+     */
+    public static void changed() {
+        version.incrementAndGet();
+    }
+
+}
@@ -37,6 +37,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 23, 2015 5087       bclement     Initial creation
+ * Oct 17, 2026            agent        remove() replaced by delete()
  * 
  * </pre>
  * 
@@ -150,7 +151,7 @@ public class FileTileCache extends TileCacheManager {
     }
 
     @Override
-    public void remove(String key) {
+    protected void delete(String key) {
         File tileFile = new File(cacheDir, key);
         deleteFile(tileFile);
     }
@@ -34,6 +34,7 @@ import java.util.Map.Entry;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 23, 2015 5087       bclement     Initial creation
+ * Oct 17, 2026            agent        remove() replaced by delete()
  * 
  * </pre>
  * 
@@ -71,7 +72,7 @@ public class MemoryTileCache extends TileCacheManager {
     }
 
     @Override
-    public void remove(String key) {
+    protected void delete(String key) {
         synchronized (cache) {
             cache.remove(key);
         }
@@ -0,0 +1,557 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wmts.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import com.raytheon.uf.common.http.MimeType;
+import com.raytheon.uf.edex.ogc.common.output.IOgcHttpResponse;
+import com.raytheon.uf.edex.wmts.WmtsException;
+import com.raytheon.uf.edex.wmts.WmtsException.Code;
+
+/**
+ * Tile cache that stores to the file system. Tiles are spread across
+ * directories by a hash of the key, writes are atomic and the expiration time
+ * of every tile is kept in memory so that purging only visits expired tiles.
+ * When the total size of the tiles exceeds the configured budget the oldest
+ * tiles are evicted.
+ * <p>
+ * Tiles left on the file system from a previous run are indexed in the
+ * background on startup, their layer and time for invalidation are parsed from
+ * their keys. Tiles that are past their time-to-live or whose path doesn't
+ * match a tile key are deleted.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        configurable directory and ttl
+ * Oct 17, 2026            agent        set tile index max age
+ * Oct 17, 2026            agent        evict oldest tiles over byte budget
+ * Oct 17, 2026            agent        delete unindexed tiles on startup
+ * Oct 17, 2026            agent        index tiles by key on startup instead
+ *                                      of deleting them
+ * Oct 17, 2026            agent        record format suffixes of tiles
+ *                                      indexed on startup
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class ShardedFileTileCache extends TileCacheManager {
+
+    protected static final String CACHE_DIR = System.getProperty(
+            "wmts.tile.cache.dir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "wmts-tile-cache")
+                    .toString());
+
+    protected static final long CACHE_TTL = Long.getLong(
+            "wmts.tile.cache.file.ttl.seconds", TIME_TO_LIVE);
+
+    protected static final long CACHE_MAX_BYTES = Long.getLong(
+            "wmts.tile.cache.file.max.mb", 4096) * 1024 * 1024;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    protected final Path cacheDir;
+
+    protected final long ttlMillis;
+
+    protected final long maxBytes;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    /* expiration and size by storage key */
+    private final ConcurrentHashMap<String, Expiration> expirations = new ConcurrentHashMap<>();
+
+    /* expiration times ordered from oldest to newest */
+    private final ConcurrentSkipListSet<Expiration> expirationIndex = new ConcurrentSkipListSet<>();
+
+    /* total size of indexed tiles */
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final ReentrantLock evictLock = new ReentrantLock();
+
+    public ShardedFileTileCache() {
+        this(CACHE_DIR, CACHE_TTL, CACHE_MAX_BYTES);
+    }
+
+    /**
+     * @param cacheDir
+     *            root directory of the cache
+     * @param ttlSeconds
+     *            number of seconds a tile is kept after it is written
+     * @param maxBytes
+     *            total size of tiles kept before the oldest are evicted
+     */
+    public ShardedFileTileCache(String cacheDir, long ttlSeconds,
+            long maxBytes) {
+        this.cacheDir = Paths.get(cacheDir);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxBytes = maxBytes;
+        index.setMaxAgeMillis(ttlMillis);
+        for (int i = 0; i < locks.length; ++i) {
+            locks[i] = new ReentrantLock();
+        }
+        index.startLoading();
+        Thread loader = new Thread(this::loadIndex, "wmts-tile-cache-index");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * @param key
+     *            storage key
+     * @return location of tile file for key
+     */
+    protected Path getPath(String key) {
+        int hash = key.hashCode();
+        return cacheDir.resolve(toHex(hash >>> 8)).resolve(toHex(hash))
+                .resolve(key);
+    }
+
+    /**
+     * @param i
+     * @return lowest byte of i as two hex digits
+     */
+    private static String toHex(int i) {
+        return Integer.toHexString(0x100 | (i & 0xff)).substring(1);
+    }
+
+    private ReentrantLock getLock(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % locks.length];
+    }
+
+    /**
+     * @param key
+     *            storage key
+     * @return true if the tile is indexed and past its expiration time
+     */
+    private boolean isExpired(String key) {
+        Expiration expiration = expirations.get(key);
+        return expiration != null
+                && expiration.time <= System.currentTimeMillis();
+    }
+
+    @Override
+    protected byte[] read(String key) throws IOException {
+        if (isExpired(key)) {
+            delete(key);
+            return null;
+        }
+        try {
+            return Files.readAllBytes(getPath(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean writeTile(String key, String layerName, String time,
+            MimeType format, IOgcHttpResponse response) throws WmtsException {
+        if (SKIP_CACHE) {
+            return false;
+        }
+        String formatKey = getFormatKey(key, format);
+        if (isExpired(formatKey)) {
+            delete(formatKey);
+            return super.writeTile(key, layerName, time, format, response);
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(getPath(formatKey),
+                    StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // could still be converted from cache format
+            return super.writeTile(key, layerName, time, format, response);
+        } catch (IOException e) {
+            log.error("Problem reading from file cache", e);
+            remove(key);
+            return false;
+        }
+        try (FileChannel in = channel) {
+            response.setContentType(format.toString());
+            try (OutputStream out = response.getOutputStream()) {
+                WritableByteChannel outChannel = Channels.newChannel(out);
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position,
+                            outChannel);
+                }
+            }
+        } catch (IOException e) {
+            throw new WmtsException(Code.InternalServerError,
+                    "Unable to write tile to stream", e);
+        }
+        return true;
+    }
+
+    @Override
+    protected void write(String key, byte[] arr) throws IOException {
+        Path target = getPath(key);
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            Path parent = target.getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, ".", TEMP_SUFFIX);
+            try {
+                Files.write(tmp, arr);
+                move(tmp, target);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            index(key, System.currentTimeMillis() + ttlMillis, arr.length);
+        } finally {
+            lock.unlock();
+        }
+        if (totalBytes.get() > maxBytes) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Atomically replace target with source if supported by the file system
+     * 
+     * @param source
+     * @param target
+     * @throws IOException
+     */
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Add or replace the expiration time for key
+     * 
+     * @param key
+     *            storage key
+     * @param expiration
+     *            expiration time in millis
+     * @param size
+     *            size of tile file in bytes
+     */
+    private void index(String key, long expiration, long size) {
+        Expiration entry = new Expiration(key, expiration, size);
+        Expiration previous = expirations.put(key, entry);
+        if (previous != null) {
+            expirationIndex.remove(previous);
+            totalBytes.addAndGet(-previous.size);
+        }
+        expirationIndex.add(entry);
+        totalBytes.addAndGet(size);
+    }
+
+    @Override
+    protected void delete(String key) {
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            Files.deleteIfExists(getPath(key));
+        } catch (IOException e) {
+            log.error("Unable to delete cache file: " + getPath(key), e);
+        } finally {
+            Expiration expiration = expirations.remove(key);
+            if (expiration != null) {
+                expirationIndex.remove(expiration);
+                totalBytes.addAndGet(-expiration.size);
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove any tiles that are older than the current time-to-live value.
+     * Only expired tiles are visited.
+     */
+    public void purgeExpiredCache() {
+        long now = System.currentTimeMillis();
+        Iterator<Expiration> iter = expirationIndex.iterator();
+        while (iter.hasNext()) {
+            Expiration next = iter.next();
+            if (next.time > now) {
+                break;
+            }
+            ReentrantLock lock = getLock(next.key);
+            lock.lock();
+            try {
+                // entry could be stale if tile was rewritten or removed
+                expirationIndex.remove(next);
+                Expiration current = expirations.get(next.key);
+                if (current != null && current.time <= now) {
+                    delete(next.key);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (totalBytes.get() > maxBytes) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Remove the oldest tiles until the cache is within its byte budget. Only
+     * one thread evicts at a time, others continue without waiting.
+     */
+    private void evictOldest() {
+        if (!evictLock.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<Expiration> iter = expirationIndex.iterator();
+            while (totalBytes.get() > maxBytes && iter.hasNext()) {
+                Expiration next = iter.next();
+                ReentrantLock lock = getLock(next.key);
+                lock.lock();
+                try {
+                    // entry could be stale if tile was rewritten or removed
+                    if (next.equals(expirations.get(next.key))) {
+                        delete(next.key);
+                    } else {
+                        expirationIndex.remove(next);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    /**
+     * Build expiration and tile index from tiles already on the file system.
+     * Entries written while this runs take precedence.
+     */
+    private void loadIndex() {
+        try {
+            if (Files.isDirectory(cacheDir)) {
+                loadIndexInternal();
+            }
+        } finally {
+            index.finishLoading();
+        }
+    }
+
+    /**
+     * Walk the cache directory, indexing or deleting each tile file
+     */
+    private void loadIndexInternal() {
+        long started = System.currentTimeMillis();
+        int count = 0;
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            Iterator<Path> iter = files.filter(Files::isRegularFile)
+                    .iterator();
+            while (iter.hasNext()) {
+                Path file = iter.next();
+                BasicFileAttributes attrs = Files.readAttributes(file,
+                        BasicFileAttributes.class);
+                long modified = attrs.lastModifiedTime().toMillis();
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    if (modified < started) {
+                        // left over from interrupted write
+                        Files.deleteIfExists(file);
+                    }
+                    continue;
+                }
+                Path relative = cacheDir.relativize(file);
+                String key = null;
+                String tileKey = null;
+                if (relative.getNameCount() > 2) {
+                    key = relative.subpath(2, relative.getNameCount())
+                            .toString();
+                    tileKey = getTileKey(key);
+                }
+                if (tileKey == null || !getPath(key).equals(file)) {
+                    Files.deleteIfExists(file);
+                    ++deleted;
+                } else if (modified + ttlMillis > started
+                        && loadTile(key, tileKey, modified, attrs.size())) {
+                    ++count;
+                } else if (deleteUnindexed(key, file)) {
+                    ++deleted;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Problem indexing tile cache directory: " + cacheDir, e);
+        }
+        log.info("Indexed " + count + " and deleted " + deleted
+                + " cached tiles in " + cacheDir);
+        if (totalBytes.get() > maxBytes) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Index tile found on startup unless it was written since startup
+     * 
+     * @param key
+     *            storage key
+     * @param tileKey
+     *            key of tile without format
+     * @param modified
+     *            time in millis the tile file was written
+     * @param size
+     *            size of tile file in bytes
+     * @return false if the tile should be deleted since its data changed
+     *         during startup
+     */
+    private boolean loadTile(String key, String tileKey, long modified,
+            long size) {
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            if (expirations.containsKey(key)) {
+                return true;
+            }
+            if (!index.addStored(tileKey, modified)) {
+                return false;
+            }
+            if (!key.equals(tileKey)) {
+                addStoredSuffix(key.substring(tileKey.length() + 1));
+            }
+            Expiration entry = new Expiration(key, modified + ttlMillis, size);
+            expirations.put(key, entry);
+            expirationIndex.add(entry);
+            totalBytes.addAndGet(size);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param key
+     *            storage key found on the file system
+     * @return key of tile without format suffix, null if key isn't a tile key
+     */
+    private static String getTileKey(String key) {
+        Path path = Paths.get(key);
+        if (path.getNameCount() != 3) {
+            return null;
+        }
+        String name = path.getFileName().toString();
+        int index = name.indexOf('.');
+        if (index < 0) {
+            return key;
+        }
+        if (index == 0 || name.indexOf('.', index + 1) >= 0) {
+            return null;
+        }
+        return key.substring(0, key.length() - (name.length() - index));
+    }
+
+    /**
+     * Delete tile file unless it was written since startup
+     * 
+     * @param key
+     *            storage key
+     * @param file
+     * @return true if file was deleted
+     * @throws IOException
+     */
+    private boolean deleteUnindexed(String key, Path file) throws IOException {
+        ReentrantLock lock = getLock(key);
+        lock.lock();
+        try {
+            return !expirations.containsKey(key) && Files.deleteIfExists(file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Expiration time and tile size for a storage key, ordered by time
+     */
+    private static final class Expiration implements Comparable<Expiration> {
+
+        private final String key;
+
+        private final long time;
+
+        /* not part of ordering or equality */
+        private final long size;
+
+        public Expiration(String key, long time, long size) {
+            this.key = key;
+            this.time = time;
+            this.size = size;
+        }
+
+        @Override
+        public int compareTo(Expiration o) {
+            int rval = Long.compare(time, o.time);
+            if (rval == 0) {
+                rval = key.compareTo(o.key);
+            }
+            return rval;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + Long.hashCode(time);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Expiration)) {
+                return false;
+            }
+            Expiration other = (Expiration) obj;
+            return time == other.time && key.equals(other.key);
+        }
+    }
+
+}
@@ -0,0 +1,246 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wmts.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.raytheon.uf.common.http.MimeType;
+import com.raytheon.uf.edex.ogc.common.output.IOgcHttpResponse;
+import com.raytheon.uf.edex.wmts.WmtsException;
+
+/**
+ * Tile cache made up of other tile caches, ordered from fastest to slowest
+ * (eg memory over file system). Reads check each tier in order and promote
+ * tiles found in a slower tier to all faster tiers. Writes go to every tier,
+ * either synchronously or, for all but the first tier, in the background.
+ * Tiles written directly to a response are served by the first tier using its
+ * own transfer method, tiles found in a slower tier are read and promoted like
+ * any other read. Removing a tile removes it from every tier, including
+ * background writes that are still queued. Each tier enforces its own size and
+ * time-to-live limits.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        set tile index max age
+ * Oct 17, 2026            agent        delegate writeTile() to tiers
+ * Oct 17, 2026            agent        skip queued writes of removed tiles
+ * Oct 17, 2026            agent        promote slower tier hits written to
+ *                                      response
+ * Oct 17, 2026            agent        invalidate tiles indexed by tiers
+ * Oct 17, 2026            agent        pass layer and time to tiers
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class TieredTileCache extends TileCacheManager {
+
+    protected static final int WRITE_BEHIND_QUEUE_SIZE = Integer.getInteger(
+            "wmts.tile.cache.write.behind.queue.size", 256);
+
+    protected final List<TileCacheManager> tiers;
+
+    /* null if writes to slower tiers are synchronous */
+    private final ExecutorService writeBehind;
+
+    /* data waiting to be written in the background by storage key */
+    private final ConcurrentHashMap<String, byte[]> pendingWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Create cache with write through to all tiers
+     * 
+     * @param tiers
+     *            caches ordered from fastest to slowest
+     */
+    public TieredTileCache(List<TileCacheManager> tiers) {
+        this(tiers, false);
+    }
+
+    /**
+     * @param tiers
+     *            caches ordered from fastest to slowest
+     * @param writeBehind
+     *            if true, writes to all but the first tier are done in the
+     *            background. If the background queue is full, the write is
+     *            done by the calling thread.
+     */
+    public TieredTileCache(List<TileCacheManager> tiers, boolean writeBehind) {
+        if (tiers == null || tiers.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Tiered tile cache requires at least one tier");
+        }
+        this.tiers = new ArrayList<>(tiers);
+        long maxAge = 0;
+        for (TileCacheManager tier : this.tiers) {
+            maxAge = Math.max(maxAge, tier.index.getMaxAgeMillis());
+        }
+        index.setMaxAgeMillis(maxAge);
+        if (writeBehind && this.tiers.size() > 1) {
+            this.writeBehind = new ThreadPoolExecutor(1, 1, 0L,
+                    TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+                            WRITE_BEHIND_QUEUE_SIZE), r -> {
+                        Thread t = new Thread(r, "wmts-tile-cache-write");
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+        } else {
+            this.writeBehind = null;
+        }
+    }
+
+    @Override
+    protected byte[] read(String key) throws IOException {
+        for (int i = 0; i < tiers.size(); ++i) {
+            byte[] rval = tiers.get(i).read(key);
+            if (rval != null) {
+                promote(key, rval, i);
+                return rval;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean writeTile(String key, String layerName, String time,
+            MimeType format, IOgcHttpResponse response) throws WmtsException {
+        if (SKIP_CACHE) {
+            return false;
+        }
+        if (tiers.get(0).writeTile(key, layerName, time, format, response)) {
+            return true;
+        }
+        // read from slower tiers so that the tile is promoted
+        return super.writeTile(key, layerName, time, format, response);
+    }
+
+    /**
+     * Store tile in all tiers that are faster than the one it was found in
+     * 
+     * @param key
+     *            storage key
+     * @param arr
+     * @param foundIndex
+     *            index of tier that tile was found in
+     */
+    private void promote(String key, byte[] arr, int foundIndex) {
+        for (int i = 0; i < foundIndex; ++i) {
+            try {
+                tiers.get(i).write(key, arr);
+            } catch (IOException e) {
+                log.error("Unable to promote tile to cache tier for key: "
+                        + key, e);
+            }
+        }
+    }
+
+    @Override
+    protected void write(final String key, final byte[] arr)
+            throws IOException {
+        tiers.get(0).write(key, arr);
+        if (writeBehind == null) {
+            for (int i = 1; i < tiers.size(); ++i) {
+                tiers.get(i).write(key, arr);
+            }
+        } else {
+            pendingWrites.put(key, arr);
+            writeBehind.execute(() -> writeSlowerTiers(key, arr));
+        }
+    }
+
+    /**
+     * Background write to all but the first tier. Skipped if the tile was
+     * removed or written again since it was queued.
+     * 
+     * @param key
+     *            storage key
+     * @param arr
+     */
+    private void writeSlowerTiers(String key, byte[] arr) {
+        if (pendingWrites.get(key) != arr) {
+            return;
+        }
+        for (int i = 1; i < tiers.size(); ++i) {
+            try {
+                tiers.get(i).write(key, arr);
+            } catch (IOException e) {
+                log.error("Unable to write to tile cache tier for key: " + key,
+                        e);
+            }
+        }
+        if (!pendingWrites.remove(key, arr) && !pendingWrites.containsKey(key)) {
+            // removed while we were writing
+            for (int i = 1; i < tiers.size(); ++i) {
+                tiers.get(i).delete(key);
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        String formatPrefix = key + '.';
+        pendingWrites.keySet().removeIf(
+                k -> k.equals(key) || k.startsWith(formatPrefix));
+        for (TileCacheManager tier : tiers) {
+            tier.remove(key);
+        }
+    }
+
+    @Override
+    public void invalidate(String layerName, Collection<Date> times) {
+        super.invalidate(layerName, times);
+        // tiers index tiles they found in storage on startup
+        for (TileCacheManager tier : tiers) {
+            for (String key : tier.index.removeAll(layerName, times)) {
+                remove(key);
+            }
+        }
+    }
+
+    @Override
+    protected void delete(String key) {
+        pendingWrites.remove(key);
+        for (TileCacheManager tier : tiers) {
+            tier.delete(key);
+        }
+    }
+
+    /**
+     * @return caches ordered from fastest to slowest
+     */
+    public List<TileCacheManager> getTiers() {
+        return tiers;
+    }
+
+}
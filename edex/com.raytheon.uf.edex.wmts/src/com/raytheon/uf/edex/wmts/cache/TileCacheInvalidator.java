@@ -0,0 +1,60 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wmts.cache;
+
+import java.util.Collection;
+import java.util.Date;
+
+import com.raytheon.uf.edex.ogc.common.db.ILayerChangeListener;
+
+/**
+ * Removes tiles from the tile cache when the data they were rendered from
+ * changes due to ingest or purge
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class TileCacheInvalidator implements ILayerChangeListener {
+
+    private final TileCacheManager cache;
+
+    /**
+     * @param cache
+     */
+    public TileCacheInvalidator(TileCacheManager cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void layerChanged(String layerName, Collection<Date> times) {
+        cache.invalidate(layerName, times);
+    }
+
+}
@@ -24,20 +24,31 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 
+import org.apache.commons.lang.StringUtils;
+
 import com.raytheon.uf.common.http.MimeType;
 import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.edex.ogc.common.output.IOgcHttpResponse;
 import com.raytheon.uf.edex.wmts.WmtsException;
 import com.raytheon.uf.edex.wmts.WmtsException.Code;
 
 /**
- * Manages access to cached tiles
+ * Manages access to cached tiles. Tiles are stored already encoded, once per
+ * requested format. Tiles in {@link #CACHE_FORMAT} are stored under the tile
+ * key, tiles in any other format are stored under the tile key with a format
+ * suffix.
  * 
  * <pre>
  * 
@@ -47,6 +58,17 @@ import com.raytheon.uf.edex.wmts.WmtsException.Code;
  * ------------ ---------- ----------- --------------------------
  * 2012                    bclement     Initial creation
  * Nov 23, 2015 5087       bclement     refactor to have multiple implementations
+ * Oct 17, 2026            agent        cache encoded tiles per format
+ * Oct 17, 2026            agent        added writeTile()
+ * Oct 17, 2026            agent        index tiles by layer and time for
+ *                                      invalidation
+ * Oct 17, 2026            agent        skip tiles rendered before an
+ *                                      invalidation
+ * Oct 17, 2026            agent        share stored format suffixes
+ * Oct 17, 2026            agent        added sanitize()
+ * Oct 17, 2026            agent        store converted tiles only if not
+ *                                      invalidated during conversion
+ * Oct 17, 2026            agent        added isSkipCache()
  * 
  * </pre>
  * 
@@ -67,6 +89,32 @@ public abstract class TileCacheManager {
             .getHandler(TileCacheManager.class);
 
     /**
+     * tile keys by layer and time, subclasses should set the max age to the
+     * longest time that they keep a tile
+     */
+    protected final TileIndex index = new TileIndex(TIME_TO_LIVE * 1000L);
+
+    /**
+     * suffixes of non cache formats that have been stored, used to remove all
+     * formats of a tile. Shared by all caches since tiers of a
+     * {@link TieredTileCache} are written through it.
+     */
+    private static final Set<String> storedSuffixes = ConcurrentHashMap
+            .newKeySet();
+
+    /**
+     * @return true if caching is turned off with wmts.skip.cache, tiles are
+     *         never stored or found
+     */
+    public static boolean isSkipCache() {
+        return SKIP_CACHE;
+    }
+
+    /**
+     * Get cached tile. Tiles converted from the cache format are not stored
+     * since they can't be checked against invalidation, use
+     * {@link #getTile(String, String, String, MimeType)} to store them.
+     * 
      * @param key
      * @param format
      * @return null if tile is not in cache
@@ -74,25 +122,106 @@ public abstract class TileCacheManager {
      *             if tile cannot be returned in requested format
      */
     public byte[] getTile(String key, MimeType format) throws WmtsException {
+        return getTile(key, null, null, format);
+    }
+
+    /**
+     * Get cached tile. Tiles converted from the cache format are stored in the
+     * requested format the same way as rendered tiles, they are not stored if
+     * the layer and time are invalidated during the conversion.
+     * 
+     * @param key
+     * @param layerName
+     *            name of layer without source key, null if converted tiles
+     *            should not be stored
+     * @param time
+     *            time dimension value used to render the tile, may be null
+     * @param format
+     * @return null if tile is not in cache
+     * @throws WmtsException
+     *             if tile cannot be returned in requested format
+     */
+    public byte[] getTile(String key, String layerName, String time,
+            MimeType format) throws WmtsException {
         if (SKIP_CACHE) {
             return null;
         }
-        byte[] rval = null;
+        String formatKey = getFormatKey(key, format);
+        byte[] rval = readSafe(key, formatKey);
+        if (rval != null || CACHE_FORMAT.equalsIgnoreParams(format)) {
+            return rval;
+        }
+        // not stored in requested format, convert from cache format if we can
+        long generation = layerName == null ? 0 : getGeneration(layerName,
+                time);
+        byte[] arr = readSafe(key, key);
+        if (arr == null) {
+            return null;
+        }
+        rval = convert(key, arr, format);
+        if (rval != null && layerName != null) {
+            putTile(key, layerName, time, generation, format, rval);
+        }
+        return rval;
+    }
+
+    /**
+     * Write cached tile directly to response. The response is not modified if
+     * the tile is not in the cache.
+     * 
+     * @param key
+     * @param layerName
+     *            name of layer without source key, null if tiles converted
+     *            from the cache format should not be stored
+     * @param time
+     *            time dimension value used to render the tile, may be null
+     * @param format
+     * @param response
+     * @return false if tile is not in cache
+     * @throws WmtsException
+     *             if tile cannot be written in requested format
+     */
+    public boolean writeTile(String key, String layerName, String time,
+            MimeType format, IOgcHttpResponse response) throws WmtsException {
+        byte[] tile = getTile(key, layerName, time, format);
+        if (tile == null) {
+            return false;
+        }
+        response.setContentType(format.toString());
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(tile);
+        } catch (IOException e) {
+            throw new WmtsException(Code.InternalServerError,
+                    "Unable to write tile to stream", e);
+        }
+        return true;
+    }
+
+    /**
+     * Read from cache, removing the tile if it could not be read
+     * 
+     * @param key
+     *            tile key
+     * @param formatKey
+     *            storage key for tile format
+     * @return null if not found or unable to read
+     */
+    private byte[] readSafe(String key, String formatKey) {
         try {
-            rval = read(key);
+            return read(formatKey);
         } catch (IOException e) {
-            log.error("Problem reading from file cache", e);
+            log.error("Problem reading from tile cache", e);
             // assume bad file, remove from cache
             remove(key);
             return null;
         }
-        return convert(key, rval, format);
     }
 
     /**
-     * Get tile as image data in CACHE_FORMAT
+     * Get image data stored under key
      * 
      * @param key
+     *            storage key
      * @return null if no tile found for key
      * @throws IOException
      */
@@ -137,11 +266,24 @@ public abstract class TileCacheManager {
     }
 
     /**
-     * Delete cached tile
+     * Delete cached tile in all formats
      * 
      * @param key
      */
-    abstract public void remove(String key);
+    public void remove(String key) {
+        delete(key);
+        for (String suffix : storedSuffixes) {
+            delete(key + '.' + suffix);
+        }
+    }
+
+    /**
+     * Delete data stored under key
+     * 
+     * @param key
+     *            storage key
+     */
+    abstract protected void delete(String key);
 
     /**
      * Write image to byte array
@@ -192,17 +334,168 @@ public abstract class TileCacheManager {
             log.error("Unable to cache image for key: " + key, e);
             return;
         }
+        writeSafe(key, CACHE_FORMAT, arr);
+    }
+
+    /**
+     * Store image data that has already been encoded
+     * 
+     * @param key
+     *            tile key
+     * @param format
+     *            format that the image data is encoded in
+     * @param arr
+     *            encoded image data
+     */
+    public void putTile(String key, MimeType format, byte[] arr) {
+        if (SKIP_CACHE) {
+            return;
+        }
+        writeSafe(key, format, arr);
+    }
+
+    /**
+     * Get the generation of a layer and time. Capture before rendering a tile
+     * and pass to
+     * {@link #putTile(String, String, String, long, MimeType, byte[])}.
+     * 
+     * @param layerName
+     *            name of layer without source key
+     * @param time
+     *            time dimension value used to render the tile, may be null
+     * @return
+     */
+    public long getGeneration(String layerName, String time) {
+        return index.getGeneration(layerName, time);
+    }
+
+    /**
+     * Store image data that has already been encoded and index it so that it
+     * can be removed when the data for its layer and time changes. The tile
+     * is not stored, or is removed again, if the layer and time were
+     * invalidated since the generation was captured.
+     * 
+     * @param key
+     *            tile key
+     * @param layerName
+     *            name of layer without source key
+     * @param time
+     *            time dimension value used to render the tile, may be null
+     * @param generation
+     *            generation of layer and time captured before rendering
+     * @param format
+     *            format that the image data is encoded in
+     * @param arr
+     *            encoded image data
+     */
+    public void putTile(String key, String layerName, String time,
+            long generation, MimeType format, byte[] arr) {
+        if (SKIP_CACHE
+                || index.getGeneration(layerName, time) != generation) {
+            return;
+        }
+        index.add(layerName, time, key);
+        writeSafe(key, format, arr);
+        if (index.getGeneration(layerName, time) != generation) {
+            // invalidated while writing, index entry could already be gone
+            remove(key);
+        }
+    }
+
+    /**
+     * Remove all cached tiles rendered from changed layer data
+     * 
+     * @param layerName
+     *            name of layer without source key
+     * @param times
+     *            times of data that changed, null if any time could have
+     *            changed
+     */
+    public void invalidate(String layerName, Collection<Date> times) {
+        for (String key : index.removeAll(layerName, times)) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Store encoded image data, logging any errors
+     * 
+     * @param key
+     *            tile key
+     * @param format
+     * @param arr
+     */
+    private void writeSafe(String key, MimeType format, byte[] arr) {
+        if (!CACHE_FORMAT.equalsIgnoreParams(format)) {
+            storedSuffixes.add(getFormatSuffix(format));
+        }
         try {
-            write(key, arr);
+            write(getFormatKey(key, format), arr);
         } catch (IOException e) {
             log.error("Unable to write to tile cache for key: " + key, e);
         }
     }
 
+    /**
+     * Get key that tile is stored under for format
+     * 
+     * @param key
+     *            tile key
+     * @param format
+     * @return
+     */
+    protected String getFormatKey(String key, MimeType format) {
+        if (CACHE_FORMAT.equalsIgnoreParams(format)) {
+            return key;
+        }
+        return key + '.' + getFormatSuffix(format);
+    }
+
+    /**
+     * Record format suffix of a tile found in storage so that
+     * {@link #remove(String)} deletes it
+     * 
+     * @param suffix
+     */
+    protected static void addStoredSuffix(String suffix) {
+        storedSuffixes.add(suffix);
+    }
+
+    /**
+     * Replace file system special chars with '-'. Tile keys are built from
+     * sanitized request values.
+     * 
+     * @param s
+     * @return
+     */
+    public static String sanitize(String s) {
+        if (s == null) {
+            return "null";
+        }
+        String rval = StringUtils.replaceChars(s, "./\\?%*:|\"<>",
+                "-----------");
+        rval = StringUtils.chomp(rval, "-");
+        return rval.substring(StringUtils.indexOfAnyBut(rval, "-"));
+    }
+
+    /**
+     * @param format
+     * @return file system safe suffix for format
+     */
+    private static String getFormatSuffix(MimeType format) {
+        String str = format.toStringWithoutParams();
+        int index = str.indexOf('/');
+        if (index >= 0) {
+            str = str.substring(index + 1);
+        }
+        return str.replaceAll("[^A-Za-z0-9]", "-");
+    }
+
     /**
      * Internal method to store image data
      * 
      * @param key
+     *            storage key
      * @param arr
      * @throws IOException
      */
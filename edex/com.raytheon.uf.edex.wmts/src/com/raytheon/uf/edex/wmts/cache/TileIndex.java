@@ -0,0 +1,460 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wmts.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Index of cached tile keys by layer and time. Used to find the tiles that
+ * need to be removed when the data for a layer changes. Entries are dropped
+ * once they are older than the longest time a tile can be cached.
+ * <p>
+ * Every removal stamps the layer and times with a new generation. Callers
+ * capture the generation before rendering a tile and only cache the tile if
+ * the generation is unchanged, so tiles rendered from data that changed
+ * during the render are not cached.
+ * <p>
+ * Tiles found in storage on startup are added from their keys. Keys only have
+ * the sanitized layer and time, so these tiles are grouped by the first
+ * segment of the key and removed for every layer name that the segment
+ * contains.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        added generations
+ * Oct 17, 2026            agent        added tiles found in storage
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class TileIndex {
+
+    /* used for tiles with a time that could not be parsed */
+    private static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    /* number of additions between checks for old entries */
+    private static final int PRUNE_INTERVAL = 1024;
+
+    /* sanitized ISO 8601 time in a tile key */
+    private static final Pattern KEY_TIME_PATTERN = Pattern
+            .compile("(\\d{4}-\\d{2}-\\d{2}T\\d{2})-(\\d{2})-(\\d{2})(?:-(\\d+))?Z");
+
+    private final Map<String, Map<String, Entry>> byLayer = new ConcurrentHashMap<>();
+
+    private final Map<String, Generations> generationsByLayer = new ConcurrentHashMap<>();
+
+    /* tiles found in storage by first segment of key */
+    private final Map<String, Map<String, Entry>> stored = new ConcurrentHashMap<>();
+
+    /* removals made while stored tiles are loaded, null if not loading */
+    private volatile List<Removal> removalsWhileLoading;
+
+    private final AtomicLong generationCounter = new AtomicLong();
+
+    private final AtomicLong additions = new AtomicLong();
+
+    private volatile long maxAgeMillis;
+
+    /**
+     * @param maxAgeMillis
+     *            longest time a tile can be cached
+     */
+    public TileIndex(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Add tile to index
+     * 
+     * @param layerName
+     *            name of layer without source key
+     * @param time
+     *            time dimension value of tile, may be null
+     * @param key
+     *            tile key
+     */
+    public void add(String layerName, String time, String key) {
+        Map<String, Entry> entries = byLayer.computeIfAbsent(layerName,
+                k -> new ConcurrentHashMap<>());
+        entries.put(key, new Entry(parseTime(time), System.currentTimeMillis()));
+        if (additions.incrementAndGet() % PRUNE_INTERVAL == 0) {
+            prune();
+        }
+    }
+
+    /**
+     * Start adding tiles found in storage. Removals are recorded until
+     * {@link #finishLoading()} so that tiles rendered from data that changed
+     * during loading are not added.
+     */
+    public void startLoading() {
+        synchronized (stored) {
+            removalsWhileLoading = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Done adding tiles found in storage
+     */
+    public void finishLoading() {
+        synchronized (stored) {
+            removalsWhileLoading = null;
+        }
+    }
+
+    /**
+     * Add tile found in storage, such as a tile written before a restart. The
+     * layer and time are parsed from the tile key.
+     * 
+     * @param key
+     *            tile key
+     * @param written
+     *            time in millis the tile was stored
+     * @return false if the tile was not added since its data changed while
+     *         loading
+     */
+    public boolean addStored(String key, long written) {
+        String segment = getLayerSegment(key);
+        long time = parseKeyTime(key);
+        synchronized (stored) {
+            if (removalsWhileLoading != null) {
+                for (Removal removal : removalsWhileLoading) {
+                    if (removal.matches(segment, time)) {
+                        return false;
+                    }
+                }
+            }
+            stored.computeIfAbsent(segment, k -> new ConcurrentHashMap<>())
+                    .put(key, new Entry(time, written));
+        }
+        if (additions.incrementAndGet() % PRUNE_INTERVAL == 0) {
+            prune();
+        }
+        return true;
+    }
+
+    /**
+     * Get the current generation of a layer and time. The generation changes
+     * whenever tiles for the layer and time are removed.
+     * 
+     * @param layerName
+     *            name of layer without source key
+     * @param time
+     *            time dimension value of tile, may be null
+     * @return
+     */
+    public long getGeneration(String layerName, String time) {
+        Generations generations = generationsByLayer.get(layerName);
+        if (generations == null) {
+            return 0;
+        }
+        return generations.get(parseTime(time));
+    }
+
+    /**
+     * Remove and return keys for tiles that were rendered from changed data.
+     * Tiles with a time that could not be parsed are always included. The
+     * generation of the layer and times is advanced before any keys are
+     * removed.
+     * 
+     * @param layerName
+     *            name of layer without source key
+     * @param times
+     *            times that changed, null for all times
+     * @return
+     */
+    public List<String> removeAll(String layerName, Collection<Date> times) {
+        Set<Long> millis = null;
+        if (times != null) {
+            millis = new HashSet<>(times.size());
+            for (Date d : times) {
+                millis.add(d.getTime());
+            }
+        }
+        generationsByLayer.computeIfAbsent(layerName, k -> new Generations())
+                .advance(generationCounter.incrementAndGet(), millis);
+        List<String> rval = new ArrayList<>();
+        Map<String, Entry> entries = byLayer.get(layerName);
+        if (entries != null) {
+            removeMatching(entries, millis, rval);
+        }
+        if (!stored.isEmpty() || removalsWhileLoading != null) {
+            Removal removal = new Removal(layerName, millis);
+            synchronized (stored) {
+                if (removalsWhileLoading != null) {
+                    removalsWhileLoading.add(removal);
+                }
+                for (Map.Entry<String, Map<String, Entry>> e : stored
+                        .entrySet()) {
+                    if (removal.matchesLayer(e.getKey())) {
+                        removeMatching(e.getValue(), millis, rval);
+                    }
+                }
+            }
+        }
+        return rval;
+    }
+
+    /**
+     * Remove entries with a matching time
+     * 
+     * @param entries
+     * @param millis
+     *            times in millis, null for all times
+     * @param removed
+     *            keys of removed entries are added to this list
+     */
+    private static void removeMatching(Map<String, Entry> entries,
+            Set<Long> millis, List<String> removed) {
+        Iterator<Map.Entry<String, Entry>> iter = entries.entrySet()
+                .iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, Entry> e = iter.next();
+            if (matchesTime(e.getValue().time, millis)) {
+                iter.remove();
+                removed.add(e.getKey());
+            }
+        }
+    }
+
+    /**
+     * @param time
+     *            time in millis or UNKNOWN_TIME
+     * @param millis
+     *            times in millis, null for all times
+     * @return true if time is in millis or could be
+     */
+    private static boolean matchesTime(long time, Set<Long> millis) {
+        return millis == null || time == UNKNOWN_TIME || millis.contains(time);
+    }
+
+    /**
+     * Remove entries that are older than the max age
+     */
+    private void prune() {
+        long oldest = System.currentTimeMillis() - maxAgeMillis;
+        for (Map<String, Entry> entries : byLayer.values()) {
+            entries.values().removeIf(e -> e.indexed < oldest);
+        }
+        for (Map<String, Entry> entries : stored.values()) {
+            entries.values().removeIf(e -> e.indexed < oldest);
+        }
+        for (Generations generations : generationsByLayer.values()) {
+            generations.byTime.values().removeIf(g -> g.stamped < oldest);
+        }
+    }
+
+    /**
+     * @param time
+     * @return time in millis or UNKNOWN_TIME
+     */
+    private static long parseTime(String time) {
+        if (time == null) {
+            return UNKNOWN_TIME;
+        }
+        try {
+            return DatatypeConverter.parseDateTime(time).getTimeInMillis();
+        } catch (Exception e) {
+            return UNKNOWN_TIME;
+        }
+    }
+
+    /**
+     * @param key
+     *            tile key
+     * @return first segment of key, starts with the sanitized layer name
+     */
+    private static String getLayerSegment(String key) {
+        int index = key.indexOf(File.separatorChar);
+        return index < 0 ? key : key.substring(0, index);
+    }
+
+    /**
+     * @param key
+     *            tile key
+     * @return time in millis of the only time found in the last segment of
+     *         the key, UNKNOWN_TIME if there isn't exactly one
+     */
+    private static long parseKeyTime(String key) {
+        String segment = key.substring(key.lastIndexOf(File.separatorChar) + 1);
+        Matcher m = KEY_TIME_PATTERN.matcher(segment);
+        if (!m.find()) {
+            return UNKNOWN_TIME;
+        }
+        StringBuilder sb = new StringBuilder(m.group(1)).append(':')
+                .append(m.group(2)).append(':').append(m.group(3));
+        if (m.group(4) != null) {
+            sb.append('.').append(m.group(4));
+        }
+        if (m.find()) {
+            return UNKNOWN_TIME;
+        }
+        return parseTime(sb.append('Z').toString());
+    }
+
+    /**
+     * @return longest time a tile can be cached
+     */
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * @param maxAgeMillis
+     *            longest time a tile can be cached
+     */
+    public void setMaxAgeMillis(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    private static final class Entry {
+
+        private final long time;
+
+        private final long indexed;
+
+        public Entry(long time, long indexed) {
+            this.time = time;
+            this.indexed = indexed;
+        }
+    }
+
+    /**
+     * Removal of a layer and times, matched against tiles found in storage
+     */
+    private static final class Removal {
+
+        /* sanitized layer name between separators */
+        private final String token;
+
+        private final Set<Long> millis;
+
+        /**
+         * @param layerName
+         *            name of layer without source key
+         * @param millis
+         *            times in millis, null for all times
+         */
+        public Removal(String layerName, Set<Long> millis) {
+            this.token = '-' + TileCacheManager.sanitize(layerName) + '-';
+            this.millis = millis;
+        }
+
+        /**
+         * @param segment
+         *            first segment of tile key
+         * @return true if segment could be for the removed layer
+         */
+        public boolean matchesLayer(String segment) {
+            return ('-' + segment + '-').contains(token);
+        }
+
+        /**
+         * @param segment
+         *            first segment of tile key
+         * @param time
+         *            time in millis or UNKNOWN_TIME
+         * @return
+         */
+        public boolean matches(String segment, long time) {
+            return matchesLayer(segment) && matchesTime(time, millis);
+        }
+    }
+
+    /**
+     * Generations of the times of a single layer
+     */
+    private static final class Generations {
+
+        /* last removal of all times */
+        private volatile long all;
+
+        /* last removal of any time, applies to unknown times */
+        private volatile long any;
+
+        private final Map<Long, Generation> byTime = new ConcurrentHashMap<>();
+
+        /**
+         * @param time
+         *            time in millis or UNKNOWN_TIME
+         * @return
+         */
+        public long get(long time) {
+            if (time == UNKNOWN_TIME) {
+                return any;
+            }
+            Generation g = byTime.get(time);
+            return g == null ? all : Math.max(all, g.value);
+        }
+
+        /**
+         * @param generation
+         *            new generation
+         * @param times
+         *            times in millis, null for all times
+         */
+        public void advance(long generation, Set<Long> times) {
+            if (times == null) {
+                all = generation;
+            } else {
+                Generation g = new Generation(generation,
+                        System.currentTimeMillis());
+                for (Long time : times) {
+                    byTime.put(time, g);
+                }
+            }
+            any = generation;
+        }
+    }
+
+    private static final class Generation {
+
+        private final long value;
+
+        private final long stamped;
+
+        public Generation(long value, long stamped) {
+            this.value = value;
+            this.stamped = stamped;
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wmts.cache;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Tile cache that keeps tiles in memory. Unlike {@link MemoryTileCache}, reads
+ * do not contend on a single monitor, the cache is bounded by the total size
+ * of the encoded tiles instead of the number of tiles and tiles expire after
+ * the time-to-live value.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        set tile index max age
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class WeightedMemoryTileCache extends TileCacheManager {
+
+    protected static final long CACHE_SIZE_MB = Long.getLong(
+            "wmts.tile.cache.size.mb", 64);
+
+    protected static final long CACHE_TTL = Long.getLong(
+            "wmts.tile.cache.memory.ttl.seconds", TIME_TO_LIVE);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    protected final Cache<String, byte[]> cache;
+
+    public WeightedMemoryTileCache() {
+        this(CACHE_SIZE_MB, CACHE_TTL);
+    }
+
+    /**
+     * @param maxMegabytes
+     *            upper bound on the total size of cached tiles
+     * @param ttlSeconds
+     *            number of seconds a tile is kept after it is written
+     */
+    public WeightedMemoryTileCache(long maxMegabytes, long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMegabytes * BYTES_PER_MB)
+                .weigher((String key, byte[] arr) -> arr.length)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).recordStats()
+                .build();
+        index.setMaxAgeMillis(TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    @Override
+    protected byte[] read(String key) throws IOException {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    protected void write(String key, byte[] arr) throws IOException {
+        cache.put(key, arr);
+    }
+
+    @Override
+    protected void delete(String key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * @return number of reads that found a tile in the cache
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * @return number of reads that did not find a tile in the cache
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * @return number of tiles removed due to size or time-to-live limits
+     */
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    /**
+     * @return snapshot of all cache statistics
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+}
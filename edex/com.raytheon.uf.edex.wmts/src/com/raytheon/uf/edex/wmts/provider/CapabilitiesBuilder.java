@@ -19,6 +19,8 @@
  **/
 package com.raytheon.uf.edex.wmts.provider;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -70,6 +72,7 @@ import org.opengis.referencing.operation.TransformException;
 import com.raytheon.uf.common.geospatial.MapUtil;
 import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.edex.ogc.common.CapabilitiesCache;
 import com.raytheon.uf.edex.ogc.common.OgcBoundingBox;
 import com.raytheon.uf.edex.ogc.common.OgcDimension;
 import com.raytheon.uf.edex.ogc.common.OgcGeoBoundingBox;
@@ -100,6 +103,7 @@ import com.raytheon.uf.edex.wmts.tiling.TileMatrixRegistry;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * 2012                    bclement     Initial creation
+ * Oct 17, 2026            agent        cache marshalled capabilities
  * 
  * </pre>
  * 
@@ -151,38 +155,60 @@ public class CapabilitiesBuilder {
      * @param response
      * @throws WmtsException
      */
-    public void build(WmtsBaseRequest req, IOgcHttpResponse response)
+    public void build(final WmtsBaseRequest req, IOgcHttpResponse response)
             throws WmtsException {
         // TODO support other formats for capabilities
         // String format = req.getFormat();
 
-        Capabilities caps = new Capabilities();
-        // TODO support only returning sections in request
-        caps.setServiceIdentification(getServiceId());
-        caps.setServiceProvider(getServiceProvider());
-        caps.setOperationsMetadata(getOpMetadata(req));
-        caps.setContents(getContents(req));
-        caps.setThemes(getThemes());
-        caps.setVersion(version);
-        output(caps, response);
+        String key = CapabilitiesCache.getKey("WMTS", version, req.getRoles(),
+                req.getServiceinfo());
+        byte[] xml = CapabilitiesCache.get(key,
+                sourceManager::getLayerVersions, () -> {
+                    Capabilities caps = new Capabilities();
+                    // TODO support only returning sections in request
+                    caps.setServiceIdentification(getServiceId());
+                    caps.setServiceProvider(getServiceProvider());
+                    caps.setOperationsMetadata(getOpMetadata(req));
+                    caps.setContents(getContents(req));
+                    caps.setThemes(getThemes());
+                    caps.setVersion(version);
+                    return marshal(caps);
+                });
+        output(xml, response);
     }
 
     /**
-     * Marshal capabilities through response
-     * 
      * @param caps
+     * @return marshalled capabilities
+     * @throws WmtsException
+     */
+    protected byte[] marshal(Capabilities caps) throws WmtsException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            jaxbManager.marshalToStream(caps, out);
+            return out.toByteArray();
+        } catch (Exception e) {
+            log.error("Problem marshalling jaxb class", e);
+            throw new WmtsException(Code.InternalServerError);
+        }
+    }
+
+    /**
+     * Send marshalled capabilities through response
+     * 
+     * @param xml
      * @param response
      * @throws WmtsException
      */
-    protected void output(Capabilities caps, IOgcHttpResponse response)
+    protected void output(byte[] xml, IOgcHttpResponse response)
             throws WmtsException {
         try {
             response.setContentType("text/xml");
-            jaxbManager.marshalToStream(caps, response.getOutputStream());
+            OutputStream out = response.getOutputStream();
+            out.write(xml);
+            out.flush();
         } catch (Exception e) {
-            // FIXME this error will never get to client since outputstream has
-            // already been retrieved from response
-            log.error("Problem marshalling jaxb class", e);
+            log.error("Problem sending capabilities", e);
             throw new WmtsException(Code.InternalServerError);
         }
     }
@@ -20,6 +20,7 @@
 package com.raytheon.uf.edex.wmts.provider;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -32,10 +33,11 @@ import javax.imageio.ImageIO;
 import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 
-import org.apache.commons.lang.StringUtils;
-
 import com.raytheon.uf.common.http.MimeType;
+import com.raytheon.uf.common.util.concurrent.KeyLock;
+import com.raytheon.uf.common.util.concurrent.KeyLocker;
 import com.raytheon.uf.edex.ogc.common.OgcDimension;
+import com.raytheon.uf.edex.ogc.common.OgcLayer;
 import com.raytheon.uf.edex.ogc.common.output.IOgcHttpResponse;
 import com.raytheon.uf.edex.wmts.GetTileRequest;
 import com.raytheon.uf.edex.wmts.WmtsException;
@@ -58,6 +60,20 @@ import com.raytheon.uf.edex.wmts.tiling.TileMatrixSet;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * 2012                    bclement     Initial creation
+ * Oct 17, 2026            agent        Coalesce concurrent renders of the
+ *                                      same tile on cache miss
+ * Oct 17, 2026            agent        Encode tiles once and cache encoded
+ *                                      bytes in requested format
+ * Oct 17, 2026            agent        Let cache write hits to response
+ * Oct 17, 2026            agent        Index cached tiles by layer and time
+ * Oct 17, 2026            agent        Added seed for cache warm up
+ * Oct 17, 2026            agent        Don't cache tiles rendered from
+ *                                      data invalidated during the render
+ * Oct 17, 2026            agent        Sanitize keys with tile cache
+ * Oct 17, 2026            agent        Pass layer and time to cache reads so
+ *                                      converted tiles are indexed
+ * Oct 17, 2026            agent        Don't lock tile keys when caching is
+ *                                      turned off
  * 
  * </pre>
  * 
@@ -68,6 +84,8 @@ public class TileFetcher extends BaseFetcher {
 
     protected TileCacheManager cache;
 
+    protected static final KeyLocker<String> locker = new KeyLocker<>();
+
     /**
      * @param registry
      * @param sourceManager
@@ -98,11 +116,13 @@ public class TileFetcher extends BaseFetcher {
         if (source instanceof StaticWmtsSource) {
             /* static sources are almost like caches that don't expire */
             fulfillDirect(source, layer, req, response);
+        } else if (TileCacheManager.isSkipCache()) {
+            /* renders can't be shared without a cache, don't lock the key */
+            fulfillDirect(source, layer, req, response);
         } else {
             if (!fulfillFromCache(req, tileKey, response)) {
                 // cache miss
-                BufferedImage tile = fulfillDirect(source, layer, req, response);
-                cache.putTile(tileKey, tile);
+                fulfillLocked(source, layer, req, tileKey, response);
             }
         }
     }
@@ -110,30 +130,145 @@ public class TileFetcher extends BaseFetcher {
     private final BufferedImage fulfillDirect(WmtsSource source,
             WmtsLayer layer, GetTileRequest req, IOgcHttpResponse response)
             throws WmtsException {
-        TileMatrixSet mset = getMatrixSet(req);
-        TileMatrix matrix = getMatrix(req, mset);
-        BufferedImage tile = source
-                .getImage(layer, req.getStyle(), req.getDimensions(),
-                        req.gettRow(), req.gettCol(), mset, matrix);
+        BufferedImage tile = render(source, layer, req);
         writeImage(req, tile, response);
         return tile;
     }
 
+    /**
+     * Render tile from source
+     * 
+     * @param source
+     * @param layer
+     * @param req
+     * @return
+     * @throws WmtsException
+     */
+    private final BufferedImage render(WmtsSource source, WmtsLayer layer,
+            GetTileRequest req) throws WmtsException {
+        TileMatrixSet mset = getMatrixSet(req);
+        TileMatrix matrix = getMatrix(req, mset);
+        return source.getImage(layer, req.getStyle(), req.getDimensions(),
+                req.gettRow(), req.gettCol(), mset, matrix);
+    }
+
+    /**
+     * Render tile and store it in the cache. Only one thread renders a tile
+     * key at a time, concurrent requests for the same key wait for that render
+     * to finish and are then served from the cache.
+     * 
+     * @param source
+     * @param layer
+     * @param req
+     * @param tileKey
+     * @param response
+     * @throws WmtsException
+     */
+    protected void fulfillLocked(WmtsSource source, WmtsLayer layer,
+            GetTileRequest req, String tileKey, IOgcHttpResponse response)
+            throws WmtsException {
+        KeyLock<String> lock = null;
+        byte[] tile;
+        try {
+            lock = locker.getLock(tileKey);
+            lock.lock();
+            String layerName = getIndexLayerName(req);
+            // recheck, tile could have been rendered while we were waiting
+            byte[] cached = cache.getTile(tileKey, layerName, req.getTime(),
+                    req.getFormat());
+            if (cached != null) {
+                writeTile(req, cached, response);
+                return;
+            }
+            long generation = cache.getGeneration(layerName, req.getTime());
+            tile = encodeImage(req, render(source, layer, req));
+            cache.putTile(tileKey, layerName, req.getTime(), generation,
+                    req.getFormat(), tile);
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+        writeTile(req, tile, response);
+    }
+
+    /**
+     * Render requested tile into the cache without sending a response. Tiles
+     * from static sources are not cached.
+     * 
+     * @param req
+     * @return true if the tile was rendered, false if it was already cached,
+     *         is from a static source or caching is turned off
+     * @throws WmtsException
+     */
+    public boolean seed(GetTileRequest req) throws WmtsException {
+        if (TileCacheManager.isSkipCache()) {
+            return false;
+        }
+        WmtsSource source = lookupSource(req);
+        if (source instanceof StaticWmtsSource) {
+            return false;
+        }
+        WmtsLayer layer = source.getLayer(req.getLayer());
+        if (layer == null) {
+            throw new WmtsException(Code.LayerNotDefined);
+        }
+        fillWithDefaults(req, layer);
+        String tileKey = getTileKey(layer, req);
+        KeyLock<String> lock = null;
+        try {
+            lock = locker.getLock(tileKey);
+            lock.lock();
+            String layerName = getIndexLayerName(req);
+            if (cache.getTile(tileKey, layerName, req.getTime(),
+                    req.getFormat()) != null) {
+                return false;
+            }
+            long generation = cache.getGeneration(layerName, req.getTime());
+            byte[] tile = encodeImage(req, render(source, layer, req));
+            cache.putTile(tileKey, layerName, req.getTime(), generation,
+                    req.getFormat(), tile);
+            return true;
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
     protected boolean fulfillFromCache(GetTileRequest req, String tileKey,
             IOgcHttpResponse response) throws WmtsException {
-        boolean foundInCache = false;
-        byte[] tile = cache.getTile(tileKey, req.getFormat());
-        if (tile != null) {
-            foundInCache = true;
-            response.setContentType(req.getFormat().toString());
-            try (OutputStream out = response.getOutputStream()) {
-                out.write(tile);
-            } catch (IOException e) {
-                throw new WmtsException(Code.InternalServerError,
-                        "Unable to write tile to stream", e);
-            }
+        return cache.writeTile(tileKey, getIndexLayerName(req), req.getTime(),
+                req.getFormat(), response);
+    }
+
+    /**
+     * Write encoded tile to response
+     * 
+     * @param req
+     * @param tile
+     *            tile encoded in requested format
+     * @param response
+     * @throws WmtsException
+     */
+    protected void writeTile(GetTileRequest req, byte[] tile,
+            IOgcHttpResponse response) throws WmtsException {
+        response.setContentType(req.getFormat().toString());
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(tile);
+        } catch (IOException e) {
+            throw new WmtsException(Code.InternalServerError,
+                    "Unable to write tile to stream", e);
         }
-        return foundInCache;
+    }
+
+    /**
+     * @param req
+     * @return requested layer name without source key
+     */
+    protected String getIndexLayerName(GetTileRequest req) {
+        String[] parts = OgcLayer.separateKey(req.getLayer());
+        return parts[parts.length - 1];
     }
 
     /**
@@ -191,31 +326,59 @@ public class TileFetcher extends BaseFetcher {
      * @return
      */
     private String sanitize(String s) {
-        if (s == null) {
-            return "null";
-        }
-        String rval = StringUtils.replaceChars(s, "./\\?%*:|\"<>",
-                "-----------");
-        rval = StringUtils.chomp(rval, "-");
-        return rval.substring(StringUtils.indexOfAnyBut(rval, "-"));
+        return TileCacheManager.sanitize(s);
     }
 
     /**
-     * @param req
-     * @param tile
+     * @param mimetype
+     * @return image writer for mimetype
      * @throws WmtsException
+     *             if format is not supported
      */
-    protected void writeImage(GetTileRequest req, BufferedImage tile,
-            IOgcHttpResponse response) throws WmtsException {
-        MimeType mimetype = req.getFormat();
+    protected ImageWriter getWriter(MimeType mimetype) throws WmtsException {
         Iterator<?> it = ImageIO.getImageWritersByMIMEType(mimetype
                 .toStringWithoutParams());
         if (!it.hasNext()) {
             throw new WmtsException(Code.InvalidParameterValue,
                     "Format not supported: " + mimetype);
         }
+        return (ImageWriter) it.next();
+    }
+
+    /**
+     * Encode image in requested format
+     * 
+     * @param req
+     * @param tile
+     * @return
+     * @throws WmtsException
+     */
+    protected byte[] encodeImage(GetTileRequest req, BufferedImage tile)
+            throws WmtsException {
+        ImageWriter writer = getWriter(req.getFormat());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(out);
+            writer.write(tile);
+        } catch (IOException e) {
+            throw new WmtsException(Code.InternalServerError,
+                    "Unable to encode tile", e);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * @param req
+     * @param tile
+     * @throws WmtsException
+     */
+    protected void writeImage(GetTileRequest req, BufferedImage tile,
+            IOgcHttpResponse response) throws WmtsException {
+        MimeType mimetype = req.getFormat();
+        ImageWriter writer = getWriter(mimetype);
         try {
-            ImageWriter writer = (ImageWriter) it.next();
             response.setContentType(mimetype.toString());
             ImageOutputStream out = ImageIO.createImageOutputStream(response
                     .getOutputStream());
@@ -0,0 +1,621 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wmts.provider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.apache.commons.collections.map.CaseInsensitiveMap;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import com.raytheon.uf.common.geospatial.MapUtil;
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.edex.ogc.common.OgcGeoBoundingBox;
+import com.raytheon.uf.edex.ogc.common.OgcLayer;
+import com.raytheon.uf.edex.ogc.common.OgcStyle;
+import com.raytheon.uf.edex.ogc.common.db.ILayerChangeListener;
+import com.raytheon.uf.edex.ogc.common.db.LayerTransformer;
+import com.raytheon.uf.edex.wmts.GetTileRequest;
+import com.raytheon.uf.edex.wmts.WmtsException;
+import com.raytheon.uf.edex.wmts.WmtsException.Code;
+import com.raytheon.uf.edex.wmts.cache.TileCacheManager;
+import com.raytheon.uf.edex.wmts.reg.WmtsLayer;
+import com.raytheon.uf.edex.wmts.reg.WmtsSource;
+import com.raytheon.uf.edex.wmts.statictile.StaticWmtsSource;
+import com.raytheon.uf.edex.wmts.tiling.TileMatrix;
+import com.raytheon.uf.edex.wmts.tiling.TileMatrixFactory;
+import com.raytheon.uf.edex.wmts.tiling.TileMatrixRegistry;
+import com.raytheon.uf.edex.wmts.tiling.TileMatrixSet;
+
+/**
+ * Renders tiles into the tile cache in the background so that the first
+ * client to view new data does not pay the rendering cost. Tiles are rendered
+ * on a bounded worker pool in priority order, lowest zoom level first. Seeding
+ * is started automatically when data for the most recent model run of a layer
+ * is collected. Times collected for a layer within a short delay are seeded
+ * together so that a model run arriving record by record is only planned a
+ * few times.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * Oct 17, 2026            agent        coalesce automatic seeds, atomic
+ *                                      pending limit
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class TileSeeder implements ILayerChangeListener {
+
+    protected static final IUFStatusHandler log = UFStatus
+            .getHandler(TileSeeder.class);
+
+    public static final int THREADS = Integer.getInteger("wmts.seed.threads",
+            2);
+
+    public static final int MAX_PENDING = Integer.getInteger(
+            "wmts.seed.max.pending", 50000);
+
+    public static final boolean AUTO_SEED = Boolean.parseBoolean(System
+            .getProperty("wmts.seed.auto", "true"));
+
+    public static final String AUTO_MATRIX_SET = System.getProperty(
+            "wmts.seed.matrix.set", TileMatrixRegistry.googleTSetName);
+
+    public static final int AUTO_MIN_ZOOM = Integer.getInteger(
+            "wmts.seed.min.zoom", 0);
+
+    public static final int AUTO_MAX_ZOOM = Integer.getInteger(
+            "wmts.seed.max.zoom", 3);
+
+    /* seconds to collect times for a layer before seeding them */
+    public static final long AUTO_DELAY = Long.getLong(
+            "wmts.seed.delay.seconds", 30);
+
+    /* layer names without source key that are seeded automatically */
+    public static final Pattern AUTO_LAYER_PATTERN = Pattern.compile(System
+            .getProperty("wmts.seed.layer.pattern", ".*"));
+
+    /* mercator projections are undefined at the poles */
+    private static final double MAX_LATITUDE = 85.0511;
+
+    private final TileMatrixRegistry registry;
+
+    private final WmtsSourceManager sourceManager;
+
+    private final TileFetcher fetcher;
+
+    private final ThreadPoolExecutor workers;
+
+    private final ThreadPoolExecutor planner;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /* times waiting for automatic seeding by layer name */
+    private final ConcurrentHashMap<String, PendingSeed> pendingSeeds = new ConcurrentHashMap<>();
+
+    /* tiles queued or rendering */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong queued = new AtomicLong();
+
+    private final AtomicLong rendered = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param registry
+     * @param sourceManager
+     * @param cache
+     *            cache that tiles are rendered into
+     */
+    public TileSeeder(TileMatrixRegistry registry,
+            WmtsSourceManager sourceManager, TileCacheManager cache) {
+        this.registry = registry;
+        this.sourceManager = sourceManager;
+        this.fetcher = new TileFetcher(registry, sourceManager, cache);
+        this.workers = new ThreadPoolExecutor(THREADS, THREADS, 60L,
+                TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+                r -> {
+                    Thread t = new Thread(r, "wmts-tile-seed");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+        this.workers.allowCoreThreadTimeOut(true);
+        this.planner = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), r -> {
+                    Thread t = new Thread(r, "wmts-tile-seed-plan");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.planner.allowCoreThreadTimeOut(true);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "wmts-tile-seed-delay");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queue tiles for rendering
+     * 
+     * @param layers
+     *            layer identifiers as advertised by the WMTS
+     * @param matrixSetId
+     *            identifier of tile matrix set in registry
+     * @param minZoom
+     *            index of first tile matrix in set to render
+     * @param maxZoom
+     *            index of last tile matrix in set to render
+     * @param bbox
+     *            area to render, null for the bounds of each layer
+     * @param times
+     *            layer times to render, null or empty for the default time
+     * @return number of tiles queued
+     * @throws WmtsException
+     *             if the tile matrix set is not in the registry
+     */
+    public int seed(Collection<String> layers, String matrixSetId,
+            int minZoom, int maxZoom, ReferencedEnvelope bbox,
+            Collection<String> times) throws WmtsException {
+        TileMatrixSet mset = registry.getTileMatrixSet(matrixSetId);
+        if (mset == null) {
+            throw new WmtsException(Code.InvalidParameterValue,
+                    "Unknown tile matrix set: " + matrixSetId);
+        }
+        if (times == null || times.isEmpty()) {
+            times = Collections.singletonList(null);
+        }
+        TileMatrix[] entries = mset.getMatrixEntries();
+        int first = Math.max(minZoom, 0);
+        int last = Math.min(maxZoom, entries.length - 1);
+        int count = 0;
+        for (String layerName : layers) {
+            WmtsLayer layer = getLayer(layerName);
+            if (layer == null) {
+                continue;
+            }
+            ReferencedEnvelope area = bbox;
+            if (area == null) {
+                area = getBounds(layer);
+            }
+            String style = getDefaultStyle(layer);
+            for (int zoom = first; zoom <= last; ++zoom) {
+                TileMatrix matrix = entries[zoom];
+                int[] range = getTileRange(matrix, area);
+                if (range == null) {
+                    continue;
+                }
+                String matrixId = TileMatrixFactory.getMatrixId(
+                        mset.getIdentifier(), matrix);
+                for (String time : times) {
+                    for (int row = range[2]; row <= range[3]; ++row) {
+                        for (int col = range[0]; col <= range[1]; ++col) {
+                            GetTileRequest req = createRequest(
+                                    layer.getIdentifier(), style,
+                                    mset.getIdentifier(), matrixId, row, col,
+                                    time);
+                            if (!enqueue(new SeedTask(zoom, req))) {
+                                return count;
+                            }
+                            ++count;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void layerChanged(String layerName, Collection<Date> times) {
+        // invalidation is handled by the tile cache
+    }
+
+    @Override
+    public void latestRunCollected(final String layerName,
+            final Date refTime, Collection<Date> times) {
+        if (!AUTO_SEED || !AUTO_LAYER_PATTERN.matcher(layerName).matches()) {
+            return;
+        }
+        final Set<String> timeStrs = new HashSet<String>();
+        if (times == null || times.isEmpty()) {
+            // default time
+            timeStrs.add(null);
+        } else {
+            for (Date d : times) {
+                timeStrs.add(LayerTransformer.format(d));
+            }
+        }
+        final boolean[] created = new boolean[1];
+        pendingSeeds.compute(layerName, (k, p) -> {
+            if (p == null) {
+                p = new PendingSeed(refTime);
+                created[0] = true;
+            }
+            p.add(refTime, timeStrs);
+            return p;
+        });
+        if (created[0]) {
+            // called during ingest, find layers and tiles on another thread
+            scheduler.schedule(
+                    () -> planner.execute(new PlanTask(refTime,
+                            () -> plan(layerName))), AUTO_DELAY,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Queue tiles for the times collected for layer since it was last planned
+     * 
+     * @param layerName
+     *            layer name without source key
+     */
+    private void plan(String layerName) {
+        PendingSeed seed = pendingSeeds.remove(layerName);
+        if (seed == null) {
+            return;
+        }
+        List<String> ids = getLayerIdentifiers(layerName);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            int count = seed(ids, AUTO_MATRIX_SET, AUTO_MIN_ZOOM,
+                    AUTO_MAX_ZOOM, null, new ArrayList<String>(seed.times));
+            log.debug("Queued " + count + " tiles for " + layerName);
+        } catch (Exception e) {
+            log.error("Unable to seed tiles for layer " + layerName, e);
+        }
+    }
+
+    /**
+     * @param layerName
+     *            layer name without source key
+     * @return identifiers of WMTS layers with name from all dynamic sources
+     */
+    protected List<String> getLayerIdentifiers(String layerName) {
+        List<String> rval = new ArrayList<String>(1);
+        for (WmtsSource source : sourceManager.getSources()) {
+            if (source instanceof StaticWmtsSource) {
+                continue;
+            }
+            String id = OgcLayer.createName(source.getKey(), layerName);
+            try {
+                if (source.getLayer(id) != null) {
+                    rval.add(id);
+                }
+            } catch (WmtsException e) {
+                // layer not in source
+            }
+        }
+        return rval;
+    }
+
+    /**
+     * @param identifier
+     * @return null if layer is not found
+     */
+    protected WmtsLayer getLayer(String identifier) {
+        WmtsSource source = sourceManager.getSource(identifier);
+        if (source == null) {
+            log.warn("No source found for layer: " + identifier);
+            return null;
+        }
+        try {
+            return source.getLayer(identifier);
+        } catch (WmtsException e) {
+            log.warn("Unable to find layer to seed: " + identifier);
+            return null;
+        }
+    }
+
+    /**
+     * @param layer
+     * @return name of style that clients get by default
+     */
+    protected String getDefaultStyle(WmtsLayer layer) {
+        Collection<OgcStyle> styles = layer.getStyles();
+        if (styles == null || styles.isEmpty()) {
+            return "default";
+        }
+        for (OgcStyle style : styles) {
+            if (style.isDefault()) {
+                return style.getName();
+            }
+        }
+        return styles.iterator().next().getName();
+    }
+
+    /**
+     * @param layer
+     * @return geographic bounds of layer, world if unknown
+     */
+    protected ReferencedEnvelope getBounds(WmtsLayer layer) {
+        OgcGeoBoundingBox box = layer.getGeoBoundingBox();
+        if (box == null) {
+            return new ReferencedEnvelope(-180, 180, -90, 90,
+                    MapUtil.LATLON_PROJECTION);
+        }
+        return new ReferencedEnvelope(box.getMinx(), box.getMaxx(),
+                box.getMiny(), box.getMaxy(), MapUtil.LATLON_PROJECTION);
+    }
+
+    /**
+     * Find the tiles in matrix that intersect area
+     * 
+     * @param matrix
+     * @param area
+     * @return min column, max column, min row, max row or null if area does
+     *         not intersect matrix
+     */
+    protected int[] getTileRange(TileMatrix matrix, ReferencedEnvelope area) {
+        ReferencedEnvelope bounds = matrix.getBounds();
+        Envelope target;
+        try {
+            target = transform(area,
+                    bounds.getCoordinateReferenceSystem());
+        } catch (Exception e) {
+            log.error("Unable to transform seed area to tile matrix crs", e);
+            return null;
+        }
+        target = target.intersection(bounds);
+        if (target.isNull()) {
+            return null;
+        }
+        double spanX = bounds.getWidth() / matrix.getMatrixWidth();
+        double spanY = bounds.getHeight() / matrix.getMatrixHeight();
+        int minCol = (int) Math.floor((target.getMinX() - bounds.getMinX())
+                / spanX);
+        int maxCol = (int) Math.ceil((target.getMaxX() - bounds.getMinX())
+                / spanX) - 1;
+        // rows start at the top of the matrix
+        int minRow = (int) Math.floor((bounds.getMaxY() - target.getMaxY())
+                / spanY);
+        int maxRow = (int) Math.ceil((bounds.getMaxY() - target.getMinY())
+                / spanY) - 1;
+        minCol = clamp(minCol, matrix.getMatrixWidth() - 1);
+        maxCol = clamp(Math.max(maxCol, minCol), matrix.getMatrixWidth() - 1);
+        minRow = clamp(minRow, matrix.getMatrixHeight() - 1);
+        maxRow = clamp(Math.max(maxRow, minRow),
+                matrix.getMatrixHeight() - 1);
+        return new int[] { minCol, maxCol, minRow, maxRow };
+    }
+
+    private static int clamp(int i, int max) {
+        return Math.max(0, Math.min(i, max));
+    }
+
+    private static Envelope transform(ReferencedEnvelope area,
+            CoordinateReferenceSystem crs) throws Exception {
+        CoordinateReferenceSystem areaCrs = area.getCoordinateReferenceSystem();
+        if (areaCrs == null || crs == null
+                || CRS.equalsIgnoreMetadata(areaCrs, crs)) {
+            return area;
+        }
+        ReferencedEnvelope src = area;
+        if (CRS.equalsIgnoreMetadata(areaCrs, MapUtil.LATLON_PROJECTION)) {
+            src = new ReferencedEnvelope(area.getMinX(), area.getMaxX(),
+                    Math.max(area.getMinY(), -MAX_LATITUDE), Math.min(
+                            area.getMaxY(), MAX_LATITUDE), areaCrs);
+        }
+        return src.transform(crs, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected GetTileRequest createRequest(String layer, String style,
+            String matrixSetId, String matrixId, int row, int col, String time) {
+        Map<String, String> dims = new CaseInsensitiveMap();
+        GetTileRequest rval = new GetTileRequest(layer, style, matrixSetId,
+                matrixId, row, col, time, null, dims);
+        rval.setFormat(TileCacheManager.CACHE_FORMAT);
+        return rval;
+    }
+
+    /**
+     * @param task
+     * @return false if the queue is full
+     */
+    private boolean enqueue(SeedTask task) {
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+            log.warn("Tile seed queue is full, dropping remaining tiles");
+            return false;
+        }
+        queued.incrementAndGet();
+        workers.execute(task);
+        return true;
+    }
+
+    /**
+     * @return number of tiles waiting to be rendered
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * @return total number of tiles queued
+     */
+    public long getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return number of tiles rendered into the cache
+     */
+    public long getRenderedCount() {
+        return rendered.get();
+    }
+
+    /**
+     * @return number of queued tiles that were already cached
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * @return number of tiles that failed to render
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return number of seed requests cut short by a full queue
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Renders a single tile, lower zoom levels have higher priority
+     */
+    private class SeedTask implements Runnable, Comparable<SeedTask> {
+
+        private final int zoom;
+
+        private final long seq = sequence.getAndIncrement();
+
+        private final GetTileRequest req;
+
+        public SeedTask(int zoom, GetTileRequest req) {
+            this.zoom = zoom;
+            this.req = req;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (fetcher.seed(req)) {
+                    rendered.incrementAndGet();
+                } else {
+                    skipped.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                failed.incrementAndGet();
+                log.debug("Unable to seed tile for layer " + req.getLayer(),
+                        e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(SeedTask o) {
+            if (zoom != o.zoom) {
+                return Integer.compare(zoom, o.zoom);
+            }
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+    /**
+     * Times of the latest model run of a layer waiting to be seeded
+     */
+    private static class PendingSeed {
+
+        private Date refTime;
+
+        private final Set<String> times = new HashSet<String>();
+
+        public PendingSeed(Date refTime) {
+            this.refTime = refTime;
+        }
+
+        /**
+         * Add times, replacing those of older model runs
+         * 
+         * @param refTime
+         * @param times
+         */
+        public void add(Date refTime, Set<String> times) {
+            if (refTime != null && this.refTime != null) {
+                int diff = refTime.compareTo(this.refTime);
+                if (diff < 0) {
+                    return;
+                } else if (diff > 0) {
+                    this.times.clear();
+                }
+            }
+            this.refTime = refTime;
+            this.times.addAll(times);
+        }
+    }
+
+    /**
+     * Finds tiles to seed, newer model runs have higher priority
+     */
+    private static class PlanTask implements Runnable, Comparable<PlanTask> {
+
+        private final Date refTime;
+
+        private final Runnable plan;
+
+        public PlanTask(Date refTime, Runnable plan) {
+            this.refTime = refTime;
+            this.plan = plan;
+        }
+
+        @Override
+        public void run() {
+            plan.run();
+        }
+
+        @Override
+        public int compareTo(PlanTask o) {
+            return o.refTime.compareTo(refTime);
+        }
+    }
+
+}
@@ -27,16 +27,14 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.geotools.coverage.grid.GridCoverage2D;
-import org.geotools.coverage.grid.GridEnvelope2D;
 import org.geotools.coverage.grid.GridGeometry2D;
-import org.geotools.geometry.DirectPosition2D;
-import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.simple.SimpleFeature;
-import org.opengis.metadata.spatial.PixelOrientation;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
-import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
 
 import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
@@ -53,6 +51,7 @@ import com.raytheon.uf.edex.wmts.WmtsException.Code;
 import com.raytheon.uf.edex.wmts.reg.WmtsLayer;
 import com.raytheon.uf.edex.wmts.reg.WmtsSource;
 import com.raytheon.uf.edex.wmts.tiling.TileMatrix;
+import com.raytheon.uf.edex.wmts.tiling.TileMatrixGeometry;
 import com.raytheon.uf.edex.wmts.tiling.TileMatrixSet;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
@@ -67,6 +66,8 @@ import org.locationtech.jts.geom.Envelope;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * 2012                    bclement     Initial creation
+ * Oct 17, 2026            agent        Cache tile matrix geometry
+ * Oct 17, 2026            agent        added getLayerVersion()
  * 
  * </pre>
  * 
@@ -81,7 +82,14 @@ public class WmsSourceAdapter implements WmtsSource {
 
     protected WmsSource source;
 
-    protected IUFStatusHandler log = UFStatus.getHandler(this.getClass());
+    protected static final IUFStatusHandler log = UFStatus
+            .getHandler(WmsSourceAdapter.class);
+
+    /*
+     * adapters are recreated when sources are refreshed, share geometries.
+     * Matrices are only created by the registry so this stays small.
+     */
+    private static final ConcurrentMap<TileMatrix, TileMatrixGeometry> geometryCache = new ConcurrentHashMap<>();
 
     /**
 	 * 
@@ -223,7 +231,7 @@ public class WmsSourceAdapter implements WmtsSource {
      * @throws WmtsException
      *             InternalServerError if lookup fails
      */
-    protected CoordinateReferenceSystem getCrs(TileMatrixSet mset)
+    protected static CoordinateReferenceSystem getCrs(TileMatrixSet mset)
             throws WmtsException {
         try {
             CoordinateReferenceSystem rval = CrsLookup.lookup(mset
@@ -243,12 +251,37 @@ public class WmsSourceAdapter implements WmtsSource {
 
     protected GridGeometry2D getGeometry(int row, int col, TileMatrixSet mset,
             TileMatrix matrix) throws WmtsException {
-        CoordinateReferenceSystem crs = getCrs(mset);
-        Envelope bounds = getBounds(row, col, mset, matrix);
-        ReferencedEnvelope env = new ReferencedEnvelope(bounds, crs);
-        GridEnvelope2D range = new GridEnvelope2D(0, 0, matrix.getTileWidth(),
-                matrix.getTileHeight());
-        return new GridGeometry2D(range, env);
+        validate(row, matrix.getMatrixHeight() - 1, "row");
+        validate(col, matrix.getMatrixWidth() - 1, "column");
+        try {
+            return getMatrixGeometry(mset, matrix).getTileGeometry(row, col);
+        } catch (TransformException e) {
+            log.error("Problem getting bounds for tile", e);
+            throw new WmtsException(Code.InternalServerError);
+        }
+    }
+
+    /**
+     * Get precomputed geometry for matrix, creating it if needed
+     * 
+     * @param mset
+     * @param matrix
+     * @return
+     * @throws WmtsException
+     *             InternalServerError if crs lookup fails
+     */
+    protected static TileMatrixGeometry getMatrixGeometry(TileMatrixSet mset,
+            TileMatrix matrix) throws WmtsException {
+        TileMatrixGeometry rval = geometryCache.get(matrix);
+        if (rval == null) {
+            rval = new TileMatrixGeometry(mset, matrix, getCrs(mset));
+            TileMatrixGeometry existing = geometryCache.putIfAbsent(matrix,
+                    rval);
+            if (existing != null) {
+                rval = existing;
+            }
+        }
+        return rval;
     }
 
     /**
@@ -260,7 +293,7 @@ public class WmsSourceAdapter implements WmtsSource {
      * @throws WmtsException
      *             TileOutOfRange if i is out of bounds
      */
-    protected void validate(Integer i, int max, String label)
+    protected void validate(int i, int max, String label)
             throws WmtsException {
         if (i < 0 || i > max) {
             throw new WmtsException(Code.TileOutOfRange, "Invalid " + label
@@ -282,24 +315,12 @@ public class WmsSourceAdapter implements WmtsSource {
             TileMatrix matrix) throws WmtsException {
         validate(row, matrix.getMatrixHeight() - 1, "row");
         validate(col, matrix.getMatrixWidth() - 1, "column");
-        // TODO this should be cached
-        GridGeometry2D geom = new GridGeometry2D(new GridEnvelope2D(0, 0,
-                matrix.getMatrixWidth(), matrix.getMatrixHeight()),
-                mset.getBounds());
-        MathTransform gridToCRS = geom
-                .getGridToCRS(PixelOrientation.UPPER_LEFT);
-        DirectPosition2D gridUL = new DirectPosition2D(col, row);
-        DirectPosition2D gridLR = new DirectPosition2D(col + 1, row + 1);
-        DirectPosition2D crsUL = new DirectPosition2D();
-        DirectPosition2D crsLR = new DirectPosition2D();
         try {
-            gridToCRS.transform(gridUL, crsUL);
-            gridToCRS.transform(gridLR, crsLR);
-        } catch (Exception e) {
+            return getMatrixGeometry(mset, matrix).getTileBounds(row, col);
+        } catch (TransformException e) {
             log.error("Problem getting bounds for tile", e);
             throw new WmtsException(Code.InternalServerError);
         }
-        return new Envelope(crsLR.x, crsUL.x, crsLR.y, crsUL.y);
     }
 
     @Override
@@ -357,4 +378,9 @@ public class WmsSourceAdapter implements WmtsSource {
         return source.getKey();
     }
 
+    @Override
+    public long getLayerVersion() {
+        return source.getLayerVersion();
+    }
+
 }
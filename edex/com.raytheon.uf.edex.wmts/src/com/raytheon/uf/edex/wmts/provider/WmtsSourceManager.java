@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.springframework.context.ApplicationContext;
 
@@ -49,6 +50,7 @@ import com.raytheon.uf.edex.wmts.statictile.FileStaticWmtsSource;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * 2012                    bclement     Initial creation
+ * Oct 17, 2026            agent        added getLayerVersions()
  * 
  * </pre>
  * 
@@ -141,6 +143,19 @@ public class WmtsSourceManager {
         return new ArrayList<WmtsSource>(map.values());
     }
 
+    /**
+     * @return layer version of each source by source key, changes whenever
+     *         the layers of any source change
+     */
+    public Map<String, Long> getLayerVersions() {
+        Map<String, WmtsSource> map = getMap();
+        Map<String, Long> rval = new HashMap<String, Long>(map.size());
+        for (Entry<String, WmtsSource> e : map.entrySet()) {
+            rval.put(e.getKey(), e.getValue().getLayerVersion());
+        }
+        return rval;
+    }
+
     /**
      * @return the cacheTtlMilliSeconds
      */
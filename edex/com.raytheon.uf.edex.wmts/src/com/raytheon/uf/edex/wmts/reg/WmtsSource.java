@@ -39,6 +39,7 @@ import com.raytheon.uf.edex.wmts.tiling.TileMatrixSet;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * 2012                    bclement     Initial creation
+ * Oct 17, 2026            agent        added getLayerVersion()
  * 
  * </pre>
  * 
@@ -61,4 +62,12 @@ public interface WmtsSource {
 
 	public String getKey();
 
+    /**
+     * @return version that changes whenever the layers of this source change,
+     *         sources with fixed layers always return the same version
+     */
+    public default long getLayerVersion() {
+        return 0;
+    }
+
 }
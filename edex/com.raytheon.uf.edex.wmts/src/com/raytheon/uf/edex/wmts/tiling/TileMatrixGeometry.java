@@ -0,0 +1,145 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ * 
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ * 
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ * 
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.wmts.tiling;
+
+import java.awt.geom.AffineTransform;
+
+import org.geotools.coverage.grid.GridEnvelope2D;
+import org.geotools.coverage.grid.GridGeometry2D;
+import org.geotools.geometry.DirectPosition2D;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.metadata.spatial.PixelOrientation;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+/**
+ * Precomputed geometry of a tile matrix. Holds the coordinate reference system
+ * of the tile matrix set and the transform from tile indexes to CRS
+ * coordinates so that tile bounds can be calculated without building a grid
+ * geometry for the whole matrix. Instances are immutable and can be shared.
+ * 
+ * <pre>
+ * 
+ * SOFTWARE HISTORY
+ * 
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent        Initial creation
+ * 
+ * </pre>
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public class TileMatrixGeometry {
+
+    private final CoordinateReferenceSystem crs;
+
+    private final int tileWidth;
+
+    private final int tileHeight;
+
+    /* affine coefficients from tile index (col, row) to CRS */
+    private final double m00, m01, m02, m10, m11, m12;
+
+    /* only used if grid to CRS is not affine */
+    private final MathTransform gridToCRS;
+
+    /**
+     * @param mset
+     * @param matrix
+     *            matrix from set
+     * @param crs
+     *            coordinate reference system of set
+     */
+    public TileMatrixGeometry(TileMatrixSet mset, TileMatrix matrix,
+            CoordinateReferenceSystem crs) {
+        this.crs = crs;
+        this.tileWidth = matrix.getTileWidth();
+        this.tileHeight = matrix.getTileHeight();
+        GridGeometry2D geom = new GridGeometry2D(new GridEnvelope2D(0, 0,
+                matrix.getMatrixWidth(), matrix.getMatrixHeight()),
+                mset.getBounds());
+        MathTransform transform = geom
+                .getGridToCRS(PixelOrientation.UPPER_LEFT);
+        if (transform instanceof AffineTransform) {
+            AffineTransform affine = (AffineTransform) transform;
+            m00 = affine.getScaleX();
+            m01 = affine.getShearX();
+            m02 = affine.getTranslateX();
+            m10 = affine.getShearY();
+            m11 = affine.getScaleY();
+            m12 = affine.getTranslateY();
+            gridToCRS = null;
+        } else {
+            m00 = m01 = m02 = m10 = m11 = m12 = Double.NaN;
+            gridToCRS = transform;
+        }
+    }
+
+    /**
+     * @return the coordinate reference system of the tile matrix set
+     */
+    public CoordinateReferenceSystem getCrs() {
+        return crs;
+    }
+
+    /**
+     * Calculate CRS envelope of tile. Row and column are not validated.
+     * 
+     * @param row
+     * @param col
+     * @return
+     * @throws TransformException
+     */
+    public Envelope getTileBounds(int row, int col) throws TransformException {
+        if (gridToCRS != null) {
+            DirectPosition2D crsUL = new DirectPosition2D();
+            DirectPosition2D crsLR = new DirectPosition2D();
+            gridToCRS.transform(new DirectPosition2D(col, row), crsUL);
+            gridToCRS.transform(new DirectPosition2D(col + 1, row + 1), crsLR);
+            return new Envelope(crsLR.x, crsUL.x, crsLR.y, crsUL.y);
+        }
+        double ulx = m00 * col + m01 * row + m02;
+        double uly = m10 * col + m11 * row + m12;
+        double lrx = ulx + m00 + m01;
+        double lry = uly + m10 + m11;
+        return new Envelope(lrx, ulx, lry, uly);
+    }
+
+    /**
+     * Create grid geometry for tile. Row and column are not validated.
+     * 
+     * @param row
+     * @param col
+     * @return
+     * @throws TransformException
+     */
+    public GridGeometry2D getTileGeometry(int row, int col)
+            throws TransformException {
+        ReferencedEnvelope env = new ReferencedEnvelope(getTileBounds(row,
+                col), crs);
+        return new GridGeometry2D(new GridEnvelope2D(0, 0, tileWidth,
+                tileHeight), env);
+    }
+
+}
@@ -19,6 +19,7 @@
  **/
 package com.raytheon.uf.edex.wmts.tiling;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -42,6 +43,7 @@ import com.raytheon.uf.edex.wmts.tiling.TileMatrixFactory.ScaleSet;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * 2012                    bclement     Initial creation
+ * Oct 17, 2026            agent        pre-warm CRS cache with set CRSes
  * 
  * </pre>
  * 
@@ -99,6 +101,7 @@ public class TileMatrixRegistry {
                         googleScales, googleDims, googleDims));
         matrixMap.put(googleTileSet.getIdentifier(), googleTileSet);
         matrixMap.put(crs84TileSet.getIdentifier(), crs84TileSet);
+        CrsLookup.prewarm(Arrays.asList(crs84URN, googleCrsURN));
     }
 
     public TileMatrixSet getTileMatrixSet(String id) {
@@ -117,6 +120,9 @@ public class TileMatrixRegistry {
                 }
                 matrixMap.put(set.getIdentifier(), set);
             }
+            if (set.getSupportedCrs() != null) {
+                CrsLookup.prewarm(Arrays.asList(set.getSupportedCrs()));
+            }
         }
     }
 